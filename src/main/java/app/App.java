@@ -10,6 +10,8 @@ import java.io.InputStream;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
+import server.RequestParser;
+import server.RouteCache;
 import server.Server;
 import server.map.PlanParser;
 import server.map.PlanParser.InconsistentDataException;
@@ -27,6 +29,11 @@ public class App {
      */
     private static int backlog;
 
+    /**
+     * Si les fichiers du plan et des horaires sont surveillés
+     */
+    private static boolean watch;
+
     /**
      * Chemin du ficher de configuration
      */
@@ -42,6 +49,26 @@ public class App {
      */
     private static final String BACKLOG_KEY = "backlog";
 
+    /**
+     * Nom du champ activant la recherche orientée vers l'arrivée (A*) pour toutes les requêtes
+     */
+    private static final String ASTAR_KEY = "astar";
+
+    /**
+     * Nom du champ pour le nombre de trajets conservés dans le cache
+     */
+    private static final String CACHE_KEY = "cache";
+
+    /**
+     * Nom du champ pour le répertoire où enregistrer l'image et la hiérarchie des plans
+     */
+    private static final String CACHE_DIRECTORY_KEY = "cacheDirectory";
+
+    /**
+     * Nom du champ activant le rechargement du plan quand ses fichiers changent
+     */
+    private static final String WATCH_KEY = "watch";
+
     /**
      * Commentaire d'erreur en static pour la gestion de fichier
      */
@@ -59,10 +86,17 @@ public class App {
     private static final String WRONG_TYPE_PORT_KEY = "le champ \"port\" n'est pas un entier";
     private static final String WRONG_TYPE_BACKLOG_KEY =
             "le champs \"backlog\" n'est pas un entier";
+    private static final String WRONG_TYPE_ASTAR_KEY = "le champ \"astar\" n'est pas un booléen";
+    private static final String WRONG_TYPE_CACHE_KEY = "le champ \"cache\" n'est pas un entier";
+    private static final String WRONG_TYPE_WATCH_KEY = "le champ \"watch\" n'est pas un booléen";
+    private static final String WRONG_TYPE_CACHE_DIRECTORY_KEY =
+            "le champ \"cacheDirectory\" n'est pas un répertoire";
     private static final String PORT_NEGATIVE_VALUE =
             "Le champ \"port\" ne peut pas être une valeur negative";
     private static final String BACKLOG_NEGATIVE_VALUE =
             "Le champ \"backlog\" ne peut pas être une valeur negative";
+    private static final String CACHE_NEGATIVE_VALUE =
+            "Le champ \"cache\" ne peut pas être une valeur negative";
     private static final String CONFIG_FILE_NOT_FOUND = "Le ficher ne configuration n'existe pas";
 
     public static void main(String[] args) {
@@ -79,15 +113,18 @@ public class App {
 
         try {
             config();
-            final Server server = new Server(mapFile.getPath(), port, true, backlog);
+            String timePath = null;
             if (hasCsvTimeFile(args)) {
                 final File timeFile = new File(args[1]);
                 if (!isFile(timeFile)) {
                     Logger.error(ERROR_FILE_TIME_NOT_EXIST);
                     return;
                 }
-                server.updateTime(timeFile.getPath());
+                timePath = timeFile.getPath();
             }
+            final Server server = new Server(mapFile.getPath(), timePath, port, true, backlog);
+            if (watch)
+                server.watch(mapFile.getPath(), timePath);
             server.start();
         } catch (FileNotFoundException e) {
             Logger.error(ERROR_FILE_MAP_NOT_EXIST);
@@ -101,7 +138,9 @@ public class App {
     }
 
     /**
-     * Initialise les champs {@code PORT} et {@code BACKLOG} selon le ficher de configuration
+     * Initialise les champs {@code PORT} et {@code BACKLOG}, la recherche orientée, la taille
+     * du cache des trajets, le répertoire des images des plans et la surveillance des fichiers
+     * selon le ficher de configuration
      *
      * @throws IllegalArgumentException le ficher est mal configuré, ne contient pas le champ
      *         {@code port} ou que les champs {@code port} et {@code backlog} ne sont pas des
@@ -109,6 +148,9 @@ public class App {
      *
      * @see App#affectPortValue
      * @see App#affectBacklogValue
+     * @see App#affectCacheValue
+     * @see App#affectCacheDirectoryValue
+     * @see App#affectWatchValue
      */
     static void config() throws IllegalArgumentException {
         try (InputStream stream = App.class.getResourceAsStream(CONFIG_FILE)) {
@@ -126,6 +168,14 @@ public class App {
 
             affectBacklogValue(jsonObject);
 
+            affectAstarValue(jsonObject);
+
+            affectCacheValue(jsonObject);
+
+            affectCacheDirectoryValue(jsonObject);
+
+            affectWatchValue(jsonObject);
+
         } catch (IOException e) {
             throw new IllegalAccessError(e.getMessage());
         } catch (javax.json.stream.JsonParsingException e) {
@@ -175,6 +225,85 @@ public class App {
         }
     }
 
+    /**
+     * Active la recherche orientée vers l'arrivée si le champ {@code astar} vaut {@code true}.
+     * Seuls les trajets calculés avec Dijkstra, depuis ou vers des coordonnées ou avec sections à
+     * pied, sont concernés
+     *
+     * @param jsonObject json représentant le ficher de configuration
+     * @throws IllegalArgumentException si le champ {@code astar} n'est pas un booléen
+     */
+    private static void affectAstarValue(JsonObject jsonObject) throws IllegalArgumentException {
+        try {
+            RequestParser.setGoalDirected(jsonObject.getBoolean(ASTAR_KEY));
+        } catch (NullPointerException e) {
+            RequestParser.setGoalDirected(false);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(WRONG_TYPE_ASTAR_KEY);
+        }
+    }
+
+    /**
+     * Affecte la taille du cache des trajets déclarée dans le ficher de configuration si présente
+     *
+     * @param jsonObject json représentant le ficher de configuration
+     * @throws IllegalArgumentException si le champ {@code cache} n'est pas entier ou un entier
+     *         negatif
+     */
+    private static void affectCacheValue(JsonObject jsonObject) throws IllegalArgumentException {
+        try {
+            int capacity = jsonObject.getInt(CACHE_KEY);
+
+            if (capacity < 0)
+                throw new IllegalArgumentException(CACHE_NEGATIVE_VALUE);
+
+            RouteCache.getInstance().setCapacity(capacity);
+        } catch (NullPointerException e) {
+            RouteCache.getInstance().setCapacity(RouteCache.DEFAULT_CAPACITY);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(WRONG_TYPE_CACHE_KEY);
+        }
+    }
+
+    /**
+     * Choisit le répertoire où enregistrer l'image et la hiérarchie de contraction des plans si
+     * le champ {@code cacheDirectory} est présent, à côté du fichier du plan sinon
+     *
+     * @param jsonObject json représentant le ficher de configuration
+     * @throws IllegalArgumentException si le champ {@code cacheDirectory} n'est pas le chemin
+     *         d'un répertoire existant
+     */
+    private static void affectCacheDirectoryValue(JsonObject jsonObject)
+            throws IllegalArgumentException {
+        try {
+            File directory = new File(jsonObject.getString(CACHE_DIRECTORY_KEY));
+            if (!directory.isDirectory())
+                throw new IllegalArgumentException(WRONG_TYPE_CACHE_DIRECTORY_KEY);
+            PlanParser.setCacheDirectory(directory.toPath());
+        } catch (NullPointerException e) {
+            PlanParser.setCacheDirectory(null);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(WRONG_TYPE_CACHE_DIRECTORY_KEY);
+        }
+    }
+
+    /**
+     * Active la surveillance des fichiers du plan et des horaires si le champ {@code watch} vaut
+     * {@code true}
+     *
+     * @param jsonObject json représentant le ficher de configuration
+     * @throws IllegalArgumentException si le champ {@code watch} n'est pas un booléen
+     */
+    private static void affectWatchValue(JsonObject jsonObject) throws IllegalArgumentException {
+        try {
+            watch = jsonObject.getBoolean(WATCH_KEY);
+        } catch (NullPointerException e) {
+            watch = false;
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException(WRONG_TYPE_WATCH_KEY);
+        }
+    }
+
     /**
      * Cette fonction renvoie un vrai si les arguments sont correctes s'ils respectent le formatage
      * ou faux si les arguments ne respectent pas le formatage
@@ -0,0 +1,200 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import server.Dijkstra.PathNotFoundException;
+import server.map.Plan;
+import server.map.PlanGraph;
+import server.map.Section;
+import server.map.Time;
+import server.map.Timetable;
+import util.EpochIntArray;
+
+/**
+ * Recherche de l'itinéraire arrivant au plus tôt entre deux stations avec l'algorithme
+ * Connection Scan : les connexions des horaires compilés du plan sont parcourues une seule fois
+ * dans l'ordre de leur départ, sans file de priorité.
+ *
+ * <p>
+ * Comme pour {@link Dijkstra}, changer d'arrêt au sein d'une même station ne retarde pas
+ * l'horaire d'arrivée : les horaires sont donc conservés par station et non par arrêt.
+ */
+final class ConnectionScan {
+    /**
+     * Les horaires compilés du plan
+     */
+    private final Timetable timetable;
+    /**
+     * Le graphe compilé du plan
+     */
+    private final PlanGraph graph;
+    /**
+     * Le sommet de départ ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int startId;
+    /**
+     * Le sommet d'arrivée ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int arrivalId;
+    /**
+     * L'horaire de départ en secondes depuis minuit
+     */
+    private final int departTime;
+    /**
+     * Les tableaux de la recherche du fil d'exécution courant, réutilisés d'une requête à l'autre
+     */
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+    /**
+     * L'horaire d'arrivée au plus tôt à chaque station, {@code Integer.MAX_VALUE} pour les
+     * stations non atteintes
+     */
+    private EpochIntArray arrivalTime;
+    /**
+     * La connexion prise pour arriver à chaque station atteinte autre que le départ
+     */
+    private int[] connection;
+    /**
+     * Le nombre de connexions parcourues
+     */
+    private int scanned;
+
+    /**
+     * @param plan le plan à utiliser
+     * @param start le nom de la station de départ
+     * @param arrival le nom de la station d'arrivée
+     * @param departTime l'horaire de départ
+     * @throws IllegalArgumentException si l'un des arguments est {@code null}
+     */
+    ConnectionScan(Plan plan, String start, String arrival, Time departTime)
+            throws IllegalArgumentException {
+        if (plan == null || start == null || arrival == null || departTime == null)
+            throw new IllegalArgumentException();
+        this.timetable = plan.getTimetable();
+        this.graph = timetable.getGraph();
+        this.startId = graph.nodeId(start);
+        this.arrivalId = graph.nodeId(arrival);
+        this.departTime = departTime.toSeconds();
+    }
+
+    /**
+     * @param plan un plan
+     * @param start un nom de station ou une coordonnée
+     * @param arrival un nom de station ou une coordonnée
+     * @return {@code true} si le départ et l'arrivée sont des stations du plan
+     */
+    static boolean accepts(Plan plan, String start, String arrival) {
+        PlanGraph g = plan.getGraph();
+        return g.nodeId(start) >= 0 && g.nodeId(arrival) >= 0;
+    }
+
+    /**
+     * Recherche l'itinéraire arrivant au plus tôt et renvoie la liste de ses sections
+     *
+     * @return la liste des sections dans l'ordre du départ à l'arrivée, vide si le départ et
+     *         l'arrivée sont la même station
+     * @throws PathNotFoundException s'il n'existe pas d'itinéraire entre les deux stations
+     */
+    List<Section> getPath() throws PathNotFoundException {
+        if (startId < 0 || arrivalId < 0)
+            throw new PathNotFoundException();
+        if (startId == arrivalId)
+            return new LinkedList<>();
+        Workspace workspace = Workspace.acquire(graph.nodeCount());
+        arrivalTime = workspace.arrivalTime;
+        connection = workspace.connection;
+        try {
+            scan();
+            return toResult();
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Parcourt les connexions à partir de l'horaire de départ jusqu'à ce qu'aucune ne puisse
+     * améliorer l'arrivée
+     *
+     * @throws PathNotFoundException si la station d'arrivée n'est pas atteinte
+     */
+    private void scan() throws PathNotFoundException {
+        arrivalTime.set(startId, departTime);
+        int end = timetable.size();
+        for (int c = timetable.firstDepartureAfter(departTime); c < end; c++) {
+            int departure = timetable.departure(c);
+            if (departure >= arrivalTime.get(arrivalId))
+                break;
+            scanned++;
+            if (arrivalTime.get(graph.stopNode(timetable.startStop(c))) > departure)
+                continue;
+            int node = graph.stopNode(timetable.arrivalStop(c));
+            if (timetable.arrival(c) < arrivalTime.get(node)) {
+                arrivalTime.set(node, timetable.arrival(c));
+                connection[node] = c;
+            }
+        }
+        if (!arrivalTime.isSet(arrivalId))
+            throw new PathNotFoundException();
+    }
+
+    /**
+     * @return le nombre de connexions parcourues lors de la dernière recherche
+     */
+    int getScannedCount() {
+        return scanned;
+    }
+
+    /**
+     * Reconstruit l'itinéraire en remontant les connexions depuis l'arrivée
+     *
+     * @return la liste des sections dans l'ordre du départ à l'arrivée
+     */
+    private List<Section> toResult() {
+        List<Section> orderedPath = new ArrayList<>();
+        int node = arrivalId;
+        while (node != startId) {
+            int c = connection[node];
+            orderedPath.add(graph.section(timetable.edge(c))
+                    .withDeparture(timetable.departure(c) % Timetable.DAY));
+            node = graph.stopNode(timetable.startStop(c));
+        }
+        Collections.reverse(orderedPath);
+        return orderedPath;
+    }
+
+    /**
+     * Les tableaux d'une recherche, conservés par fil d'exécution
+     */
+    private static final class Workspace {
+        private final EpochIntArray arrivalTime = new EpochIntArray(0, Integer.MAX_VALUE);
+        private int[] connection = new int[0];
+        /**
+         * Si une recherche utilise les tableaux
+         */
+        private boolean inUse;
+
+        /**
+         * @param nodes le nombre de stations du graphe
+         * @return les tableaux du fil d'exécution courant, ou de nouveaux tableaux s'ils sont déjà
+         *         utilisés, prêts pour une recherche
+         */
+        static Workspace acquire(int nodes) {
+            Workspace workspace = WORKSPACE.get();
+            if (workspace.inUse)
+                workspace = new Workspace();
+            workspace.inUse = true;
+            workspace.arrivalTime.reset(nodes);
+            if (workspace.connection.length < nodes)
+                workspace.connection = new int[nodes];
+            return workspace;
+        }
+
+        /**
+         * Rend les tableaux disponibles pour la prochaine recherche du fil
+         */
+        void release() {
+            inUse = false;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import server.Dijkstra.PathNotFoundException;
+import server.map.ContractionHierarchy;
+import server.map.DepartureOffsets;
+import server.map.Plan;
+import server.map.PlanGraph;
+import server.map.Section;
+import server.map.Time;
+import util.EpochIntArray;
+import util.IndexedHeap;
+
+/**
+ * Recherche du trajet le plus court en distance entre deux stations dans la hiérarchie de
+ * contraction du plan : une recherche montante depuis les arrêts de départ et une autre depuis
+ * les arrêts d'arrivée, jusqu'à ce qu'elles ne puissent plus améliorer leur point de rencontre.
+ *
+ * <p>
+ * Les horaires des sections du résultat sont calculés comme le fait {@link Dijkstra} en
+ * optimisation de distance : en prenant le prochain départ de chaque section.
+ */
+final class ContractionSearch {
+    /**
+     * Valeur représentant l'absence d'horaire
+     */
+    private static final int NO_TIME = Section.NO_TIME;
+    /**
+     * Nombre de secondes dans une journée
+     */
+    private static final int DAY = 24 * 3600;
+    /**
+     * La hiérarchie de contraction du plan
+     */
+    private final ContractionHierarchy hierarchy;
+    /**
+     * Le graphe compilé du plan
+     */
+    private final PlanGraph graph;
+    /**
+     * Le sommet de départ ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int startId;
+    /**
+     * Le sommet d'arrivée ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int arrivalId;
+    /**
+     * L'horaire de départ en secondes depuis minuit ou {@code NO_TIME}
+     */
+    private final int departTime;
+    /**
+     * Le décalage des arêtes par rapport au départ de leur ligne, {@code null} sans horaire de
+     * départ
+     */
+    private final DepartureOffsets offsets;
+    /**
+     * Les tableaux de la recherche du fil d'exécution courant, réutilisés d'une requête à l'autre
+     */
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+    /**
+     * Distance de chaque arrêt depuis le départ et jusqu'à l'arrivée, {@code Integer.MAX_VALUE}
+     * pour les arrêts non atteints
+     */
+    private EpochIntArray forward;
+    private EpochIntArray backward;
+    /**
+     * L'arc pris pour atteindre chaque arrêt atteint dans chaque recherche ou {@code -1}
+     */
+    private int[] forwardArc;
+    private int[] backwardArc;
+    private IndexedHeap forwardQueue;
+    private IndexedHeap backwardQueue;
+    /**
+     * Le nombre d'arrêts traités
+     */
+    private int settled;
+
+    /**
+     * @param plan le plan à utiliser
+     * @param start le nom de la station de départ
+     * @param arrival le nom de la station d'arrivée
+     * @param departTime l'horaire de départ ou {@code null}
+     * @throws IllegalArgumentException si {@code plan}, {@code start} ou {@code arrival} est
+     *         {@code null}
+     */
+    ContractionSearch(Plan plan, String start, String arrival, Time departTime)
+            throws IllegalArgumentException {
+        if (plan == null || start == null || arrival == null)
+            throw new IllegalArgumentException();
+        this.hierarchy = plan.getHierarchy();
+        this.graph = hierarchy.getGraph();
+        this.startId = graph.nodeId(start);
+        this.arrivalId = graph.nodeId(arrival);
+        this.departTime = departTime == null ? NO_TIME : departTime.toSeconds();
+        this.offsets = departTime == null ? null : plan.getDepartureOffsets();
+    }
+
+    /**
+     * @param plan un plan
+     * @param start un nom de station ou une coordonnée
+     * @param arrival un nom de station ou une coordonnée
+     * @return {@code true} si le départ et l'arrivée sont des stations du plan
+     */
+    static boolean accepts(Plan plan, String start, String arrival) {
+        PlanGraph g = plan.getGraph();
+        return g.nodeId(start) >= 0 && g.nodeId(arrival) >= 0;
+    }
+
+    /**
+     * Recherche le trajet le plus court et renvoie la liste de ses sections
+     *
+     * @return la liste des sections dans l'ordre du départ à l'arrivée, vide si le départ et
+     *         l'arrivée sont la même station
+     * @throws PathNotFoundException s'il n'existe pas de trajet entre les deux stations
+     */
+    List<Section> getPath() throws PathNotFoundException {
+        if (startId < 0 || arrivalId < 0)
+            throw new PathNotFoundException();
+        if (startId == arrivalId)
+            return new LinkedList<>();
+        Workspace workspace = Workspace.acquire(graph.stopCount());
+        forward = workspace.forward;
+        backward = workspace.backward;
+        forwardArc = workspace.forwardArc;
+        backwardArc = workspace.backwardArc;
+        forwardQueue = workspace.forwardQueue;
+        backwardQueue = workspace.backwardQueue;
+        try {
+            return toResult(compute());
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Exécute les deux recherches montantes
+     *
+     * @return l'arrêt de rencontre du plus court trajet
+     * @throws PathNotFoundException s'il n'existe pas de trajet entre les deux stations
+     */
+    private int compute() throws PathNotFoundException {
+        settled = 0;
+        for (int s = graph.firstStop(startId); s < graph.lastStop(startId); s++) {
+            forward.set(s, 0);
+            forwardArc[s] = -1;
+            forwardQueue.push(s, 0);
+        }
+        for (int s = graph.firstStop(arrivalId); s < graph.lastStop(arrivalId); s++) {
+            backward.set(s, 0);
+            backwardArc[s] = -1;
+            backwardQueue.push(s, 0);
+        }
+        int best = Integer.MAX_VALUE;
+        int meeting = -1;
+        while (!forwardQueue.isEmpty() || !backwardQueue.isEmpty()) {
+            int f = forwardQueue.isEmpty() ? Integer.MAX_VALUE : forwardQueue.peekKey();
+            int b = backwardQueue.isEmpty() ? Integer.MAX_VALUE : backwardQueue.peekKey();
+            if (Math.min(f, b) >= best)
+                break;
+            int s;
+            if (f <= b) {
+                s = forwardQueue.poll();
+                for (int i = hierarchy.firstUp(s); i < hierarchy.lastUp(s); i++)
+                    relax(hierarchy.upArc(i), s, hierarchy.to(hierarchy.upArc(i)), forward,
+                            forwardArc, forwardQueue);
+            } else {
+                s = backwardQueue.poll();
+                for (int i = hierarchy.firstDown(s); i < hierarchy.lastDown(s); i++)
+                    relax(hierarchy.downArc(i), s, hierarchy.from(hierarchy.downArc(i)),
+                            backward, backwardArc, backwardQueue);
+            }
+            settled++;
+            if (forward.isSet(s) && backward.isSet(s) && forward.get(s) + backward.get(s) < best) {
+                best = forward.get(s) + backward.get(s);
+                meeting = s;
+            }
+        }
+        if (meeting < 0)
+            throw new PathNotFoundException();
+        return meeting;
+    }
+
+    /**
+     * Relâche un arc dans l'une des deux recherches
+     *
+     * @param arc l'arc à relâcher
+     * @param s l'arrêt traité
+     * @param next l'autre extrémité de l'arc
+     * @param distance les distances de la recherche
+     * @param arcs les arcs pris dans la recherche
+     * @param queue la file de la recherche
+     */
+    private void relax(int arc, int s, int next, EpochIntArray distance, int[] arcs,
+            IndexedHeap queue) {
+        int d = distance.get(s) + hierarchy.weight(arc);
+        if (d < distance.get(next)) {
+            distance.set(next, d);
+            arcs[next] = arc;
+            queue.push(next, d);
+        }
+    }
+
+    /**
+     * @return le nombre d'arrêts traités lors de la dernière recherche
+     */
+    int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Déplie les raccourcis du trajet passant par {@code meeting} et calcule les horaires
+     *
+     * @param meeting l'arrêt de rencontre
+     * @return la liste des sections dans l'ordre du départ à l'arrivée
+     */
+    private List<Section> toResult(int meeting) {
+        List<Integer> arcs = new ArrayList<>();
+        for (int s = meeting; forwardArc[s] >= 0; s = hierarchy.from(forwardArc[s]))
+            arcs.add(0, forwardArc[s]);
+        for (int s = meeting; backwardArc[s] >= 0; s = hierarchy.to(backwardArc[s]))
+            arcs.add(backwardArc[s]);
+        List<Section> orderedPath = new LinkedList<>();
+        int time = departTime;
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int arc : arcs) {
+            stack.push(arc);
+            while (!stack.isEmpty()) {
+                int a = stack.pop();
+                int edge = hierarchy.edge(a);
+                if (edge == ContractionHierarchy.SHORTCUT) {
+                    stack.push(hierarchy.second(a));
+                    stack.push(hierarchy.first(a));
+                } else if (edge != ContractionHierarchy.TRANSFER) {
+                    int depart = nextDeparture(edge, time);
+                    orderedPath.add(graph.section(edge).withDeparture(depart));
+                    time = depart == NO_TIME ? NO_TIME : (depart + graph.duration(edge)) % DAY;
+                }
+            }
+        }
+        return orderedPath;
+    }
+
+    /**
+     * @param edge une arête du graphe
+     * @param time l'horaire minimal ou {@code NO_TIME}
+     * @return l'horaire du prochain départ de l'arête après {@code time} ou {@code NO_TIME}
+     */
+    private int nextDeparture(int edge, int time) {
+        if (time == NO_TIME || graph.lineId(edge) == PlanGraph.NO_LINE)
+            return time;
+        int next = offsets.nextDeparture(edge, time);
+        return next < 0 ? NO_TIME : next;
+    }
+
+    /**
+     * Les tableaux des deux recherches, conservés par fil d'exécution pour ne pas être alloués à
+     * chaque requête. Un fil qui lance une recherche pendant qu'une autre utilise ses tableaux en
+     * obtient de nouveaux.
+     */
+    private static final class Workspace {
+        private final EpochIntArray forward = new EpochIntArray(0, Integer.MAX_VALUE);
+        private final EpochIntArray backward = new EpochIntArray(0, Integer.MAX_VALUE);
+        private int[] forwardArc = new int[0];
+        private int[] backwardArc = new int[0];
+        private final IndexedHeap forwardQueue = new IndexedHeap(0);
+        private final IndexedHeap backwardQueue = new IndexedHeap(0);
+        /**
+         * Si une recherche utilise les tableaux
+         */
+        private boolean inUse;
+
+        /**
+         * @param stops le nombre d'arrêts du graphe
+         * @return les tableaux du fil d'exécution courant, ou de nouveaux tableaux s'ils sont déjà
+         *         utilisés, prêts pour une recherche
+         */
+        static Workspace acquire(int stops) {
+            Workspace workspace = WORKSPACE.get();
+            if (workspace.inUse)
+                workspace = new Workspace();
+            workspace.inUse = true;
+            workspace.forward.reset(stops);
+            workspace.backward.reset(stops);
+            if (workspace.forwardArc.length < stops) {
+                workspace.forwardArc = new int[stops];
+                workspace.backwardArc = new int[stops];
+            }
+            workspace.forwardQueue.ensureCapacity(stops);
+            workspace.backwardQueue.ensureCapacity(stops);
+            return workspace;
+        }
+
+        /**
+         * Vide les files et rend les tableaux disponibles pour la prochaine recherche du fil
+         */
+        void release() {
+            forwardQueue.clear();
+            backwardQueue.clear();
+            inUse = false;
+        }
+    }
+}
@@ -1,46 +1,73 @@
 package server;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.function.ToIntBiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import server.data.StationTime;
+import server.data.TravelMatrix;
+import server.map.DepartureOffsets;
+import server.map.FootGraph;
 import server.map.Plan;
+import server.map.PlanGraph;
 import server.map.Section;
 import server.map.Station;
 import server.map.Time;
+import util.EpochIntArray;
+import util.IndexedHeap;
 import util.Logger;
 import util.Parser;
 
 /**
- * Implémentation de l'algorithme de Dijkstra sur un plan
+ * Implémentation de l'algorithme de Dijkstra sur le graphe compilé d'un plan. Le plan n'est
+ * jamais modifié : les sommets et arêtes propres à la requête sont dans un {@link QueryOverlay}.
+ *
+ * <p>
+ * Le coût d'un changement dépendant de l'arrêt par lequel on arrive à une station, les étiquettes
+ * de la recherche sont portées par les arrêts et non par les sommets : le trajet trouvé est le
+ * plus court du graphe des arrêts, le même que celui de {@link ContractionSearch}.
+ *
+ * <p>
+ * La recherche peut être orientée vers l'arrivée (algorithme A*) : chaque arrêt est alors traité
+ * selon sa distance depuis le départ augmentée d'un minorant de sa distance jusqu'à l'arrivée,
+ * calculé à partir de la distance à vol d'oiseau et des bornes du {@link PlanGraph}. Ce minorant
+ * est cohérent : la recherche orientée traite moins d'arrêts mais trouve un trajet de même
+ * longueur.
  */
 public final class Dijkstra {
     /**
-     * Le plan du réseau
+     * Les sections à pied entre les arrêts du plan, {@code null} si elles ne sont pas possibles
      */
-    private final Plan plan;
+    private final FootGraph footGraph;
     /**
-     * Le sommet de départ
+     * Le graphe compilé du plan
      */
-    private final String start;
+    private final PlanGraph graph;
     /**
-     * Le sommet d'arrivé
+     * Le décalage des arêtes par rapport au départ de leur ligne, {@code null} sans horaire de
+     * départ
      */
-    private final String arrival;
+    private final DepartureOffsets offsets;
     /**
-     * L'horaire de départ
+     * Les sommets et arêtes propres à la requête
      */
-    private final Time departTime;
+    private final QueryOverlay overlay;
+    /**
+     * Le sommet de départ ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int startId;
+    /**
+     * Le sommet d'arrivé ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int arrivalId;
+    /**
+     * L'horaire de départ en secondes depuis minuit ou {@code NO_TIME}
+     */
+    private final int departTime;
     /**
      * Optimisation en distance ou en temps
      */
@@ -49,105 +76,218 @@ public final class Dijkstra {
      * Si des sections à pied sont possibles
      */
     private boolean foot;
+    /**
+     * Si la distance d'un sommet est la durée réelle du trajet jusqu'à lui : la marche n'est pas
+     * pondérée et les changements d'arrêt, qui ne retardent pas l'horaire d'arrivée, ne sont pas
+     * comptés
+     */
+    private boolean earliestArrival;
+    /**
+     * Si la recherche est orientée vers l'arrivée
+     */
+    private final boolean goalDirected;
+    /**
+     * Le poids minimal d'un trajet par mètre à vol d'oiseau
+     */
+    private final double bound;
     /**
      * La distance maximale à parcourir à pied entre 2 sections
      */
-    private static final int MAX_FOOT_DISTANCE = 1000;
+    private static final int MAX_FOOT_DISTANCE = FootGraph.MAX_DISTANCE;
     /**
      * Le poids pour les trajets à pied
      */
     private static final double WEIGHT_FOOT = 1.5;
     /**
-     * La fonction qui calcule le poids d'une arrête à partir de la dernière arête traitée
+     * Format d'une coordonnée passée à la place d'un nom de station
+     */
+    private static final Pattern COORDINATE = Pattern.compile("^\\((.*)\\)$");
+    /**
+     * Valeur représentant l'absence d'horaire
+     */
+    private static final int NO_TIME = Section.NO_TIME;
+    /**
+     * Valeur représentant une station inaccessible dans {@link #getCosts(String[])}
+     */
+    static final int NO_COST = TravelMatrix.UNREACHABLE;
+    /**
+     * Nombre de secondes dans une journée
+     */
+    private static final int DAY = 24 * 3600;
+    /**
+     * Les tableaux de la recherche du fil d'exécution courant, réutilisés d'une requête à l'autre
      */
-    private final ToIntBiFunction<Section, Section> getWeight;
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
     /**
-     * Associe chaque sommet à sa distance par rapport au sommet de départ
+     * Les tableaux de la recherche en cours, empruntés au fil d'exécution le temps d'un calcul
      */
-    private final Map<String, Integer> distance;
+    private Workspace workspace;
     /**
-     * Associe chaque sommet à l'arête pris pour arriver à ce sommet
+     * Distance de chaque étiquette par rapport au départ, {@code Integer.MAX_VALUE} pour les
+     * étiquettes non atteintes. L'étiquette d'un arrêt correspond à une arrivée à cet arrêt.
      */
-    private final Map<String, Section> previous;
+    private EpochIntArray distance;
     /**
-     * File de priorité sur les sommets par rapport à leur distance avec le sommet de départ
+     * L'arête prise pour arriver à chaque étiquette atteinte ou {@code -1}
      */
-    private final PriorityQueue<String> queue;
+    private int[] previous;
     /**
-     * Le sommet en cours de traitement
+     * L'étiquette depuis laquelle chaque étiquette atteinte a été atteinte
      */
-    private String u;
-    private static final String DEPART = "Départ";
-    private static final String ARRIVEE = "Arrivée";
+    private int[] parent;
+    /**
+     * L'arrêt par lequel on est arrivé à chaque étiquette atteinte
+     */
+    private int[] arrivalStop;
+    /**
+     * L'horaire d'arrivée à chaque étiquette atteinte ou {@code NO_TIME}
+     */
+    private int[] arrivalTime;
+    /**
+     * L'horaire de départ de l'arête prise pour arriver à chaque étiquette atteinte ou
+     * {@code NO_TIME}
+     */
+    private int[] departureTime;
+    /**
+     * Le minorant de la distance de chaque arrêt jusqu'à l'arrivée, si déjà calculé
+     */
+    private EpochIntArray potential;
+    /**
+     * Les vecteurs unitaires des arrêts d'arrivée
+     */
+    private final double[][] targets;
+    /**
+     * File de priorité sur les étiquettes par rapport à leur distance avec le départ
+     */
+    private IndexedHeap queue;
+    /**
+     * Le nombre d'étiquettes traitées
+     */
+    private int settled;
+    /**
+     * L'étiquette du départ
+     */
+    private int startLabel;
+    /**
+     * L'étiquette en cours de traitement
+     */
+    private int u;
 
     /**
      * @param plan le plan à utiliser
      * @param start le sommet de départ
      * @param arrival le sommet d'arrivé
      * @param departTime l'horaire de départ
-     * @param getWeight la fonction qui associe à une section (arête) son poids
+     * @param distOpt si optimisation en distance
+     * @param foot si des sections à pied sont possibles
      */
     Dijkstra(Plan plan, String start, String arrival, Time departTime, boolean distOpt,
             boolean foot) {
-        if (plan == null || start == null || arrival == null)
+        this(plan, start, arrival, departTime, distOpt, foot, false);
+    }
+
+    /**
+     * @param plan le plan à utiliser
+     * @param start le sommet de départ
+     * @param arrival le sommet d'arrivé
+     * @param departTime l'horaire de départ
+     * @param distOpt si optimisation en distance
+     * @param foot si des sections à pied sont possibles
+     * @param goalDirected si la recherche est orientée vers l'arrivée
+     */
+    Dijkstra(Plan plan, String start, String arrival, Time departTime, boolean distOpt,
+            boolean foot, boolean goalDirected) {
+        this(plan, start, arrival, departTime == null ? NO_TIME : departTime.toSeconds(), distOpt,
+                foot, goalDirected);
+        if (arrival == null)
+            throw new IllegalArgumentException();
+    }
+
+    /**
+     * Prépare un parcours sans arrivée des sommets accessibles depuis le départ, voir
+     * {@link #getReachable(int)} et {@link #getCosts(String[])}
+     *
+     * @param plan le plan à utiliser
+     * @param start le sommet de départ
+     * @param departTime l'horaire de départ
+     * @param distOpt si optimisation en distance
+     * @param foot si des sections à pied sont possibles
+     * @throws IllegalArgumentException si {@code departTime} est {@code null} en optimisation de
+     *         temps
+     */
+    Dijkstra(Plan plan, String start, Time departTime, boolean distOpt, boolean foot) {
+        this(plan, start, null, departTime == null ? NO_TIME : departTime.toSeconds(), distOpt,
+                foot, false);
+        if (departTime == null && !distOpt)
             throw new IllegalArgumentException();
-        this.plan = plan;
-        this.start = initStart(start);
-        this.arrival = initArrival(arrival);
+    }
+
+    /**
+     * @param plan le plan à utiliser
+     * @param start le sommet de départ
+     * @param arrival le sommet d'arrivé ou {@code null} pour un parcours sans arrivée
+     * @param departTime l'horaire de départ en secondes depuis minuit ou {@code NO_TIME}
+     * @param distOpt si optimisation en distance
+     * @param foot si des sections à pied sont possibles
+     * @param goalDirected si la recherche est orientée vers l'arrivée
+     */
+    private Dijkstra(Plan plan, String start, String arrival, int departTime, boolean distOpt,
+            boolean foot, boolean goalDirected) {
+        if (plan == null || start == null)
+            throw new IllegalArgumentException();
+        this.footGraph = foot ? plan.getFootGraph() : null;
+        this.overlay = new QueryOverlay(plan);
+        this.graph = overlay.getGraph();
+        this.startId = initStart(start);
+        this.arrivalId = arrival == null ? -1 : initArrival(arrival);
         this.departTime = departTime;
+        this.offsets = departTime == NO_TIME ? null : plan.getDepartureOffsets();
         this.distOpt = distOpt;
         this.foot = foot;
-        this.getWeight = distOpt ? Section::distanceTo : Section::durationTo;
-        distance = new HashMap<>();
-        previous = new HashMap<>();
-        queue = new PriorityQueue<>(plan.getMap().size(), Comparator.comparingInt(distance::get));
-        this.u = null;
+        this.goalDirected = goalDirected;
+        this.bound = distOpt ? graph.distanceBound() : graph.durationBound();
+        targets = goalDirected && arrivalId >= 0 ? targetVectors() : null;
+        this.u = -1;
     }
 
     /**
-     * Ajoute si nécessaire des arêtes dans {@code map} permettant de relié une coordonnée aux
+     * Ajoute si nécessaire dans {@code overlay} des arêtes permettant de relier une coordonnée aux
      * stations du réseau.
      *
      * @param start un nom de station ou une coordonnée
-     * @return {@code DEPART} s'il s'agit d'une coordonnée ou le nom de la station sinon
+     * @return le départ virtuel s'il s'agit d'une coordonnée ou le sommet de la station sinon
      */
-    private String initStart(String start) {
-        Pattern p = Pattern.compile("^\\((.*)\\)$");
-        Matcher m = p.matcher(start);
+    private int initStart(String start) {
+        Matcher m = COORDINATE.matcher(start);
         if (m.matches()) {
             try {
                 double[] coord = Parser.parse2DoubleSep(m.group(1), ",");
-                plan.addStationWithSectionToNearStation(DEPART, coord[0], coord[1],
-                        MAX_FOOT_DISTANCE);
-                return DEPART;
+                return overlay.addOrigin(coord[0], coord[1], MAX_FOOT_DISTANCE);
             } catch (Exception ignored) {
                 Logger.info(ignored.getMessage());
             }
         }
-        return start;
+        return graph.nodeId(start);
     }
 
     /**
-     * Ajoute si nécessaire des arêtes dans {@code map} permettant de relié une coordonnée aux
-     * stations du réseau.
+     * Ajoute si nécessaire dans {@code overlay} des arêtes permettant de relier les stations du
+     * réseau à une coordonnée.
      *
      * @param arrival un nom de station ou une coordonnée
-     * @return {@code ARRIVEE} s'il s'agit d'une coordonnée ou le nom de la station sinon
+     * @return l'arrivée virtuelle s'il s'agit d'une coordonnée ou le sommet de la station sinon
      */
-    private String initArrival(String arrival) {
-        Pattern p = Pattern.compile("^\\((.*)\\)$");
-        Matcher m = p.matcher(arrival);
+    private int initArrival(String arrival) {
+        Matcher m = COORDINATE.matcher(arrival);
         if (m.matches()) {
             try {
                 double[] coord = Parser.parse2DoubleSep(m.group(1), ",");
-                plan.addStationWithSectionFromNearStation(ARRIVEE, coord[0], coord[1],
-                        MAX_FOOT_DISTANCE);
-                return ARRIVEE;
+                return overlay.addDestination(coord[0], coord[1], MAX_FOOT_DISTANCE);
             } catch (Exception ignored) {
                 Logger.info(ignored.getMessage());
             }
         }
-        return arrival;
+        return graph.nodeId(arrival);
     }
 
     /**
@@ -167,13 +307,20 @@ public final class Dijkstra {
      * Recherche un chemin entre 2 sommets en appliquant l'algorithme de dijkstra et renvoie la
      * liste des arêtes dans l'ordre du chemin
      *
-     * @return la liste des arêtes dans l'ordre du départ à l'arrivé
+     * @return la liste des arêtes dans l'ordre du départ à l'arrivé, vide si le départ et
+     *         l'arrivée sont la même station
      * @throws PathNotFoundException s'il n'existe pas de chemin entre les deux sommets
      */
     List<Section> getPath() throws PathNotFoundException {
-        if (previous.isEmpty())
+        if (startId >= 0 && startId == arrivalId)
+            return new LinkedList<>();
+        acquire();
+        try {
             compute();
-        return toResult();
+            return toResult();
+        } finally {
+            release();
+        }
     }
 
     /**
@@ -182,25 +329,192 @@ public final class Dijkstra {
      * @throws PathNotFoundException s'il n'existe pas de chemin entre les deux sommets
      */
     private void compute() throws PathNotFoundException {
+        if (startId < 0 || arrivalId < 0 || startId == arrivalId)
+            throw new PathNotFoundException();
         init();
         while (!finished()) {
             loop();
         }
-        if (!arrival.equals(u))
+        if (node(u) != arrivalId)
             throw new PathNotFoundException();
     }
 
+    /**
+     * Parcourt en une seule recherche tous les sommets dont la distance en temps depuis le départ
+     * est d'au plus {@code maxDuration} secondes. Cette distance comprend les attentes et les
+     * correspondances. La distance d'un sommet est la durée réelle du trajet jusqu'à lui : la
+     * marche n'a pas le poids {@code WEIGHT_FOOT} des trajets.
+     *
+     * @param maxDuration la durée maximale en secondes
+     * @return chaque station accessible autre que le départ avec son horaire d'arrivée et la
+     *         ligne prise pour y arriver, de la plus proche à la plus éloignée
+     * @throws IllegalStateException si la recherche est en optimisation de distance
+     */
+    List<StationTime> getReachable(int maxDuration) {
+        if (distOpt)
+            throw new IllegalStateException();
+        earliestArrival = true;
+        acquire();
+        try {
+            // l'étiquette traitée en premier pour chaque sommet atteint
+            List<Integer> reached = new ArrayList<>();
+            boolean[] seen = new boolean[overlay.nodeCount()];
+            if (startId >= 0) {
+                init();
+                seen[startId] = true;
+                while (!queue.isEmpty()) {
+                    u = queue.poll();
+                    // la distance de u est la durée réelle du trajet jusqu'à lui
+                    if (distance.get(u) > maxDuration)
+                        break;
+                    settled++;
+                    int n = node(u);
+                    if (!seen[n] && n < graph.nodeCount())
+                        reached.add(u);
+                    seen[n] = true;
+                    loop();
+                }
+            }
+            reached.sort(Comparator.comparingInt((Integer v) -> durationBetween(departTime,
+                    arrivalTime[v])).thenComparing(v -> graph.name(node(v))));
+            List<StationTime> result = new ArrayList<>(reached.size());
+            for (int v : reached) {
+                int line = overlay.lineId(previous[v]);
+                String lineName = line == PlanGraph.NO_LINE ? null : graph.line(line).getName();
+                result.add(
+                        new StationTime(lineName, graph.name(node(v)), new Time(arrivalTime[v])));
+            }
+            return result;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Calcule en une seule recherche le coût des trajets du départ vers plusieurs stations. La
+     * recherche s'arrête dès que toutes les stations sont traitées. En optimisation de temps,
+     * comme pour {@link #getReachable(int)}, la recherche donne l'arrivée au plus tôt : la marche
+     * n'a pas le poids {@code WEIGHT_FOOT} des trajets et les changements d'arrêt sont gratuits.
+     *
+     * @param destinations des noms de station
+     * @return pour chaque station de {@code destinations}, la longueur en mètres du trajet en
+     *         optimisation de distance ou la durée en secondes jusqu'à l'arrivée au plus tôt en
+     *         optimisation de temps, {@code NO_COST} si la station est inconnue ou inaccessible
+     */
+    int[] getCosts(String[] destinations) {
+        earliestArrival = !distOpt;
+        int[] nodes = new int[destinations.length];
+        boolean[] wanted = new boolean[overlay.nodeCount()];
+        int remaining = 0;
+        for (int i = 0; i < destinations.length; i++) {
+            nodes[i] = graph.nodeId(destinations[i]);
+            if (nodes[i] >= 0 && !wanted[nodes[i]]) {
+                wanted[nodes[i]] = true;
+                remaining++;
+            }
+        }
+        // l'étiquette traitée en premier pour chaque sommet demandé, -1 s'il n'est pas atteint
+        int[] labels = new int[overlay.nodeCount()];
+        Arrays.fill(labels, -1);
+        acquire();
+        try {
+            if (startId >= 0) {
+                init();
+                while (remaining > 0 && !queue.isEmpty()) {
+                    u = queue.poll();
+                    settled++;
+                    int n = node(u);
+                    if (wanted[n] && labels[n] < 0) {
+                        labels[n] = u;
+                        remaining--;
+                    }
+                    loop();
+                }
+            }
+            int[] costs = new int[destinations.length];
+            for (int i = 0; i < destinations.length; i++)
+                costs[i] = nodes[i] < 0 ? NO_COST : cost(nodes[i], labels[nodes[i]]);
+            return costs;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * @param node un sommet
+     * @param label l'étiquette traitée en premier pour {@code node} ou {@code -1}
+     * @return la longueur ou la durée du trajet jusqu'à {@code node}, {@code NO_COST} s'il n'est
+     *         pas accessible
+     */
+    private int cost(int node, int label) {
+        if (startId < 0)
+            return NO_COST;
+        if (node == startId)
+            return 0;
+        if (label < 0)
+            return NO_COST;
+        if (!distOpt)
+            return durationBetween(departTime, arrivalTime[label]);
+        int length = 0;
+        for (int v = label; v != startLabel; v = parent[v])
+            length += overlay.distance(previous[v]);
+        return length;
+    }
+
+    /**
+     * Emprunte les tableaux du fil d'exécution courant et les prépare pour la taille de
+     * {@code overlay}. Les valeurs de la recherche précédente sont invalidées sans parcourir les
+     * tableaux.
+     */
+    private void acquire() {
+        workspace = Workspace.acquire(overlay.stopCount());
+        distance = workspace.distance;
+        previous = workspace.previous;
+        parent = workspace.parent;
+        arrivalStop = workspace.arrivalStop;
+        arrivalTime = workspace.arrivalTime;
+        departureTime = workspace.departureTime;
+        potential = workspace.potential;
+        queue = workspace.queue;
+    }
+
+    /**
+     * Rend les tableaux empruntés par {@link #acquire()}
+     */
+    private void release() {
+        workspace.release();
+        workspace = null;
+        distance = null;
+        previous = null;
+        parent = null;
+        arrivalStop = null;
+        arrivalTime = null;
+        departureTime = null;
+        potential = null;
+        queue = null;
+    }
+
     /**
      * Initialise les valeurs pour l'algorithme
      */
     private void init() {
-        Set<String> stationsName = plan.getStationsName();
-        for (String station : stationsName) {
-            distance.put(station, Integer.MAX_VALUE);
-        }
-        distance.put(start, 0);
-        distance.put(arrival, Integer.MAX_VALUE);
-        queue.addAll(stationsName);
+        settled = 0;
+        startLabel = overlay.firstStop(startId);
+        distance.set(startLabel, 0);
+        previous[startLabel] = -1;
+        parent[startLabel] = -1;
+        arrivalStop[startLabel] = -1;
+        arrivalTime[startLabel] = departTime;
+        departureTime[startLabel] = NO_TIME;
+        queue.push(startLabel, 0);
+    }
+
+    /**
+     * @param label une étiquette
+     * @return le sommet de {@code label}
+     */
+    private int node(int label) {
+        return overlay.stopNode(label);
     }
 
     /**
@@ -210,80 +524,238 @@ public final class Dijkstra {
         if (queue.isEmpty())
             return true;
         u = queue.poll();
-        return arrival.equals(u) || distance.get(u) == Integer.MAX_VALUE;
+        settled++;
+        return node(u) == arrivalId;
     }
 
     /**
-     * @return la liste des arêtes partant de {@code u} en prenant en compte les sections à pied
+     * Corps de l'algorithme : relâche les arêtes partant du sommet de {@code u} en prenant en
+     * compte les sections à pied
      */
-    private List<Section> getNeighbors() {
-        Section prev = previous.get(u);
-        List<Section> neighbors = plan.getSectionsFromStationName(u);
-        if (neighbors == null)
-            neighbors = new ArrayList<>();
-
-        if (prev == null && !start.equals(DEPART) && foot) {
-            Set<Station> startStations = new HashSet<>(neighbors.stream().map(Section::getStart)
-                    .collect(Collectors.toCollection(ArrayList::new)));
-            for (Station s : startStations) {
-                neighbors.addAll(plan.getCloseStations(s, MAX_FOOT_DISTANCE, false).stream()
-                        .map(closeStation -> new Section(s, closeStation, null,
-                                s.distanceBetween(closeStation), s.durationBetween(closeStation)))
-                        .collect(Collectors.toCollection(ArrayList::new)));
+    private void loop() {
+        int n = node(u);
+        if (n < graph.nodeCount()) {
+            for (int e = graph.firstEdge(n); e < graph.lastEdge(n); e++)
+                relax(e);
+        }
+        int virtualEdges = graph.edgeCount() + overlay.virtualEdgeCount();
+        for (int e = graph.edgeCount(); e < virtualEdges; e++) {
+            if (overlay.stopNode(overlay.startStop(e)) == n)
+                relax(e);
+        }
+        if (!foot)
+            return;
+        if (previous[u] < 0 && n < graph.nodeCount()) {
+            for (int e = graph.firstEdge(n); e < graph.lastEdge(n); e++) {
+                int s = graph.startStop(e);
+                if (isFirstEdgeFromStop(n, e, s))
+                    addFootEdges(s);
             }
-        } else if (prev != null && foot) {
-            Station s = prev.getArrival();
-            neighbors.addAll(plan.getCloseStations(s, MAX_FOOT_DISTANCE, false).stream()
-                    .map(closeStation -> new Section(s, closeStation, null,
-                            s.distanceBetween(closeStation), s.durationBetween(closeStation)))
-                    .collect(Collectors.toCollection(ArrayList::new)));
+        } else if (previous[u] >= 0) {
+            addFootEdges(arrivalStop[u]);
         }
-        return neighbors;
     }
 
     /**
-     * Corps de l'algorithme
+     * @param node le sommet de {@code edge}
+     * @param edge une arête partant de {@code node}
+     * @param stop l'arrêt de départ de {@code edge}
+     * @return {@code true} si aucune arête précédente de {@code node} ne part de {@code stop}
      */
-    private void loop() {
-        for (Section section : getNeighbors()) {
-            Section prev = previous.get(u);
-            if (prev == null) {
-                prev = new Section(section.getStart(), section.getStart(), "", 0, 0);
-                prev.setTime(departTime);
-            }
-            plan.updateSectionTime(section, prev.getArrivalTime());
-            if (distOpt || section.getTime() != null) {
-                String v = section.getArrival().getName();
-                int weight = getWeight.applyAsInt(prev, section);
-                int w = distance.get(u)
-                        + (section.getLine() == null ? (int) Math.round(weight * WEIGHT_FOOT)
-                                : weight);
-                if (distance.get(v) > w) {
-                    distance.put(v, w);
-                    previous.put(v, section);
-                    queue.remove(v);
-                    queue.add(v);
-                }
-            }
+    private boolean isFirstEdgeFromStop(int node, int edge, int stop) {
+        for (int e = graph.firstEdge(node); e < edge; e++) {
+            if (graph.startStop(e) == stop)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Crée et relâche les arêtes à pied partant de {@code stop} vers les arrêts proches
+     *
+     * @param stop un arrêt du sommet de {@code u}
+     */
+    private void addFootEdges(int stop) {
+        Station s = overlay.stop(stop);
+        if (stop < graph.stopCount()) {
+            for (int e = footGraph.firstEdge(stop); e < footGraph.lastEdge(stop); e++)
+                relax(overlay.addEdge(stop, footGraph.target(e), footGraph.distance(e),
+                        footGraph.duration(e)));
+        } else {
+            for (int close : overlay.closeStops(s, MAX_FOOT_DISTANCE))
+                relax(overlay.addEdge(stop, close));
+        }
+        if (overlay.hasVirtualStops()) {
+            for (int close : overlay.closeVirtualStops(s, MAX_FOOT_DISTANCE))
+                relax(overlay.addEdge(stop, close));
         }
     }
 
+    /**
+     * Relâche une arête partant du sommet de {@code u}
+     *
+     * @param edge l'identifiant de l'arête
+     */
+    private void relax(int edge) {
+        int from = overlay.startStop(edge);
+        int to = overlay.arrivalStop(edge);
+        int duration = overlay.duration(edge);
+        int line = overlay.lineId(edge);
+        int time = arrivalTime[u];
+        int depart = line == PlanGraph.NO_LINE ? time : nextDeparture(edge, time);
+        if (!distOpt && depart == NO_TIME)
+            return;
+        int last = arrivalStop[u];
+        int weight;
+        if (distOpt)
+            weight = (last < 0 ? 0 : overlay.transferDistance(last, from)) + overlay.distance(edge);
+        else
+            weight = (last < 0 || earliestArrival ? 0 : overlay.transferDuration(last, from))
+                    + durationBetween(time, (depart + duration) % DAY);
+        int w = distance.get(u) + (line == PlanGraph.NO_LINE && !earliestArrival
+                ? (int) Math.round(weight * WEIGHT_FOOT) : weight);
+        int v = to;
+        if (distance.get(v) > w) {
+            distance.set(v, w);
+            previous[v] = edge;
+            parent[v] = u;
+            arrivalStop[v] = to;
+            departureTime[v] = depart;
+            arrivalTime[v] = depart == NO_TIME ? NO_TIME : (depart + duration) % DAY;
+            queue.push(v, w + potential(to));
+        }
+    }
+
+    /**
+     * Le minorant dépend de l'arrêt par lequel on arrive au sommet, les arrêts d'une même station
+     * pouvant être éloignés les uns des autres. Un changement d'arrêt coûtant au moins la
+     * distance entre les deux arrêts, il est cohérent pour des étiquettes portées par les arrêts.
+     *
+     * @param stop un arrêt
+     * @return un minorant de la distance de {@code stop} jusqu'à l'arrivée, {@code 0} si la
+     *         recherche n'est pas orientée
+     */
+    private int potential(int stop) {
+        if (!goalDirected)
+            return 0;
+        if (!potential.isSet(stop)) {
+            double crow = Double.MAX_VALUE;
+            for (double[] target : targets)
+                crow = Math.min(crow, overlay.chordDistance(stop, target));
+            potential.set(stop, (int) (bound * crow));
+        }
+        return potential.get(stop);
+    }
+
+    /**
+     * @return les vecteurs unitaires des arrêts du sommet d'arrivée
+     */
+    private double[][] targetVectors() {
+        int first = overlay.firstStop(arrivalId);
+        double[][] vectors = new double[overlay.lastStop(arrivalId) - first][];
+        for (int t = 0; t < vectors.length; t++)
+            vectors[t] = PlanGraph.unitVector(overlay.stop(first + t).getCoordinate());
+        return vectors;
+    }
+
+    /**
+     * @return le nombre de sommets traités lors de la dernière recherche
+     */
+    int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * @param edge une arête du graphe
+     * @param time l'horaire minimal ou {@code NO_TIME}
+     * @return l'horaire du prochain départ de l'arête après {@code time} ou {@code NO_TIME}
+     */
+    private int nextDeparture(int edge, int time) {
+        if (time == NO_TIME)
+            return NO_TIME;
+        int next = offsets.nextDeparture(edge, time);
+        return next < 0 ? NO_TIME : next;
+    }
+
+    /**
+     * @param from un horaire en secondes
+     * @param to un horaire en secondes
+     * @return le nombre de secondes pour atteindre {@code to} depuis {@code from}
+     */
+    private static int durationBetween(int from, int to) {
+        int diff = to - from;
+        return diff < 0 ? diff + DAY : diff;
+    }
+
     /**
      * Met la liste des arêtes dans l'ordre du chemin dans {@code result}
      *
      * @throws PathNotFoundException s'il n'existe pas de chemin entre les deux sommets
      */
     private List<Section> toResult() throws PathNotFoundException {
+        if (startId < 0 || arrivalId < 0 || startId == arrivalId)
+            throw new PathNotFoundException();
         List<Section> orderedPath = new LinkedList<>();
-        String last = arrival;
-        while (!last.equals(start)) {
-            Section section = previous.get(last);
-            if (section == null)
+        int last = u;
+        while (last != startLabel) {
+            int edge = previous[last];
+            if (edge < 0)
                 throw new PathNotFoundException();
-            orderedPath.add(section);
-            last = section.getStart().getName();
+            orderedPath.add(overlay.toSection(edge, departureTime[last]));
+            last = parent[last];
         }
         Collections.reverse(orderedPath);
         return orderedPath;
     }
+
+    /**
+     * Les tableaux d'une recherche, conservés par fil d'exécution pour ne pas être alloués à
+     * chaque requête. Un fil qui lance une recherche pendant qu'une autre utilise ses tableaux en
+     * obtient de nouveaux.
+     */
+    private static final class Workspace {
+        private final EpochIntArray distance = new EpochIntArray(0, Integer.MAX_VALUE);
+        private final EpochIntArray potential = new EpochIntArray(0, 0);
+        private int[] previous = new int[0];
+        private int[] parent = new int[0];
+        private int[] arrivalStop = new int[0];
+        private int[] arrivalTime = new int[0];
+        private int[] departureTime = new int[0];
+        private final IndexedHeap queue = new IndexedHeap(0);
+        /**
+         * Si une recherche utilise les tableaux
+         */
+        private boolean inUse;
+
+        /**
+         * @param labels le nombre d'étiquettes de la recherche, une par arrêt
+         * @return les tableaux du fil d'exécution courant, ou de nouveaux tableaux s'ils sont déjà
+         *         utilisés, prêts pour une recherche
+         */
+        static Workspace acquire(int labels) {
+            Workspace workspace = WORKSPACE.get();
+            if (workspace.inUse)
+                workspace = new Workspace();
+            workspace.inUse = true;
+            workspace.distance.reset(labels);
+            workspace.potential.reset(labels);
+            if (workspace.previous.length < labels) {
+                workspace.previous = new int[labels];
+                workspace.parent = new int[labels];
+                workspace.arrivalStop = new int[labels];
+                workspace.arrivalTime = new int[labels];
+                workspace.departureTime = new int[labels];
+            }
+            workspace.queue.ensureCapacity(labels);
+            return workspace;
+        }
+
+        /**
+         * Vide la file et rend les tableaux disponibles pour la prochaine recherche du fil
+         */
+        void release() {
+            queue.clear();
+            inUse = false;
+        }
+    }
 }
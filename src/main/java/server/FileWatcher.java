@@ -0,0 +1,167 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import server.map.Plan;
+import util.Logger;
+
+/**
+ * Surveille le fichier du plan et celui des horaires et recharge le plan du server quand ils
+ * changent.
+ *
+ * <p>
+ * Les changements sont regroupés : le rechargement n'a lieu qu'une fois les fichiers inchangés
+ * pendant {@code delay} millisecondes, pour ne pas lire un fichier en cours d'écriture. Un
+ * changement du plan recharge le plan et ses horaires, un changement des seuls horaires ne recharge
+ * que les horaires. Un rechargement qui échoue laisse le plan actuel en place.
+ */
+final class FileWatcher implements Runnable, Closeable {
+    /**
+     * Le délai par défaut en millisecondes sans changement avant de recharger le plan
+     */
+    static final long DEFAULT_DELAY = 1000;
+
+    private final Server server;
+    private final WatchService service;
+    private final Path mapFile;
+    /**
+     * Le fichier des horaires, {@code null} s'il n'y en a pas
+     */
+    private final Path timeFile;
+    private final long delay;
+    private final Thread thread;
+    private boolean mapChanged;
+    private boolean timeChanged;
+    /**
+     * L'instant en nanosecondes à partir duquel les changements sont rechargés
+     */
+    private long deadline;
+
+    /**
+     * @param server le server dont le plan est rechargé
+     * @param pathMapFile chemin vers le ficher du plan
+     * @param pathTimeFile chemin vers le ficher des horaires, {@code null} s'il n'y en a pas
+     * @param delay le délai en millisecondes sans changement avant de recharger le plan
+     * @throws IOException si les répertoires des fichiers ne peuvent pas être surveillés
+     */
+    FileWatcher(Server server, String pathMapFile, String pathTimeFile, long delay)
+            throws IOException {
+        this.server = server;
+        this.mapFile = Path.of(pathMapFile).toAbsolutePath().normalize();
+        this.timeFile =
+                pathTimeFile == null ? null : Path.of(pathTimeFile).toAbsolutePath().normalize();
+        this.delay = delay;
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            register(mapFile);
+            if (timeFile != null && !timeFile.getParent().equals(mapFile.getParent()))
+                register(timeFile);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+        this.thread = new Thread(this, "plan-watch");
+        thread.setDaemon(true);
+    }
+
+    private void register(Path file) throws IOException {
+        file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Commence la surveillance des fichiers
+     */
+    void start() {
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                boolean pending = mapChanged || timeChanged;
+                long remaining = deadline - System.nanoTime();
+                WatchKey key = pending ? service.poll(remaining, TimeUnit.NANOSECONDS)
+                        : service.take();
+                if (key != null) {
+                    collect(key);
+                    key.reset();
+                }
+                if ((mapChanged || timeChanged) && System.nanoTime() - deadline >= 0)
+                    reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // surveillance arrêtée par close()
+        }
+    }
+
+    /**
+     * Retient les fichiers surveillés modifiés et repousse le rechargement
+     *
+     * @param key les évènements d'un répertoire surveillé
+     */
+    private void collect(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            boolean overflow = event.kind() == StandardWatchEventKinds.OVERFLOW;
+            Path changed = overflow ? null : dir.resolve((Path) event.context());
+            boolean map = overflow || mapFile.equals(changed);
+            boolean time = timeFile != null && (overflow || timeFile.equals(changed));
+            if (map || time) {
+                mapChanged |= map;
+                timeChanged |= time;
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            }
+        }
+    }
+
+    /**
+     * Recharge ce qui a changé. Les rechargements du server étant exécutés l'un après l'autre, un
+     * changement pendant un rechargement est rechargé ensuite.
+     */
+    private void reload() {
+        CompletableFuture<Plan> reload;
+        try {
+            if (mapChanged) {
+                Logger.info("Fichier du plan modifié : " + mapFile);
+                reload = timeFile == null ? server.reloadMap(mapFile.toString())
+                        : server.reloadMap(mapFile.toString(), timeFile.toString());
+            } else {
+                Logger.info("Fichier des horaires modifié : " + timeFile);
+                reload = server.reloadTime(mapFile.toString(), timeFile.toString());
+            }
+        } catch (RejectedExecutionException e) {
+            // le server est arrêté
+            return;
+        } finally {
+            mapChanged = false;
+            timeChanged = false;
+        }
+        reload.exceptionally(e -> {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            Logger.error("Le plan n'a pas été rechargé : " + cause.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Arrête la surveillance des fichiers
+     */
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+}
@@ -0,0 +1,354 @@
+package server;
+
+import java.util.Arrays;
+import java.util.List;
+import server.map.Plan;
+import server.map.PlanGraph;
+import server.map.Section;
+import server.map.Station;
+
+/**
+ * Sommets et arêtes propres à une requête, ajoutés par-dessus le graphe partagé d'un plan sans le
+ * modifier : le départ et l'arrivée virtuels lorsque ce sont des coordonnées, leurs sections à
+ * pied et les sections à pied créées pendant la recherche.
+ *
+ * <p>
+ * Les sommets, arrêts et arêtes du plan gardent leurs identifiants. Ceux de la requête sont
+ * numérotés à leur suite.
+ */
+final class QueryOverlay {
+    /**
+     * Nom du départ virtuel
+     */
+    static final String DEPART = "Départ";
+    /**
+     * Nom de l'arrivée virtuelle
+     */
+    static final String ARRIVEE = "Arrivée";
+    /**
+     * Le plan de la requête
+     */
+    private final Plan plan;
+    /**
+     * Le graphe partagé du plan
+     */
+    private final PlanGraph graph;
+    /**
+     * Le départ et l'arrivée virtuels, {@code null} s'ils ne sont pas utilisés. Chacun est à la
+     * fois un sommet et un unique arrêt.
+     */
+    private final Station[] virtualStops;
+    /**
+     * Arrêt de départ des arêtes de la requête
+     */
+    private int[] edgeStarts;
+    /**
+     * Arrêt d'arrivée des arêtes de la requête
+     */
+    private int[] edgeArrivals;
+    /**
+     * Longueur des arêtes de la requête
+     */
+    private int[] edgeDistances;
+    /**
+     * Durée des arêtes de la requête
+     */
+    private int[] edgeDurations;
+    /**
+     * Nombre d'arêtes de la requête
+     */
+    private int edgeCount;
+    /**
+     * Nombre d'arêtes reliant le départ ou l'arrivée virtuels au plan
+     */
+    private int virtualEdgeCount;
+
+    private static final int DEPART_INDEX = 0;
+    private static final int ARRIVEE_INDEX = 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * @param plan le plan de la requête
+     */
+    QueryOverlay(Plan plan) {
+        this.plan = plan;
+        this.graph = plan.getGraph();
+        this.virtualStops = new Station[2];
+        this.edgeStarts = new int[INITIAL_CAPACITY];
+        this.edgeArrivals = new int[INITIAL_CAPACITY];
+        this.edgeDistances = new int[INITIAL_CAPACITY];
+        this.edgeDurations = new int[INITIAL_CAPACITY];
+        this.edgeCount = 0;
+        this.virtualEdgeCount = 0;
+    }
+
+    PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Ajoute le départ virtuel et les sections à pied vers les stations à moins de
+     * {@code maxDistance} mètres, ou vers la station la plus proche s'il n'y en a pas
+     *
+     * @param latitude la latitude du départ
+     * @param longitude la longitude du départ
+     * @param maxDistance la distance maximale des sections
+     * @return le sommet du départ virtuel
+     */
+    int addOrigin(double latitude, double longitude, int maxDistance) {
+        Station station = new Station(DEPART, latitude, longitude);
+        virtualStops[DEPART_INDEX] = station;
+        int stop = virtualStop(DEPART_INDEX);
+        for (int near : nearStops(station, maxDistance))
+            addEdge(stop, near);
+        virtualEdgeCount = edgeCount;
+        return stopNode(stop);
+    }
+
+    /**
+     * Ajoute l'arrivée virtuelle et les sections à pied depuis les stations à moins de
+     * {@code maxDistance} mètres, ou depuis la station la plus proche s'il n'y en a pas
+     *
+     * @param latitude la latitude de l'arrivée
+     * @param longitude la longitude de l'arrivée
+     * @param maxDistance la distance maximale des sections
+     * @return le sommet de l'arrivée virtuelle
+     */
+    int addDestination(double latitude, double longitude, int maxDistance) {
+        Station station = new Station(ARRIVEE, latitude, longitude);
+        virtualStops[ARRIVEE_INDEX] = station;
+        int stop = virtualStop(ARRIVEE_INDEX);
+        for (int near : nearStops(station, maxDistance))
+            addEdge(near, stop);
+        virtualEdgeCount = edgeCount;
+        return stopNode(stop);
+    }
+
+    /**
+     * Cherche les arrêts proches d'un arrêt virtuel parmi les stations du plan et le départ
+     * virtuel, comme si ce dernier avait été ajouté au plan
+     *
+     * @param station un arrêt virtuel
+     * @param maxDistance la distance maximale
+     * @return les arrêts à moins de {@code maxDistance} mètres de {@code station} ou l'arrêt le
+     *         plus proche s'il n'y en a pas
+     */
+    private int[] nearStops(Station station, int maxDistance) {
+        List<Station> near = plan.getCloseStations(station, maxDistance, false);
+        Station origin = virtualStops[DEPART_INDEX];
+        boolean withOrigin = origin != null && origin != station;
+        int[] stops = new int[near.size() + 1];
+        int count = 0;
+        for (Station s : near)
+            stops[count++] = graph.stopId(s);
+        if (withOrigin && station.distanceBetween(origin) < maxDistance)
+            stops[count++] = virtualStop(DEPART_INDEX);
+        if (count == 0) {
+            List<Station> closest = plan.getCloseStations(station, maxDistance, true);
+            if (withOrigin && (closest.isEmpty() || station.distanceBetween(origin) < station
+                    .distanceBetween(closest.get(0))))
+                stops[count++] = virtualStop(DEPART_INDEX);
+            else if (!closest.isEmpty())
+                stops[count++] = graph.stopId(closest.get(0));
+        }
+        return Arrays.copyOf(stops, count);
+    }
+
+    /**
+     * Ajoute une section à pied entre deux arrêts
+     *
+     * @param from l'arrêt de départ
+     * @param to l'arrêt d'arrivée
+     * @return l'identifiant de l'arête créée
+     */
+    int addEdge(int from, int to) {
+        Station a = stop(from);
+        Station b = stop(to);
+        return addEdge(from, to, a.distanceBetween(b), a.durationBetween(b));
+    }
+
+    /**
+     * Ajoute une section à pied déjà calculée entre deux arrêts
+     *
+     * @param from l'arrêt de départ
+     * @param to l'arrêt d'arrivée
+     * @param distance la longueur de la section
+     * @param duration la durée de la section
+     * @return l'identifiant de l'arête créée
+     */
+    int addEdge(int from, int to, int distance, int duration) {
+        if (edgeCount == edgeStarts.length) {
+            int capacity = edgeCount * 2;
+            edgeStarts = Arrays.copyOf(edgeStarts, capacity);
+            edgeArrivals = Arrays.copyOf(edgeArrivals, capacity);
+            edgeDistances = Arrays.copyOf(edgeDistances, capacity);
+            edgeDurations = Arrays.copyOf(edgeDurations, capacity);
+        }
+        edgeStarts[edgeCount] = from;
+        edgeArrivals[edgeCount] = to;
+        edgeDistances[edgeCount] = distance;
+        edgeDurations[edgeCount] = duration;
+        return graph.edgeCount() + edgeCount++;
+    }
+
+    /**
+     * @param index {@code DEPART_INDEX} ou {@code ARRIVEE_INDEX}
+     * @return l'identifiant de l'arrêt virtuel
+     */
+    private int virtualStop(int index) {
+        return graph.stopCount() + index;
+    }
+
+    /**
+     * @param station un arrêt virtuel
+     * @param maxDistance la distance maximale
+     * @return les arrêts du plan à moins de {@code maxDistance} mètres de {@code station}
+     */
+    int[] closeStops(Station station, int maxDistance) {
+        return plan.getCloseStations(station, maxDistance, false).stream()
+                .mapToInt(graph::stopId).toArray();
+    }
+
+    /**
+     * @param station un arrêt
+     * @param maxDistance la distance maximale
+     * @return les arrêts virtuels à moins de {@code maxDistance} mètres de {@code station}
+     */
+    int[] closeVirtualStops(Station station, int maxDistance) {
+        int[] close = new int[virtualStops.length];
+        int count = 0;
+        for (int i = 0; i < virtualStops.length; i++) {
+            Station s = virtualStops[i];
+            if (s != null && !s.equals(station) && station.distanceBetween(s) < maxDistance)
+                close[count++] = virtualStop(i);
+        }
+        return Arrays.copyOf(close, count);
+    }
+
+    /**
+     * @return si la requête a un départ ou une arrivée virtuels
+     */
+    boolean hasVirtualStops() {
+        return virtualStops[DEPART_INDEX] != null || virtualStops[ARRIVEE_INDEX] != null;
+    }
+
+    int stopCount() {
+        return graph.stopCount() + virtualStops.length;
+    }
+
+    int nodeCount() {
+        return graph.nodeCount() + virtualStops.length;
+    }
+
+    int stopNode(int stop) {
+        if (stop < graph.stopCount())
+            return graph.stopNode(stop);
+        return graph.nodeCount() + stop - graph.stopCount();
+    }
+
+    int firstStop(int node) {
+        if (node < graph.nodeCount())
+            return graph.firstStop(node);
+        return graph.stopCount() + node - graph.nodeCount();
+    }
+
+    int lastStop(int node) {
+        if (node < graph.nodeCount())
+            return graph.lastStop(node);
+        return firstStop(node) + 1;
+    }
+
+    Station stop(int stop) {
+        if (stop < graph.stopCount())
+            return graph.stop(stop);
+        return virtualStops[stop - graph.stopCount()];
+    }
+
+    /**
+     * @param stop un arrêt
+     * @param vector le vecteur unitaire d'une coordonnée
+     * @return la longueur en mètres de la corde entre l'arrêt et la coordonnée
+     * @see PlanGraph#chordDistance(double[], double[])
+     */
+    double chordDistance(int stop, double[] vector) {
+        if (stop < graph.stopCount())
+            return graph.chordDistance(stop, vector);
+        return PlanGraph.chordDistance(PlanGraph.unitVector(stop(stop).getCoordinate()), vector);
+    }
+
+    /**
+     * @param from un arrêt
+     * @param to un arrêt du même sommet que {@code from}
+     * @return la distance en mètres entre les deux arrêts
+     */
+    int transferDistance(int from, int to) {
+        if (from < graph.stopCount())
+            return graph.transferDistance(from, to);
+        return 0;
+    }
+
+    /**
+     * @param from un arrêt
+     * @param to un arrêt du même sommet que {@code from}
+     * @return la durée de marche en secondes entre les deux arrêts
+     */
+    int transferDuration(int from, int to) {
+        if (from < graph.stopCount())
+            return graph.transferDuration(from, to);
+        return 0;
+    }
+
+    /**
+     * @return le nombre d'arêtes reliant le départ ou l'arrivée virtuels au plan, numérotées à
+     *         partir de {@code getGraph().edgeCount()}
+     */
+    int virtualEdgeCount() {
+        return virtualEdgeCount;
+    }
+
+    int startStop(int edge) {
+        if (edge < graph.edgeCount())
+            return graph.startStop(edge);
+        return edgeStarts[edge - graph.edgeCount()];
+    }
+
+    int arrivalStop(int edge) {
+        if (edge < graph.edgeCount())
+            return graph.arrivalStop(edge);
+        return edgeArrivals[edge - graph.edgeCount()];
+    }
+
+    int distance(int edge) {
+        if (edge < graph.edgeCount())
+            return graph.distance(edge);
+        return edgeDistances[edge - graph.edgeCount()];
+    }
+
+    int duration(int edge) {
+        if (edge < graph.edgeCount())
+            return graph.duration(edge);
+        return edgeDurations[edge - graph.edgeCount()];
+    }
+
+    int lineId(int edge) {
+        if (edge < graph.edgeCount())
+            return graph.lineId(edge);
+        return PlanGraph.NO_LINE;
+    }
+
+    /**
+     * Crée la section du résultat correspondant à une arête, sans modifier le plan
+     *
+     * @param edge une arête
+     * @param departure l'horaire de départ de la section en secondes depuis minuit ou
+     *        {@link Section#NO_TIME}
+     * @return une nouvelle section
+     */
+    Section toSection(int edge, int departure) {
+        if (edge < graph.edgeCount())
+            return graph.section(edge).withDeparture(departure);
+        int e = edge - graph.edgeCount();
+        return new Section(stop(edgeStarts[e]), stop(edgeArrivals[e]), null, edgeDistances[e],
+                edgeDurations[e]).withDeparture(departure);
+    }
+}
@@ -0,0 +1,298 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import server.Dijkstra.PathNotFoundException;
+import server.map.Plan;
+import server.map.PlanGraph;
+import server.map.RoutePatterns;
+import server.map.Section;
+import server.map.Time;
+import server.map.Timetable;
+
+/**
+ * Recherche d'itinéraires par tours avec l'algorithme RAPTOR. Le tour {@code k} trouve les
+ * horaires d'arrivée au plus tôt avec au plus {@code k} trains, en parcourant une seule fois
+ * chaque ligne passant par une station améliorée au tour précédent.
+ *
+ * <p>
+ * Le résultat est l'ensemble de Pareto des itinéraires : chacun arrive strictement plus tôt que
+ * ceux ayant moins de correspondances. Comme pour {@link Dijkstra}, changer d'arrêt au sein d'une
+ * même station ne retarde pas l'horaire d'arrivée.
+ */
+final class Raptor {
+    /**
+     * Un itinéraire de l'ensemble de Pareto
+     *
+     * @param transfers le nombre de correspondances
+     * @param arrival l'horaire d'arrivée
+     * @param sections les sections dans l'ordre du départ à l'arrivée
+     */
+    record Journey(int transfers, Time arrival, List<Section> sections) {
+    }
+
+    /**
+     * Pas encore atteint
+     */
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    /**
+     * Les parcours compilés du plan
+     */
+    private final RoutePatterns routes;
+    /**
+     * Le graphe compilé du plan
+     */
+    private final PlanGraph graph;
+    /**
+     * Le sommet de départ ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int startId;
+    /**
+     * Le sommet d'arrivée ou {@code -1} s'il n'est pas dans le plan
+     */
+    private final int arrivalId;
+    /**
+     * L'horaire de départ en secondes depuis minuit
+     */
+    private final int departTime;
+    /**
+     * Le nombre maximal de trains, c'est-à-dire de correspondances plus un
+     */
+    private final int maxRounds;
+    /**
+     * L'horaire d'arrivée à chaque sommet pour chaque tour
+     */
+    private final int[][] arrivalTime;
+    /**
+     * La position où l'on est monté dans le train arrivant à chaque sommet pour chaque tour, ou
+     * {@code -1} si l'horaire vient du tour précédent
+     */
+    private final int[][] boardPosition;
+    /**
+     * La position où l'on est descendu du train arrivant à chaque sommet pour chaque tour
+     */
+    private final int[][] alightPosition;
+    /**
+     * Le train arrivant à chaque sommet pour chaque tour
+     */
+    private final int[][] trip;
+    /**
+     * Le meilleur horaire d'arrivée connu à chaque sommet, tous tours confondus
+     */
+    private final int[] best;
+    /**
+     * Les sommets améliorés au dernier tour
+     */
+    private final boolean[] marked;
+    /**
+     * La première position à parcourir de chaque ligne au tour courant ou {@code -1}
+     */
+    private final int[] queued;
+    /**
+     * Le nombre de lignes parcourues
+     */
+    private int scanned;
+
+    /**
+     * @param plan le plan à utiliser
+     * @param start le nom de la station de départ
+     * @param arrival le nom de la station d'arrivée
+     * @param departTime l'horaire de départ
+     * @param maxTransfers le nombre maximal de correspondances
+     * @throws IllegalArgumentException si l'un des arguments est {@code null} ou si
+     *         {@code maxTransfers} est négatif
+     */
+    Raptor(Plan plan, String start, String arrival, Time departTime, int maxTransfers)
+            throws IllegalArgumentException {
+        if (plan == null || start == null || arrival == null || departTime == null
+                || maxTransfers < 0)
+            throw new IllegalArgumentException();
+        this.routes = plan.getRoutePatterns();
+        this.graph = routes.getGraph();
+        this.startId = graph.nodeId(start);
+        this.arrivalId = graph.nodeId(arrival);
+        this.departTime = departTime.toSeconds();
+        this.maxRounds = maxTransfers + 1;
+        int n = graph.nodeCount();
+        arrivalTime = new int[maxRounds + 1][];
+        boardPosition = new int[maxRounds + 1][];
+        alightPosition = new int[maxRounds + 1][];
+        trip = new int[maxRounds + 1][];
+        best = new int[n];
+        marked = new boolean[n];
+        queued = new int[routes.routeCount()];
+    }
+
+    /**
+     * Recherche l'ensemble de Pareto des itinéraires
+     *
+     * @return les itinéraires par nombre croissant de correspondances, un seul itinéraire vide
+     *         si le départ et l'arrivée sont la même station
+     * @throws PathNotFoundException s'il n'existe pas d'itinéraire entre les deux stations
+     */
+    List<Journey> getJourneys() throws PathNotFoundException {
+        if (startId < 0 || arrivalId < 0)
+            throw new PathNotFoundException();
+        if (startId == arrivalId)
+            return List.of(
+                    new Journey(0, new Time(departTime % Timetable.DAY), new LinkedList<>()));
+        int rounds = compute();
+        List<Journey> journeys = new ArrayList<>();
+        for (int k = 1; k <= rounds; k++) {
+            if (arrivalTime[k][arrivalId] < arrivalTime[k - 1][arrivalId])
+                journeys.add(new Journey(k - 1,
+                        new Time(arrivalTime[k][arrivalId] % Timetable.DAY), toResult(k)));
+        }
+        if (journeys.isEmpty())
+            throw new PathNotFoundException();
+        return journeys;
+    }
+
+    /**
+     * @return l'itinéraire arrivant au plus tôt
+     * @throws PathNotFoundException s'il n'existe pas d'itinéraire entre les deux stations
+     */
+    List<Section> getPath() throws PathNotFoundException {
+        List<Journey> journeys = getJourneys();
+        return journeys.get(journeys.size() - 1).sections();
+    }
+
+    /**
+     * Exécute les tours jusqu'à ce qu'aucune station ne soit améliorée
+     *
+     * @return le nombre de tours exécutés
+     */
+    private int compute() {
+        int n = graph.nodeCount();
+        arrivalTime[0] = new int[n];
+        Arrays.fill(arrivalTime[0], UNREACHED);
+        Arrays.fill(best, UNREACHED);
+        Arrays.fill(marked, false);
+        Arrays.fill(queued, -1);
+        arrivalTime[0][startId] = departTime;
+        best[startId] = departTime;
+        marked[startId] = true;
+        int k = 0;
+        while (k < maxRounds) {
+            k++;
+            arrivalTime[k] = arrivalTime[k - 1].clone();
+            boardPosition[k] = new int[n];
+            alightPosition[k] = new int[n];
+            trip[k] = new int[n];
+            Arrays.fill(boardPosition[k], -1);
+            if (!round(k))
+                break;
+        }
+        return k;
+    }
+
+    /**
+     * Parcourt les lignes passant par les stations améliorées au tour précédent
+     *
+     * @param k le numéro du tour
+     * @return {@code true} si une station a été améliorée
+     */
+    private boolean round(int k) {
+        List<Integer> routesToScan = new ArrayList<>();
+        for (int u = 0; u < marked.length; u++) {
+            if (!marked[u])
+                continue;
+            marked[u] = false;
+            for (int i = routes.firstNodePosition(u); i < routes.lastNodePosition(u); i++) {
+                int p = routes.nodePosition(i);
+                int r = routes.route(p);
+                if (queued[r] < 0)
+                    routesToScan.add(r);
+                if (queued[r] < 0 || p < queued[r])
+                    queued[r] = p;
+            }
+        }
+        boolean improved = false;
+        for (int r : routesToScan) {
+            improved |= scanRoute(k, r, queued[r]);
+            queued[r] = -1;
+            scanned++;
+        }
+        return improved;
+    }
+
+    /**
+     * Parcourt une ligne en montant dans le premier train possible puis en changeant pour un
+     * train plus tôt dès que possible
+     *
+     * @param k le numéro du tour
+     * @param route la ligne à parcourir
+     * @param from la première position à parcourir
+     * @return {@code true} si une station a été améliorée
+     */
+    private boolean scanRoute(int k, int route, int from) {
+        boolean improved = false;
+        int current = -1;
+        int boardedAt = -1;
+        int last = routes.lastPosition(route) - 1;
+        for (int p = from; p <= last; p++) {
+            int node = graph.stopNode(routes.stop(p));
+            if (current >= 0) {
+                int arrival = routes.tripDeparture(current) + routes.arrivalOffset(p);
+                if (arrival < best[node] && arrival < best[arrivalId]) {
+                    arrivalTime[k][node] = arrival;
+                    best[node] = arrival;
+                    boardPosition[k][node] = boardedAt;
+                    alightPosition[k][node] = p;
+                    trip[k][node] = current;
+                    marked[node] = true;
+                    improved = true;
+                }
+            }
+            int previous = arrivalTime[k - 1][node];
+            if (p == last || previous == UNREACHED)
+                continue;
+            if (current < 0 || previous
+                    <= routes.tripDeparture(current) + routes.departureOffset(p)) {
+                int t = routes.earliestTrip(p, previous);
+                if (t < routes.lastTrip(route) && (current < 0 || t < current)) {
+                    current = t;
+                    boardedAt = p;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * @return le nombre de lignes parcourues lors de la dernière recherche
+     */
+    int getScannedCount() {
+        return scanned;
+    }
+
+    /**
+     * Reconstruit l'itinéraire arrivant à la station d'arrivée au tour {@code k}
+     *
+     * @param k le numéro du tour
+     * @return la liste des sections dans l'ordre du départ à l'arrivée
+     */
+    private List<Section> toResult(int k) {
+        List<Section> orderedPath = new LinkedList<>();
+        int node = arrivalId;
+        int round = k;
+        while (node != startId) {
+            while (boardPosition[round][node] < 0)
+                round--;
+            int t = trip[round][node];
+            int board = boardPosition[round][node];
+            for (int p = alightPosition[round][node] - 1; p >= board; p--) {
+                int departure = routes.tripDeparture(t) + routes.departureOffset(p);
+                orderedPath.add(
+                        graph.section(routes.edge(p)).withDeparture(departure % Timetable.DAY));
+            }
+            node = graph.stopNode(routes.stop(board));
+            round--;
+        }
+        Collections.reverse(orderedPath);
+        return orderedPath;
+    }
+}
@@ -1,6 +1,9 @@
 package server;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import server.data.SuggestionStations.SuggestionKind;
 import server.map.Plan;
@@ -35,12 +38,46 @@ public class RequestParser {
      */
     private static final String TIME_KEY = "TIME";
 
+    /**
+     * Nom de la commande pour demander les stations accessibles depuis une station en un temps
+     * limité.
+     *
+     * <p>
+     * Command structure: ISO;station;HH:MM;minutes[;FOOT]
+     */
+    private static final String ISO_KEY = "ISO";
+
+    /**
+     * Nom de la commande pour demander la matrice des trajets entre plusieurs stations.
+     *
+     * <p>
+     * Command structure: MATRIX;départ|départ...;arrivée|arrivée...;HH:MM;DISTANCE|TIME[;FOOT]
+     */
+    private static final String MATRIX_KEY = "MATRIX";
+
+    /**
+     * Caractère séparant les stations d'une requête MATRIX
+     */
+    private static final String STATION_SPLITTER = "|";
+
     /**
      * Argument determinant si la recherche d'un trajet doit prendre en compte les 
      * sections à pied
      */
     private static final String FOOT_KEY = "FOOT";
 
+    /**
+     * Argument determinant si la recherche d'un trajet doit être orientée vers l'arrivée (A*).
+     * Sans effet pour un trajet entre deux stations sans {@link #FOOT_KEY}, calculé sans
+     * {@link Dijkstra} (voir {@link SearchPath})
+     */
+    private static final String ASTAR_KEY = "ASTAR";
+
+    /**
+     * Si les recherches de trajet sont orientées vers l'arrivée par défaut
+     */
+    private static volatile boolean goalDirected = false;
+
     /**
      * La requête n'a pas le bon format
      */
@@ -52,6 +89,14 @@ public class RequestParser {
 
     private RequestParser() {}
 
+    /**
+     * @param enabled si les recherches de trajet faites avec {@link Dijkstra} sont orientées vers
+     *        l'arrivée sans que la requête ne le demande
+     */
+    public static void setGoalDirected(boolean enabled) {
+        goalDirected = enabled;
+    }
+
     @FunctionalInterface
     private static interface Handler {
         ServerActionCallback handle(Plan plan, String[] args) throws ParsingException;
@@ -62,7 +107,9 @@ public class RequestParser {
      */
     private static final Map<String, Handler> handler =
             Map.of(ROUTE_KEY, RequestParser::handleRouteRequest, SEARCH_KEY,
-                    RequestParser::handleSearchRequest, TIME_KEY, RequestParser::handleTimeRequest);
+                    RequestParser::handleSearchRequest, TIME_KEY, RequestParser::handleTimeRequest,
+                    ISO_KEY, RequestParser::handleIsoRequest, MATRIX_KEY,
+                    RequestParser::handleMatrixRequest);
 
     /**
      * Parse le nom de la requête
@@ -101,8 +148,9 @@ public class RequestParser {
      */
     private static ServerActionCallback handleRouteRequest(Plan plan, String[] inputArgs)
             throws ParsingException {
-        if ((inputArgs.length != 5 && inputArgs.length != 6) || inputArgs[1].isBlank()
-                || inputArgs[2].isBlank() || inputArgs[3].isBlank()) {
+        if (inputArgs.length < 5 || inputArgs.length > 7
+                || (inputArgs.length == 7 && !isRouteOption(inputArgs[6]))
+                || inputArgs[1].isBlank() || inputArgs[2].isBlank() || inputArgs[3].isBlank()) {
             String message = "Départ ou arrivée ou temps manquant.";
             Logger.error(message);
             throw new ParsingException(message);
@@ -113,15 +161,29 @@ public class RequestParser {
             try {
                 int[] time = Parser.parse2IntSep(inputArgs[3], ":");
                 boolean distOpt = !inputArgs[4].trim().equals(TIME_KEY);
-                boolean foot = inputArgs.length == 6 && inputArgs[5].trim().equals(FOOT_KEY);
-                return new SearchPath(new Plan(plan), start, arrival,
-                new Time(time[0], time[1]), distOpt, foot);
+                boolean foot = false;
+                boolean astar = goalDirected;
+                for (int i = 5; i < inputArgs.length; i++) {
+                    foot |= inputArgs[i].trim().equals(FOOT_KEY);
+                    astar |= inputArgs[i].trim().equals(ASTAR_KEY);
+                }
+                return new SearchPath(plan, start, arrival,
+                new Time(time[0], time[1]), distOpt, foot, astar);
             } catch (Exception e) {
                 throw new ParsingException("Time mal formé");
             }
         }
     }
 
+    /**
+     * @param arg un argument d'une requête ROUTE
+     * @return {@code true} si {@code arg} est une option de la recherche de trajet
+     */
+    private static boolean isRouteOption(String arg) {
+        String option = arg.trim();
+        return option.equals(FOOT_KEY) || option.equals(ASTAR_KEY);
+    }
+
     /**
      * Parse une requête SEARCH
      * 
@@ -171,4 +233,79 @@ public class RequestParser {
             throw new ParsingException("Time mal formé");
         }
     }
+
+    /**
+     * Parse une requête ISO
+     *
+     * @param plan instance du plan sur laquelle effectuer les calculs
+     * @param inputArgs liste des arguments de la requête
+     * @return le traitement de la requête
+     * @throws ParsingException si la requête n'a pas le bon format
+     */
+    private static ServerActionCallback handleIsoRequest(Plan plan, String[] inputArgs)
+            throws ParsingException {
+        if (inputArgs.length < 4 || inputArgs.length > 5
+                || (inputArgs.length == 5 && !inputArgs[4].trim().equals(FOOT_KEY))
+                || inputArgs[1].isBlank() || inputArgs[2].isBlank() || inputArgs[3].isBlank()) {
+            String message = "Station, horaire ou durée manquant";
+            Logger.error(message);
+            throw new ParsingException(message);
+        }
+        String station = inputArgs[1].trim();
+        try {
+            int[] time = Parser.parse2IntSep(inputArgs[2], ":");
+            int minutes = Integer.parseInt(inputArgs[3].trim());
+            return new SearchReachable(plan, station, new Time(time[0], time[1]), minutes,
+                    inputArgs.length == 5);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new ParsingException("Horaire ou durée mal formé");
+        }
+    }
+
+    /**
+     * Parse une requête MATRIX
+     *
+     * @param plan instance du plan sur laquelle effectuer les calculs
+     * @param inputArgs liste des arguments de la requête
+     * @return le traitement de la requête
+     * @throws ParsingException si la requête n'a pas le bon format
+     */
+    private static ServerActionCallback handleMatrixRequest(Plan plan, String[] inputArgs)
+            throws ParsingException {
+        if (inputArgs.length < 5 || inputArgs.length > 6
+                || (inputArgs.length == 6 && !inputArgs[5].trim().equals(FOOT_KEY))
+                || inputArgs[3].isBlank() || inputArgs[4].isBlank()) {
+            String message = "Départs, arrivées, horaire ou optimisation manquant";
+            Logger.error(message);
+            throw new ParsingException(message);
+        }
+        List<String> origins = stationList(inputArgs[1]);
+        List<String> destinations = stationList(inputArgs[2]);
+        try {
+            int[] time = Parser.parse2IntSep(inputArgs[3], ":");
+            boolean distOpt = !inputArgs[4].trim().equals(TIME_KEY);
+            return new SearchMatrix(plan, origins, destinations, new Time(time[0], time[1]),
+                    distOpt, inputArgs.length == 6);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new ParsingException("Time mal formé");
+        }
+    }
+
+    /**
+     * @param arg une liste de stations séparées par {@code STATION_SPLITTER}
+     * @return les noms des stations de {@code arg}
+     * @throws ParsingException si la liste est vide ou contient un nom vide
+     */
+    private static List<String> stationList(String arg) throws ParsingException {
+        List<String> stations = new ArrayList<>();
+        for (String station : arg.split(Pattern.quote(STATION_SPLITTER), -1)) {
+            if (station.isBlank()) {
+                String message = "Station manquante ou vide";
+                Logger.error(message);
+                throw new ParsingException(message);
+            }
+            stations.add(station.trim());
+        }
+        return stations;
+    }
 }
@@ -0,0 +1,149 @@
+package server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import server.data.ServerResponse;
+import server.map.Time;
+
+/**
+ * Cache borné des réponses aux requêtes de trajet, partagé par tous les clients.
+ *
+ * <p>
+ * Les réponses sont indexées par {@link Key} et la moins récemment utilisée est retirée quand le
+ * cache est plein. La clé contient la version du plan : une réponse calculée sur un plan n'est
+ * jamais renvoyée pour un autre plan ou après une modification du plan.
+ */
+public final class RouteCache {
+    /**
+     * Le nombre de réponses conservées par défaut
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final RouteCache INSTANCE = new RouteCache(DEFAULT_CAPACITY);
+
+    /**
+     * Une requête de trajet normalisée. Les horaires des requêtes sont à la minute près, il y a
+     * donc au plus une clé par minute de départ.
+     *
+     * @param version la version du plan, voir {@link server.map.Plan#getVersion()}
+     * @param start le nom de la station de départ
+     * @param arrival le nom de la station d'arrivée
+     * @param depart l'horaire de départ
+     * @param distOpt si optimisation en distance
+     * @param foot s'il peut y avoir des sections à pied
+     * @param goalDirected si la recherche est orientée vers l'arrivée
+     */
+    record Key(long version, String start, String arrival, Time depart, boolean distOpt,
+            boolean foot, boolean goalDirected) {
+    }
+
+    /**
+     * Les réponses en cache, de la moins récemment utilisée à la plus récente
+     */
+    private final LinkedHashMap<Key, ServerResponse> entries;
+    /**
+     * Le nombre maximal de réponses conservées, 0 désactive le cache
+     */
+    private int capacity;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity le nombre maximal de réponses conservées
+     * @throws IllegalArgumentException si {@code capacity} est négatif
+     */
+    RouteCache(int capacity) throws IllegalArgumentException {
+        if (capacity < 0)
+            throw new IllegalArgumentException();
+        this.capacity = capacity;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ServerResponse> eldest) {
+                return size() > RouteCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return le cache utilisé par {@link SearchPath}
+     */
+    public static RouteCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param key une requête
+     * @return la réponse en cache pour {@code key}, {@code null} s'il n'y en a pas
+     */
+    synchronized ServerResponse get(Key key) {
+        ServerResponse response = entries.get(key);
+        if (response == null)
+            misses.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return response;
+    }
+
+    /**
+     * Conserve la réponse à une requête, en retirant la moins récemment utilisée si le cache est
+     * plein
+     *
+     * @param key une requête
+     * @param response la réponse à {@code key}
+     */
+    synchronized void put(Key key, ServerResponse response) {
+        if (capacity > 0)
+            entries.put(key, response);
+    }
+
+    /**
+     * Change le nombre maximal de réponses conservées et retire les plus anciennes en trop
+     *
+     * @param capacity le nombre maximal de réponses conservées, 0 désactive le cache
+     * @throws IllegalArgumentException si {@code capacity} est négatif
+     */
+    public synchronized void setCapacity(int capacity) throws IllegalArgumentException {
+        if (capacity < 0)
+            throw new IllegalArgumentException();
+        this.capacity = capacity;
+        Iterator<Key> it = entries.keySet().iterator();
+        while (entries.size() > capacity) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Retire toutes les réponses du cache sans changer les compteurs
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return le nombre de réponses en cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return le nombre de requêtes trouvées dans le cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return le nombre de requêtes absentes du cache
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
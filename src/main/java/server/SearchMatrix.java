@@ -0,0 +1,104 @@
+package server;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import server.Dijkstra.PathNotFoundException;
+import server.data.ServerResponse;
+import server.data.TravelMatrix;
+import server.map.Plan;
+import server.map.Section;
+import server.map.Time;
+
+/**
+ * Calcule la matrice des trajets entre plusieurs stations de départ et plusieurs stations
+ * d'arrivée. Les recherches sont exécutées en parallèle.
+ *
+ * <p>
+ * En optimisation de temps, une seule recherche {@link Dijkstra} par départ donne l'arrivée au
+ * plus tôt à chaque station, comme {@link ConnectionScan} pour la requête ROUTE. En optimisation
+ * de distance sans section à pied, chaque case est calculée comme ROUTE avec
+ * {@link ContractionSearch}, dont les recherches sont assez courtes pour être faites par trajet.
+ */
+public class SearchMatrix implements ServerActionCallback {
+    /**
+     * Le plan où chercher les trajets
+     */
+    private final Plan map;
+    /**
+     * Les noms des stations de départ
+     */
+    private final List<String> origins;
+    /**
+     * Les noms des stations d'arrivée
+     */
+    private final List<String> destinations;
+    /**
+     * L'horaire de départ
+     */
+    private final Time depart;
+    /**
+     * Si optimisation en distance
+     */
+    private final boolean distOpt;
+    /**
+     * S'il peut y avoir des sections à pied
+     */
+    private final boolean foot;
+
+    /**
+     * @param map le plan où chercher les trajets
+     * @param origins les noms des stations de départ
+     * @param destinations les noms des stations d'arrivée
+     * @param depart l'horaire de départ
+     * @param distOpt si optimisation en distance
+     * @param foot s'il peut y avoir des sections à pied
+     * @throws IllegalArgumentException si un argument est {@code null}
+     */
+    public SearchMatrix(Plan map, List<String> origins, List<String> destinations, Time depart,
+            boolean distOpt, boolean foot) throws IllegalArgumentException {
+        if (map == null || origins == null || destinations == null || depart == null)
+            throw new IllegalArgumentException();
+        this.map = map;
+        this.origins = List.copyOf(origins);
+        this.destinations = List.copyOf(destinations);
+        this.depart = depart;
+        this.distOpt = distOpt;
+        this.foot = foot;
+    }
+
+    @Override
+    public ServerResponse execute() {
+        String[] arrivals = destinations.toArray(String[]::new);
+        int[][] values = IntStream.range(0, origins.size()).parallel()
+                .mapToObj(i -> distOpt && !foot ? lengths(origins.get(i), arrivals)
+                        : new Dijkstra(map, origins.get(i), depart, distOpt, foot)
+                                .getCosts(arrivals))
+                .toArray(int[][]::new);
+        return new TravelMatrix(origins, destinations, distOpt, values);
+    }
+
+    /**
+     * @param origin le nom de la station de départ
+     * @param arrivals les noms des stations d'arrivée
+     * @return la longueur en mètres du plus court trajet vers chaque station de {@code arrivals},
+     *         {@code TravelMatrix.UNREACHABLE} si elle est inconnue ou inaccessible
+     */
+    private int[] lengths(String origin, String[] arrivals) {
+        int[] lengths = new int[arrivals.length];
+        for (int j = 0; j < arrivals.length; j++) {
+            if (origin.equals(arrivals[j]) && map.getGraph().nodeId(origin) >= 0)
+                continue;
+            if (!ContractionSearch.accepts(map, origin, arrivals[j])) {
+                lengths[j] = TravelMatrix.UNREACHABLE;
+                continue;
+            }
+            try {
+                lengths[j] = new ContractionSearch(map, origin, arrivals[j], depart).getPath()
+                        .stream().mapToInt(Section::getDistance).sum();
+            } catch (PathNotFoundException e) {
+                lengths[j] = TravelMatrix.UNREACHABLE;
+            }
+        }
+        return lengths;
+    }
+}
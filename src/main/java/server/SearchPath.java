@@ -1,6 +1,8 @@
 package server;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import server.Dijkstra.PathNotFoundException;
 import server.data.ErrorServer;
 import server.data.Route;
@@ -38,6 +40,10 @@ public class SearchPath implements ServerActionCallback {
      * S'il peut y avoir des sections à pied
      */
     private final boolean foot;
+    /**
+     * Si les trajets calculés avec {@link Dijkstra} sont orientés vers l'arrivée
+     */
+    private final boolean goalDirected;
 
     /**
      * @param map le plan où chercher le trajet
@@ -51,6 +57,22 @@ public class SearchPath implements ServerActionCallback {
      */
     public SearchPath(Plan map, String start, String arrival, Time depart, boolean distOpt,
             boolean foot) throws IllegalArgumentException {
+        this(map, start, arrival, depart, distOpt, foot, false);
+    }
+
+    /**
+     * @param map le plan où chercher le trajet
+     * @param start le nom de la station de départ
+     * @param arrival le nom de la station d'arrivé
+     * @param depart l'horaire de départ
+     * @param distOpt si optimisation en distance
+     * @param foot s'il peut y avoir des sections à pied
+     * @param goalDirected si les trajets calculés avec {@link Dijkstra} utilisent A*
+     * @throws IllegalArgumentException si {@code map}, {@code start} ou {@code arrival} est
+     *         {@code null}
+     */
+    public SearchPath(Plan map, String start, String arrival, Time depart, boolean distOpt,
+            boolean foot, boolean goalDirected) throws IllegalArgumentException {
         if (map == null || start == null || arrival == null)
             throw new IllegalArgumentException();
         this.map = map;
@@ -59,19 +81,54 @@ public class SearchPath implements ServerActionCallback {
         this.depart = depart;
         this.distOpt = distOpt;
         this.foot = foot;
+        this.goalDirected = goalDirected;
     }
 
+    /**
+     * Renvoie la réponse en cache si la même requête a déjà été calculée sur cette version du
+     * plan, calcule le trajet sinon
+     */
     @Override
     public ServerResponse execute() {
+        RouteCache cache = RouteCache.getInstance();
+        RouteCache.Key key = new RouteCache.Key(map.getVersion(), start, arrival, depart, distOpt,
+                foot, goalDirected);
+        ServerResponse response = cache.get(key);
+        if (response == null) {
+            response = search();
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    /**
+     * @return le trajet trouvé ou une erreur s'il n'existe pas
+     */
+    private ServerResponse search() {
         try {
-            List<Section> sections =
-                    new Dijkstra(map, start, arrival, depart, distOpt, foot).getPath();
-            return sectionsToRoute(sections);
+            return sectionsToRoute(findPath());
         } catch (PathNotFoundException e) {
             return new ErrorServer("Trajet inexistant");
         }
     }
 
+    /**
+     * Les trajets entre deux stations et sans section à pied sont calculés avec
+     * {@link ConnectionScan} en optimisation de temps et avec {@link ContractionSearch} en
+     * optimisation de distance, les autres avec {@link Dijkstra}, orienté vers l'arrivée si
+     * {@code goalDirected}
+     *
+     * @return la liste des sections du trajet
+     * @throws PathNotFoundException s'il n'existe pas de trajet
+     */
+    private List<Section> findPath() throws PathNotFoundException {
+        if (!distOpt && !foot && depart != null && ConnectionScan.accepts(map, start, arrival))
+            return new ConnectionScan(map, start, arrival, depart).getPath();
+        if (distOpt && !foot && ContractionSearch.accepts(map, start, arrival))
+            return new ContractionSearch(map, start, arrival, depart).getPath();
+        return new Dijkstra(map, start, arrival, depart, distOpt, foot, goalDirected).getPath();
+    }
+
     /**
      * Retire le variant de la ligne de chaque section dans {@code sections}
      *
@@ -81,7 +138,7 @@ public class SearchPath implements ServerActionCallback {
     private Route sectionsToRoute(List<Section> sections) {
         if (sections == null || sections.isEmpty())
             return new Route(sections);
-        sections.stream().forEach(map::setLineName);
-        return new Route(sections);
+        return new Route(sections.stream().map(map::withLineName)
+                .collect(Collectors.toCollection(ArrayList::new)));
     }
 }
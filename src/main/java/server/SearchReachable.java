@@ -0,0 +1,59 @@
+package server;
+
+import server.data.ReachableStations;
+import server.data.ServerResponse;
+import server.map.Plan;
+import server.map.Time;
+
+/**
+ * Calcule en une seule recherche toutes les stations accessibles depuis une station en un temps
+ * limité, avec leur horaire d'arrivée
+ */
+public class SearchReachable implements ServerActionCallback {
+    /**
+     * Le plan où chercher les stations
+     */
+    private final Plan map;
+    /**
+     * Le nom de la station de départ
+     */
+    private final String start;
+    /**
+     * L'horaire de départ
+     */
+    private final Time depart;
+    /**
+     * La durée maximale des trajets en minutes
+     */
+    private final int minutes;
+    /**
+     * S'il peut y avoir des sections à pied
+     */
+    private final boolean foot;
+
+    /**
+     * @param map le plan où chercher les stations
+     * @param start le nom de la station de départ
+     * @param depart l'horaire de départ
+     * @param minutes la durée maximale des trajets en minutes
+     * @param foot s'il peut y avoir des sections à pied
+     * @throws IllegalArgumentException si {@code map}, {@code start} ou {@code depart} est
+     *         {@code null} ou si {@code minutes} est négatif
+     */
+    public SearchReachable(Plan map, String start, Time depart, int minutes, boolean foot)
+            throws IllegalArgumentException {
+        if (map == null || start == null || depart == null || minutes < 0)
+            throw new IllegalArgumentException();
+        this.map = map;
+        this.start = start;
+        this.depart = depart;
+        this.minutes = minutes;
+        this.foot = foot;
+    }
+
+    @Override
+    public ServerResponse execute() {
+        return new ReachableStations(
+                new Dijkstra(map, start, depart, false, foot).getReachable(minutes * 60));
+    }
+}
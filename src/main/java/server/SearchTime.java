@@ -66,14 +66,11 @@ public class SearchTime implements ServerActionCallback {
      */
     private List<StationTime> departuresFromStation() {
         List<StationTime> times = new ArrayList<>();
-        List<Section> sectionsFromStation = map.getMap().get(station);
-        if (sectionsFromStation != null) {
-            for (Section s : sectionsFromStation) {
-                Line l = map.getLine(s);
-                if (l != null) {
-                    l.getDepartureTime(s).forEach(t -> times.add(
-                            new StationTime(l.getName(), l.getLast().getArrival().getName(), t)));
-                }
+        for (Section s : map.getSectionsFromStationName(station)) {
+            Line l = map.getLine(s);
+            if (l != null) {
+                l.getDepartureTime(s).forEach(t -> times.add(
+                        new StationTime(l.getName(), l.getLast().getArrival().getName(), t)));
             }
         }
         return times;
@@ -8,9 +8,12 @@ import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import server.map.Plan;
 import server.map.PlanParser;
@@ -67,9 +70,20 @@ public class Server {
     private Thread consoleThread;
 
     /**
-     * Instance du plan utilisée par le server
+     * Instance figée du plan utilisée par le server, lue sans verrou et remplacée en entier à
+     * chaque mise à jour
      */
-    private Plan plan;
+    private final AtomicReference<Plan> plan;
+
+    /**
+     * Le thread qui construit les nouveaux plans, un rechargement à la fois
+     */
+    private final ExecutorService reloadExecutor;
+
+    /**
+     * La surveillance des fichiers du plan, {@code null} s'ils ne sont pas surveillés
+     */
+    private FileWatcher watcher;
 
     /**
      * liste des clients
@@ -92,7 +106,13 @@ public class Server {
         this.serverSocket = new ServerSocket(port, maxIncommingConnection);
         this.serverConsole = withConsole ? new ServerConsole(this): null;
         this.consoleThread = withConsole ? new Thread(serverConsole): null;
-        this.plan = plan;
+        plan.freeze();
+        this.plan = new AtomicReference<>(plan);
+        this.reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "plan-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
         this.clients = new ArrayList<>();
     }
 
@@ -107,7 +127,22 @@ public class Server {
      */
     public Server(String csvMapPath, int port, boolean withConsole, int maxIncommingConnection, int poolSize) throws IOException, 
         IncorrectFileFormatException, IllegalArgumentException {
-            this( PlanParser.planFromSectionCSV(csvMapPath), port, withConsole, maxIncommingConnection, poolSize);
+            this( loadPlan(csvMapPath), port, withConsole, maxIncommingConnection, poolSize);
+    }
+
+    /**
+     * 
+     * @param csvMapPath             chemin vers le ficher csv contenant les stations
+     * @param csvTimePath            chemin vers le ficher csv des horaires, {@code null} s'il n'y en a pas
+     * @param port                   Numero du port sur lequel le server doit etre lié
+     * @param withConsole            Determine si l'entrée standart doit etre ecoutée
+     * @param maxIncommingConnection Nombre de connexions simultanées que le server peut gérer 
+     * @throws IOException           si une erreur arrive lors de la manipulation des entrées/sorties du socket
+     * @throws InconsistentDataException si les horaires ne correspondent pas avec le plan
+     */
+    public Server(String csvMapPath, String csvTimePath, int port, boolean withConsole, int maxIncommingConnection) 
+        throws IOException, IncorrectFileFormatException, InconsistentDataException, IllegalArgumentException {
+        this(loadPlan(csvMapPath, csvTimePath), port, withConsole, maxIncommingConnection, DEFAULT_POOL_SIZE);
     }
 
     /**
@@ -219,6 +254,8 @@ public class Server {
         try {
             closeSockets();
             stopConsole();
+            stopWatching();
+            reloadExecutor.shutdownNow();
             if (!threadPool.awaitTermination(AWAIT_TIME_BEFORE_DYING, TimeUnit.SECONDS) ) {
                 threadPool.shutdownNow();
             }
@@ -246,33 +283,232 @@ public class Server {
         }
     }
 
-    public synchronized Plan getPlan() {
-        return plan;
+    /**
+     * @return le plan figé utilisé actuellement par le server
+     */
+    public Plan getPlan() {
+        return plan.get();
     }
 
     /**
-     * Met à jour le plan du server
+     * Fige et publie un nouveau plan puis vide le cache des trajets, dont les réponses portent sur
+     * l'ancien plan
      * @param newPlan le nouveau plan
      */
-    private synchronized void setPlan(Plan newPlan) {
-        plan = newPlan;
+    private void setPlan(Plan newPlan) {
+        newPlan.freeze();
+        plan.set(newPlan);
+        RouteCache.getInstance().clear();
+    }
+
+    /**
+     * Un calcul de nouveau plan exécuté par {@link Server#reload(PlanBuilder)}
+     */
+    @FunctionalInterface
+    private interface PlanBuilder {
+        Plan build() throws Exception;
+    }
+
+    /**
+     * Construit un nouveau plan et ses index sur le thread de rechargement puis le publie. Les
+     * clients continuent d'être servis par l'ancien plan pendant la construction, et une requête
+     * commencée avant la publication se termine sur le plan qu'elle a lu.
+     * @param builder le calcul du nouveau plan
+     * @return le plan publié, ou l'erreur qui a empêché de le construire
+     */
+    private CompletableFuture<Plan> reload(PlanBuilder builder) {
+        return CompletableFuture.supplyAsync(() -> {
+            long begin = System.nanoTime();
+            try {
+                Plan p = buildIndexes(builder.build());
+                setPlan(p);
+                Logger.info(String.format("Nouveau plan publié, construit en %d ms",
+                        (System.nanoTime() - begin) / 1_000_000));
+                return p;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, reloadExecutor);
+    }
+
+    /**
+     * Recharge le plan en arrière-plan, sans horaires
+     * @param pathMapFile chemin vers le ficher du plan
+     * @return le plan publié, ou l'erreur qui a empêché de le construire
+     * @see #reload(PlanBuilder)
+     */
+    public CompletableFuture<Plan> reloadMap(String pathMapFile) {
+        return reload(() -> loadPlan(pathMapFile));
     }
 
+    /**
+     * Recharge le plan et ses horaires en arrière-plan
+     * @param pathMapFile chemin vers le ficher du plan
+     * @param pathTimeFile chemin vers le ficher des horaires
+     * @return le plan publié, ou l'erreur qui a empêché de le construire
+     * @see #reload(PlanBuilder)
+     */
+    public CompletableFuture<Plan> reloadMap(String pathMapFile, String pathTimeFile) {
+        return reload(() -> loadPlan(pathMapFile, pathTimeFile));
+    }
+
+    /**
+     * Remplace en arrière-plan les horaires du plan par ceux d'un fichier, sans reparser le plan.
+     * Les horaires sont ajoutés à une copie du plan publié au début du rechargement ; les
+     * rechargements étant exécutés l'un après l'autre, aucun autre plan n'est publié entre temps.
+     * @param pathTimeFile chemin vers le ficher des horaires
+     * @return le plan publié, ou l'erreur qui a empêché de le construire
+     * @see #reload(PlanBuilder)
+     */
+    public CompletableFuture<Plan> reloadTime(String pathTimeFile) {
+        return reload(() -> {
+            Plan p = plan.get().resetLinesSections();
+            PlanParser.addTimeFromCSV(p, pathTimeFile);
+            return p;
+        });
+    }
+
+    /**
+     * Remplace en arrière-plan les horaires du plan comme {@link #reloadTime(String)}, et
+     * enregistre l'image du plan et des nouveaux horaires pour le prochain démarrage
+     * @param pathMapFile chemin vers le ficher dont le plan publié est issu
+     * @param pathTimeFile chemin vers le ficher des horaires
+     * @return le plan publié, ou l'erreur qui a empêché de le construire
+     * @see PlanParser#addTimeFromFiles(Plan, String, String)
+     */
+    public CompletableFuture<Plan> reloadTime(String pathMapFile, String pathTimeFile) {
+        return reload(() -> {
+            Plan p = plan.get().resetLinesSections();
+            PlanParser.addTimeFromFiles(p, pathMapFile, pathTimeFile);
+            return p;
+        });
+    }
+
+    /**
+     * Attend la fin d'un rechargement et relance l'erreur qui l'a fait échouer
+     * @param reload un rechargement
+     * @return le plan publié
+     */
+    private static Plan await(CompletableFuture<Plan> reload) throws FileNotFoundException, IncorrectFileFormatException, 
+        InconsistentDataException {
+        try {
+            return reload.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FileNotFoundException c)
+                throw c;
+            if (cause instanceof IncorrectFileFormatException c)
+                throw c;
+            if (cause instanceof InconsistentDataException c)
+                throw c;
+            if (cause instanceof RuntimeException c)
+                throw c;
+            throw e;
+        }
+    }
+
+    /**
+     * Change le plan du server et attend qu'il soit publié
+     * @param pathMapFile chemin vers le ficher du plan
+     * @see #reloadMap(String)
+     */
     public void updateMap(String pathMapFile) throws FileNotFoundException, IllegalArgumentException, IncorrectFileFormatException {
-        Plan p = PlanParser.planFromSectionCSV(pathMapFile);
-        setPlan(p);
+        try {
+            await(reloadMap(pathMapFile));
+        } catch (InconsistentDataException e) {
+            // un plan sans horaires n'est jamais incohérent
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Charge un plan, depuis son image si elle est à jour, et prépare sa hiérarchie de
+     * contraction et ses sections à pied
+     * @param pathMapFile chemin vers le ficher du plan
+     * @return le plan chargé
+     */
+    private static Plan loadPlan(String pathMapFile) throws FileNotFoundException, IllegalArgumentException, IncorrectFileFormatException {
+        return prepare(PlanParser.planFromFiles(pathMapFile), pathMapFile);
+    }
+
+    /**
+     * Charge un plan et ses horaires, depuis leur image si elle est à jour, et prépare sa
+     * hiérarchie de contraction et ses sections à pied
+     * @param pathMapFile chemin vers le ficher du plan
+     * @param pathTimeFile chemin vers le ficher des horaires, {@code null} s'il n'y en a pas
+     * @return le plan chargé
+     */
+    private static Plan loadPlan(String pathMapFile, String pathTimeFile) throws FileNotFoundException, IllegalArgumentException, 
+        IncorrectFileFormatException, InconsistentDataException {
+        return prepare(PlanParser.planFromFiles(pathMapFile, pathTimeFile), pathMapFile);
+    }
+
+    private static Plan prepare(Plan p, String pathMapFile) {
+        PlanParser.prepareHierarchy(p, pathMapFile);
+        return buildIndexes(p);
+    }
+
+    /**
+     * Construit tous les index du plan utilisés par les recherches, pour que la première requête
+     * sur un nouveau plan ne les construise pas
+     * @param p un plan
+     * @return {@code p}
+     */
+    private static Plan buildIndexes(Plan p) {
+        p.getGraph();
+        p.getHierarchy();
+        p.getFootGraph();
+        p.getTimetable();
+        p.getDepartureOffsets();
+        p.getRoutePatterns();
+        return p;
+    }
+
+    /**
+     * Surveille les fichiers du plan et des horaires et recharge le plan en arrière-plan quand ils
+     * changent, sans reparser le plan si seuls les horaires ont changé
+     * @param pathMapFile chemin vers le ficher du plan
+     * @param pathTimeFile chemin vers le ficher des horaires, {@code null} s'il n'y en a pas
+     * @throws IOException si les fichiers ne peuvent pas être surveillés
+     */
+    public void watch(String pathMapFile, String pathTimeFile) throws IOException {
+        watch(pathMapFile, pathTimeFile, FileWatcher.DEFAULT_DELAY);
+    }
+
+    /**
+     * @param delay le délai en millisecondes sans changement avant de recharger le plan
+     * @see #watch(String, String)
+     */
+    synchronized void watch(String pathMapFile, String pathTimeFile, long delay)
+            throws IOException {
+        stopWatching();
+        watcher = new FileWatcher(this, pathMapFile, pathTimeFile, delay);
+        watcher.start();
+    }
+
+    /**
+     * Arrête la surveillance des fichiers du plan
+     */
+    private synchronized void stopWatching() {
+        if (watcher == null)
+            return;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            Logger.error("Impossible d'arrêter la surveillance des fichiers");
+        }
+        watcher = null;
     }
 
     /**
-     * Met à jour le time du plan du server
+     * Met à jour le time du plan du server et attend que le nouveau plan soit publié
      * @param pathTimeFile chemin vers le ficher de temps
      * @throws InconsistentDataException
      * @throws IncorrectFileFormatException
      * @throws FileNotFoundException
+     * @see #reloadTime(String)
      */
     public void updateTime(String pathTimeFile) throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
-       Plan p = getPlan().resetLinesSections();
-       PlanParser.addTimeFromCSV(p, pathTimeFile);
-       setPlan(p);
+        await(reloadTime(pathTimeFile));
     }
 }
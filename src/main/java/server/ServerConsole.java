@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import server.commands.ServerCommand;
+import server.commands.ServerCommandCache;
 import server.commands.ServerCommandDebug;
 import server.commands.ServerCommandKill;
 import server.commands.ServerCommandUpdateMapFile;
@@ -45,6 +46,11 @@ class ServerConsole implements Runnable {
      */
     static final String DEBUG_NAME = "debug";
 
+    /**
+     * Nom de la commande associée à {@code ServerCommandCache}
+     */
+    static final String CACHE_NAME = "cache";
+
     static final String COMMAND_BORDER = "\n////////////////////////////////////////////////////////////\n";
 
     /**
@@ -57,6 +63,7 @@ class ServerConsole implements Runnable {
      */
     public static final Map<String, ServerCommand> commands = 
         Map.of(
+            CACHE_NAME, new ServerCommandCache(),
             DEBUG_NAME, new ServerCommandDebug(),
             KILL_NAME, new ServerCommandKill(),
             UPDATE_MAP_NAME, new ServerCommandUpdateMapFile(),
@@ -0,0 +1,55 @@
+package server.commands;
+
+import java.util.Arrays;
+import java.util.List;
+import server.RouteCache;
+import server.Server;
+import util.Logger;
+
+public class ServerCommandCache implements ServerCommand {
+
+    private static final String USAGE_EXAMPLE = " [taille]";
+
+    private static final String DESCRIPTION = "affiche les statistiques du cache des trajets";
+
+    private static final String WRONG_CAPACITY = "la taille doit être un entier positif";
+
+    @Override
+    public String getdescription() {
+        return DESCRIPTION;
+    }
+
+    @Override
+    public List<String> getExemples(String commandName) {
+        return Arrays.asList(
+                new StringBuilder(commandName).append(" affiche les succès, les échecs et la taille")
+                        .toString(),
+                new StringBuilder(commandName).append(" 0 désactive le cache").toString(),
+                new StringBuilder(commandName).append(" 4096 conserve jusqu'à 4096 trajets")
+                        .toString());
+    }
+
+    @Override
+    public void execute(Server server, String... args) throws IllegalArgumentException, Exception {
+        if (args.length > 2) {
+            String message = new StringBuilder("mauvais format. Attend : ").append(args[0])
+                    .append(USAGE_EXAMPLE).toString();
+            throw new IllegalArgumentException(message);
+        }
+
+        RouteCache cache = RouteCache.getInstance();
+        if (args.length == 2) {
+            try {
+                cache.setCapacity(Integer.parseInt(args[1].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(WRONG_CAPACITY);
+            }
+        }
+        long hits = cache.getHits();
+        long total = hits + cache.getMisses();
+        Logger.info(String.format("succès : %d, échecs : %d (%.1f %%), taille : %d/%d", hits,
+                total - hits, total == 0 ? 0 : 100.0 * (total - hits) / total, cache.size(),
+                cache.getCapacity()));
+    }
+
+}
@@ -0,0 +1,25 @@
+package server.data;
+
+import java.io.Serial;
+import java.util.List;
+
+
+/**
+ * Classe représentant les stations accessibles depuis une station en un temps limité, chacune
+ * avec son horaire d'arrivée
+ */
+public class ReachableStations implements ServerResponse {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final List<StationTime> stations;
+
+    public ReachableStations(List<StationTime> stations) {
+        this.stations = stations;
+    }
+
+    public List<StationTime> getStations() {
+        return stations;
+    }
+}
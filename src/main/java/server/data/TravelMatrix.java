@@ -0,0 +1,58 @@
+package server.data;
+
+import java.io.Serial;
+import java.util.List;
+
+
+/**
+ * Classe représentant la matrice des longueurs ou des durées des trajets entre plusieurs
+ * stations de départ et plusieurs stations d'arrivée
+ */
+public class TravelMatrix implements ServerResponse {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Valeur d'une case dont l'arrivée est inconnue ou inaccessible depuis le départ
+     */
+    public static final int UNREACHABLE = -1;
+
+    private final List<String> origins;
+
+    private final List<String> destinations;
+
+    /**
+     * Si les valeurs sont des longueurs en mètres plutôt que des durées en secondes
+     */
+    private final boolean distance;
+
+    /**
+     * {@code values[i][j]} est la valeur du trajet de {@code origins[i]} à {@code destinations[j]}
+     */
+    private final int[][] values;
+
+    public TravelMatrix(List<String> origins, List<String> destinations, boolean distance,
+            int[][] values) {
+        this.origins = origins;
+        this.destinations = destinations;
+        this.distance = distance;
+        this.values = values;
+    }
+
+    public List<String> getOrigins() {
+        return origins;
+    }
+
+    public List<String> getDestinations() {
+        return destinations;
+    }
+
+    public boolean isDistance() {
+        return distance;
+    }
+
+    public int[][] getValues() {
+        return values;
+    }
+}
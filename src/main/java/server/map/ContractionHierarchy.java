@@ -0,0 +1,546 @@
+package server.map;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import util.AtomicFile;
+import util.IndexedHeap;
+
+/**
+ * Hiérarchie de contraction du graphe des arrêts d'un plan pour les recherches optimisées en
+ * distance.
+ *
+ * <p>
+ * Les sommets sont les arrêts du graphe compilé. Les arcs d'origine sont les sections et les
+ * changements d'arrêt au sein d'une même station, pondérés par leur longueur. Les arrêts sont
+ * contractés un par un dans l'ordre de leur rang en ajoutant des raccourcis lorsqu'aucun autre
+ * chemin ne les remplace. Une recherche ne suit alors que des arcs montant vers un rang plus
+ * élevé : depuis le départ dans {@code up}, depuis l'arrivée dans {@code down}.
+ *
+ * <p>
+ * Le résultat du prétraitement peut être enregistré dans un fichier et relu tant que le graphe
+ * n'a pas changé.
+ */
+public final class ContractionHierarchy {
+    /**
+     * Arête d'un arc correspondant à un changement d'arrêt dans une même station
+     */
+    public static final int TRANSFER = -1;
+    /**
+     * Arête d'un raccourci
+     */
+    public static final int SHORTCUT = -2;
+    /**
+     * Identifie les fichiers de hiérarchie
+     */
+    private static final int MAGIC = 0x43483031;
+    /**
+     * Nombre maximal de sommets traités par une recherche de témoin
+     */
+    private static final int WITNESS_LIMIT = 500;
+    /**
+     * Le graphe contracté
+     */
+    private final PlanGraph graph;
+    /**
+     * L'empreinte du graphe contracté
+     */
+    private final long fingerprint;
+    /**
+     * Le rang de chaque arrêt dans l'ordre de contraction
+     */
+    private final int[] ranks;
+    /**
+     * L'origine de chaque arc
+     */
+    private final int[] arcFrom;
+    /**
+     * La destination de chaque arc
+     */
+    private final int[] arcTo;
+    /**
+     * La longueur en mètres de chaque arc
+     */
+    private final int[] arcWeight;
+    /**
+     * L'arête du graphe de chaque arc, {@code TRANSFER} ou {@code SHORTCUT}
+     */
+    private final int[] arcEdge;
+    /**
+     * Le premier arc remplacé par chaque raccourci
+     */
+    private final int[] arcFirst;
+    /**
+     * Le second arc remplacé par chaque raccourci
+     */
+    private final int[] arcSecond;
+    /**
+     * Les arcs montants partant de l'arrêt {@code s} sont {@code upArcs[i]} pour {@code i} de
+     * {@code upOffsets[s]} à {@code upOffsets[s + 1] - 1}
+     */
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    /**
+     * Les arcs arrivant à l'arrêt {@code s} depuis un arrêt de rang plus élevé sont
+     * {@code downArcs[i]} pour {@code i} de {@code downOffsets[s]} à
+     * {@code downOffsets[s + 1] - 1}
+     */
+    private final int[] downOffsets;
+    private final int[] downArcs;
+
+    private ContractionHierarchy(PlanGraph graph, long fingerprint, int[] ranks, int[] arcFrom,
+            int[] arcTo, int[] arcWeight, int[] arcEdge, int[] arcFirst, int[] arcSecond) {
+        this.graph = graph;
+        this.fingerprint = fingerprint;
+        this.ranks = ranks;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcWeight = arcWeight;
+        this.arcEdge = arcEdge;
+        this.arcFirst = arcFirst;
+        this.arcSecond = arcSecond;
+        int n = ranks.length;
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (ranks[arcTo[a]] > ranks[arcFrom[a]])
+                upOffsets[arcFrom[a] + 1]++;
+            else
+                downOffsets[arcTo[a] + 1]++;
+        }
+        for (int s = 0; s < n; s++) {
+            upOffsets[s + 1] += upOffsets[s];
+            downOffsets[s + 1] += downOffsets[s];
+        }
+        upArcs = new int[upOffsets[n]];
+        downArcs = new int[downOffsets[n]];
+        int[] up = Arrays.copyOf(upOffsets, n);
+        int[] down = Arrays.copyOf(downOffsets, n);
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (ranks[arcTo[a]] > ranks[arcFrom[a]])
+                upArcs[up[arcFrom[a]]++] = a;
+            else
+                downArcs[down[arcTo[a]]++] = a;
+        }
+    }
+
+    /**
+     * Contracte le graphe des arrêts d'un plan
+     *
+     * @param graph le graphe compilé du plan
+     * @return la hiérarchie de contraction du graphe
+     */
+    public static ContractionHierarchy build(PlanGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Relit une hiérarchie enregistrée par {@link #save(Path)}
+     *
+     * @param file le fichier de la hiérarchie
+     * @param graph le graphe compilé du plan
+     * @return la hiérarchie lue ou {@code null} si elle ne correspond pas à {@code graph}
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static ContractionHierarchy load(Path file, PlanGraph graph) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readLong() != fingerprint(graph)
+                    || in.readInt() != graph.stopCount())
+                return null;
+            int n = graph.stopCount();
+            int[] ranks = readArray(in, n);
+            int m = in.readInt();
+            int[] from = readArray(in, m);
+            int[] to = readArray(in, m);
+            int[] weight = readArray(in, m);
+            int[] edge = readArray(in, m);
+            int[] first = readArray(in, m);
+            int[] second = readArray(in, m);
+            if (!inRange(ranks, 0, n) || !inRange(from, 0, n) || !inRange(to, 0, n)
+                    || !inRange(edge, SHORTCUT, graph.edgeCount()) || !inRange(first, -1, m)
+                    || !inRange(second, -1, m))
+                return null;
+            return new ContractionHierarchy(graph, fingerprint(graph), ranks, from, to, weight,
+                    edge, first, second);
+        }
+    }
+
+    /**
+     * @return {@code true} si toutes les valeurs de {@code array} sont entre {@code min}
+     *         (inclus) et {@code max} (exclus)
+     */
+    private static boolean inRange(int[] array, int min, int max) {
+        for (int value : array) {
+            if (value < min || value >= max)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Enregistre la hiérarchie dans un fichier, remplacé de façon atomique
+     *
+     * @param file le fichier à écrire
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void save(Path file) throws IOException {
+        AtomicFile.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeLong(fingerprint);
+            out.writeInt(ranks.length);
+            writeArray(out, ranks);
+            out.writeInt(arcFrom.length);
+            writeArray(out, arcFrom);
+            writeArray(out, arcTo);
+            writeArray(out, arcWeight);
+            writeArray(out, arcEdge);
+            writeArray(out, arcFirst);
+            writeArray(out, arcSecond);
+        });
+    }
+
+    private static int[] readArray(DataInputStream in, int length) throws IOException {
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++)
+            array[i] = in.readInt();
+        return array;
+    }
+
+    private static void writeArray(DataOutputStream out, int[] array) throws IOException {
+        for (int value : array)
+            out.writeInt(value);
+    }
+
+    /**
+     * @param graph un graphe
+     * @return une empreinte des arrêts et des longueurs du graphe
+     */
+    static long fingerprint(PlanGraph graph) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES);
+        buffer.putInt(graph.stopCount()).putInt(graph.edgeCount()).flip();
+        crc.update(buffer);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            buffer.clear();
+            buffer.putInt(graph.startStop(e)).putInt(graph.arrivalStop(e))
+                    .putInt(graph.distance(e)).flip();
+            crc.update(buffer);
+        }
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int a = graph.firstStop(u); a < graph.lastStop(u); a++) {
+                for (int b = graph.firstStop(u); b < graph.lastStop(u); b++) {
+                    buffer.clear();
+                    buffer.putInt(graph.transferDistance(a, b)).flip();
+                    crc.update(buffer);
+                }
+            }
+        }
+        return crc.getValue() ^ ((long) graph.stopCount() << 32);
+    }
+
+    /**
+     * @param other un graphe
+     * @return la même hiérarchie pour {@code other} s'il a les mêmes arrêts et les mêmes
+     *         longueurs que le graphe contracté, {@code null} sinon
+     */
+    public ContractionHierarchy rebind(PlanGraph other) {
+        if (other == graph)
+            return this;
+        if (fingerprint(other) != fingerprint)
+            return null;
+        return new ContractionHierarchy(other, fingerprint, ranks, arcFrom, arcTo, arcWeight,
+                arcEdge, arcFirst, arcSecond);
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return le nombre d'arcs, raccourcis compris
+     */
+    public int arcCount() {
+        return arcFrom.length;
+    }
+
+    public int rank(int stop) {
+        return ranks[stop];
+    }
+
+    public int firstUp(int stop) {
+        return upOffsets[stop];
+    }
+
+    public int lastUp(int stop) {
+        return upOffsets[stop + 1];
+    }
+
+    public int upArc(int index) {
+        return upArcs[index];
+    }
+
+    public int firstDown(int stop) {
+        return downOffsets[stop];
+    }
+
+    public int lastDown(int stop) {
+        return downOffsets[stop + 1];
+    }
+
+    public int downArc(int index) {
+        return downArcs[index];
+    }
+
+    public int from(int arc) {
+        return arcFrom[arc];
+    }
+
+    public int to(int arc) {
+        return arcTo[arc];
+    }
+
+    public int weight(int arc) {
+        return arcWeight[arc];
+    }
+
+    /**
+     * @param arc un arc
+     * @return l'arête du graphe correspondant à l'arc, {@code TRANSFER} ou {@code SHORTCUT}
+     */
+    public int edge(int arc) {
+        return arcEdge[arc];
+    }
+
+    public int first(int arc) {
+        return arcFirst[arc];
+    }
+
+    public int second(int arc) {
+        return arcSecond[arc];
+    }
+
+    /**
+     * Contraction des arrêts d'un graphe
+     */
+    private static final class Builder {
+        private final PlanGraph graph;
+        private final int n;
+        private int[] from;
+        private int[] to;
+        private int[] weight;
+        private int[] edge;
+        private int[] first;
+        private int[] second;
+        private int arcCount;
+        /**
+         * Les arcs sortants et entrants de chaque arrêt, contractés ou non
+         */
+        private final int[][] out;
+        private final int[][] in;
+        private final int[] outCount;
+        private final int[] inCount;
+        private final boolean[] contracted;
+        /**
+         * Le nombre de voisins déjà contractés de chaque arrêt
+         */
+        private final int[] contractedNeighbours;
+        /**
+         * État des recherches de témoin
+         */
+        private final int[] witnessDistance;
+        private final int[] witnessStamp;
+        private int stamp;
+        private final IndexedHeap witnessQueue;
+
+        Builder(PlanGraph graph) {
+            this.graph = graph;
+            this.n = graph.stopCount();
+            int capacity = Math.max(16, graph.edgeCount() * 2);
+            from = new int[capacity];
+            to = new int[capacity];
+            weight = new int[capacity];
+            edge = new int[capacity];
+            first = new int[capacity];
+            second = new int[capacity];
+            out = new int[n][];
+            in = new int[n][];
+            outCount = new int[n];
+            inCount = new int[n];
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            witnessDistance = new int[n];
+            witnessStamp = new int[n];
+            witnessQueue = new IndexedHeap(n);
+            for (int s = 0; s < n; s++) {
+                out[s] = new int[4];
+                in[s] = new int[4];
+            }
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (graph.startStop(e) != graph.arrivalStop(e))
+                    addArc(graph.startStop(e), graph.arrivalStop(e), graph.distance(e), e, -1, -1);
+            }
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                for (int a = graph.firstStop(u); a < graph.lastStop(u); a++) {
+                    for (int b = graph.firstStop(u); b < graph.lastStop(u); b++) {
+                        if (a != b)
+                            addArc(a, b, graph.transferDistance(a, b), TRANSFER, -1, -1);
+                    }
+                }
+            }
+        }
+
+        private int addArc(int u, int v, int w, int e, int a1, int a2) {
+            if (arcCount == from.length) {
+                int capacity = arcCount * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                edge = Arrays.copyOf(edge, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+            }
+            from[arcCount] = u;
+            to[arcCount] = v;
+            weight[arcCount] = w;
+            edge[arcCount] = e;
+            first[arcCount] = a1;
+            second[arcCount] = a2;
+            if (outCount[u] == out[u].length)
+                out[u] = Arrays.copyOf(out[u], outCount[u] * 2);
+            out[u][outCount[u]++] = arcCount;
+            if (inCount[v] == in[v].length)
+                in[v] = Arrays.copyOf(in[v], inCount[v] * 2);
+            in[v][inCount[v]++] = arcCount;
+            return arcCount++;
+        }
+
+        ContractionHierarchy build() {
+            int[] ranks = new int[n];
+            IndexedHeap order = new IndexedHeap(n);
+            for (int s = 0; s < n; s++)
+                order.push(s, priority(s));
+            int rank = 0;
+            while (!order.isEmpty()) {
+                int v = order.poll();
+                int p = priority(v);
+                if (!order.isEmpty() && p > order.peekKey()) {
+                    order.push(v, p);
+                    continue;
+                }
+                contract(v, true);
+                ranks[v] = rank++;
+            }
+            return new ContractionHierarchy(graph, fingerprint(graph), ranks,
+                    Arrays.copyOf(from, arcCount), Arrays.copyOf(to, arcCount),
+                    Arrays.copyOf(weight, arcCount), Arrays.copyOf(edge, arcCount),
+                    Arrays.copyOf(first, arcCount), Arrays.copyOf(second, arcCount));
+        }
+
+        /**
+         * @param v un arrêt non contracté
+         * @return la priorité de contraction de {@code v}, les plus petites en premier
+         */
+        private int priority(int v) {
+            int shortcuts = contract(v, false);
+            int degree = 0;
+            for (int i = 0; i < inCount[v]; i++)
+                degree += contracted[from[in[v][i]]] ? 0 : 1;
+            for (int i = 0; i < outCount[v]; i++)
+                degree += contracted[to[out[v][i]]] ? 0 : 1;
+            return 2 * (shortcuts - degree) + contractedNeighbours[v];
+        }
+
+        /**
+         * Contracte un arrêt ou compte les raccourcis que sa contraction ajouterait
+         *
+         * @param v un arrêt non contracté
+         * @param apply si les raccourcis doivent être ajoutés
+         * @return le nombre de raccourcis nécessaires
+         */
+        private int contract(int v, boolean apply) {
+            contracted[v] = true;
+            int shortcuts = 0;
+            int outs = outCount[v];
+            for (int i = 0; i < inCount[v]; i++) {
+                int inArc = in[v][i];
+                int u = from[inArc];
+                if (contracted[u])
+                    continue;
+                int max = -1;
+                for (int j = 0; j < outs; j++) {
+                    int x = to[out[v][j]];
+                    if (!contracted[x] && x != u)
+                        max = Math.max(max, weight[inArc] + weight[out[v][j]]);
+                }
+                if (max < 0)
+                    continue;
+                witness(u, max);
+                for (int j = 0; j < outs; j++) {
+                    int outArc = out[v][j];
+                    int x = to[outArc];
+                    if (contracted[x] || x == u)
+                        continue;
+                    int w = weight[inArc] + weight[outArc];
+                    if (witnessStamp[x] == stamp && witnessDistance[x] <= w)
+                        continue;
+                    shortcuts++;
+                    if (apply) {
+                        addArc(u, x, w, SHORTCUT, inArc, outArc);
+                        witnessStamp[x] = stamp;
+                        witnessDistance[x] = w;
+                    }
+                }
+            }
+            if (apply) {
+                for (int i = 0; i < inCount[v]; i++)
+                    contractedNeighbours[from[in[v][i]]]++;
+                for (int i = 0; i < outCount[v]; i++)
+                    contractedNeighbours[to[out[v][i]]]++;
+            } else {
+                contracted[v] = false;
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Recherche locale des plus courts chemins depuis {@code source} parmi les arrêts non
+         * contractés, limitée à {@code max} mètres et à {@code WITNESS_LIMIT} sommets
+         *
+         * @param source un arrêt
+         * @param max la distance maximale
+         */
+        private void witness(int source, int max) {
+            stamp++;
+            witnessQueue.clear();
+            witnessStamp[source] = stamp;
+            witnessDistance[source] = 0;
+            witnessQueue.push(source, 0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled++ < WITNESS_LIMIT) {
+                int d = witnessQueue.peekKey();
+                if (d > max)
+                    break;
+                int u = witnessQueue.poll();
+                for (int i = 0; i < outCount[u]; i++) {
+                    int a = out[u][i];
+                    int x = to[a];
+                    if (contracted[x])
+                        continue;
+                    int nd = d + weight[a];
+                    if (witnessStamp[x] != stamp || nd < witnessDistance[x]) {
+                        witnessStamp[x] = stamp;
+                        witnessDistance[x] = nd;
+                        witnessQueue.push(x, nd);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package server.map;
+
+/**
+ * Le décalage de chaque arête d'un {@link PlanGraph} par rapport au départ de sa ligne, pour
+ * chercher le prochain départ d'une arête sans parcourir les sections de sa ligne.
+ */
+public final class DepartureOffsets {
+    /**
+     * Le graphe dont les arêtes sont décalées
+     */
+    private final PlanGraph graph;
+    /**
+     * Le temps en secondes entre le départ de la ligne et le départ de chaque arête, ou
+     * {@code -1} si l'arête n'a pas d'horaire
+     */
+    private final int[] offsets;
+
+    /**
+     * Calcule le décalage des arêtes d'un graphe
+     *
+     * @param graph le graphe compilé du plan
+     */
+    DepartureOffsets(PlanGraph graph) {
+        this.graph = graph;
+        offsets = new int[graph.edgeCount()];
+        for (int e = 0; e < offsets.length; e++)
+            offsets[e] = Timetable.offset(graph, e);
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param edge une arête du graphe
+     * @return le temps en secondes entre le départ de la ligne et le départ de {@code edge}, ou
+     *         {@code -1} si l'arête n'a pas d'horaire
+     */
+    public int offset(int edge) {
+        return offsets[edge];
+    }
+
+    /**
+     * @param edge une arête du graphe
+     * @param time l'horaire minimal en secondes depuis minuit
+     * @return l'horaire du prochain départ de {@code edge} après {@code time} en secondes depuis
+     *         minuit, voir {@link Line#nextDeparture(int, int)}, ou {@code -1} s'il n'y en a pas
+     */
+    public int nextDeparture(int edge, int time) {
+        int offset = offsets[edge];
+        if (offset < 0)
+            return -1;
+        return graph.line(graph.lineId(edge)).nextDeparture(offset, time);
+    }
+}
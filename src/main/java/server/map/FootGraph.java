@@ -0,0 +1,136 @@
+package server.map;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Sections à pied possibles entre les arrêts d'un {@link PlanGraph}, calculées une seule fois.
+ *
+ * <p>
+ * Deux arrêts distincts sont reliés s'ils sont à moins de {@link #MAX_DISTANCE} mètres l'un de
+ * l'autre. Les sections sont rangées au format CSR : celles partant de l'arrêt {@code s} sont les
+ * indices {@code firstEdge(s)} à {@code lastEdge(s) - 1}. Les sections de chaque arrêt sont
+ * calculées en parallèle.
+ */
+public final class FootGraph {
+    /**
+     * La distance maximale en mètres d'une section à pied
+     */
+    public static final int MAX_DISTANCE = 1000;
+    /**
+     * Le graphe dont les arrêts sont reliés
+     */
+    private final PlanGraph graph;
+    /**
+     * Les sections de l'arrêt {@code s} sont les indices {@code offsets[s]} à
+     * {@code offsets[s + 1] - 1}
+     */
+    private final int[] offsets;
+    /**
+     * L'arrêt d'arrivée de chaque section
+     */
+    private final int[] targets;
+    /**
+     * La longueur en mètres de chaque section
+     */
+    private final int[] distances;
+    /**
+     * La durée de marche en secondes de chaque section
+     */
+    private final int[] durations;
+
+    /**
+     * Calcule les sections à pied entre les arrêts d'un graphe
+     *
+     * @param graph le graphe compilé du plan
+     */
+    FootGraph(PlanGraph graph) {
+        this.graph = graph;
+        int n = graph.stopCount();
+        int[][] close = IntStream.range(0, n).parallel().mapToObj(s -> closeStops(graph, s))
+                .toArray(int[][]::new);
+        offsets = new int[n + 1];
+        for (int s = 0; s < n; s++)
+            offsets[s + 1] = offsets[s] + close[s].length;
+        targets = new int[offsets[n]];
+        distances = new int[offsets[n]];
+        durations = new int[offsets[n]];
+        IntStream.range(0, n).parallel().forEach(s -> {
+            Station from = graph.stop(s);
+            for (int i = 0; i < close[s].length; i++) {
+                Station to = graph.stop(close[s][i]);
+                targets[offsets[s] + i] = close[s][i];
+                distances[offsets[s] + i] = from.distanceBetween(to);
+                durations[offsets[s] + i] = from.durationBetween(to);
+            }
+        });
+    }
+
+    private FootGraph(PlanGraph graph, int[] offsets, int[] targets, int[] distances,
+            int[] durations) {
+        this.graph = graph;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.distances = distances;
+        this.durations = durations;
+    }
+
+    /**
+     * @param graph un graphe
+     * @param stop un arrêt du graphe
+     * @return les arrêts à moins de {@code MAX_DISTANCE} mètres de {@code stop}
+     */
+    private static int[] closeStops(PlanGraph graph, int stop) {
+        Coordinate coordinate = graph.stop(stop).getCoordinate();
+        return Arrays.stream(graph.spatialIndex().range(coordinate, MAX_DISTANCE))
+                .filter(s -> s != stop).sorted().toArray();
+    }
+
+    /**
+     * @param other un graphe
+     * @return les mêmes sections pour {@code other} s'il a les mêmes arrêts dans le même ordre,
+     *         {@code null} sinon
+     */
+    public FootGraph rebind(PlanGraph other) {
+        if (other == graph)
+            return this;
+        if (other.stopCount() != graph.stopCount())
+            return null;
+        for (int s = 0; s < graph.stopCount(); s++) {
+            if (!other.stop(s).equals(graph.stop(s)))
+                return null;
+        }
+        return new FootGraph(other, offsets, targets, distances, durations);
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return le nombre de sections à pied
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public int firstEdge(int stop) {
+        return offsets[stop];
+    }
+
+    public int lastEdge(int stop) {
+        return offsets[stop + 1];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int distance(int edge) {
+        return distances[edge];
+    }
+
+    public int duration(int edge) {
+        return durations[edge];
+    }
+}
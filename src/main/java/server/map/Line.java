@@ -1,12 +1,11 @@
 package server.map;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Objects;
 
 /**
  * Classe représentant une ligne
@@ -51,18 +50,31 @@ public final class Line {
      */
     private Section last;
     /**
-     * La liste des horaires de départ de la section de départ
+     * Les horaires de départ de la section de départ en secondes depuis minuit, sans doublon et
+     * dans l'ordre croissant. Seules les {@code departureCount} premières cases sont utilisées.
      */
-    private final SortedSet<Time> departures;
+    private int[] departures;
+    /**
+     * Le nombre d'horaires de départ
+     */
+    private int departureCount;
     /**
      * Chaque section est associée à la durée nécessaire pour arriver à la fin de la section depuis
      * le début de la section de départ
      */
     private final Map<Section, Integer> sections;
+    /**
+     * Les sections de {@code sections} indexées par le nom de leur station de départ
+     */
+    private final Map<String, List<Section>> sectionsByStart;
     /**
      * Le temps d'attente entre chaque section à chaque arrêt (en secondes)
      */
     private static final int WAITING_TIME = 20;
+    /**
+     * Nombre de secondes dans une journée
+     */
+    private static final int DAY = 24 * 3600;
 
     /**
      * Créer une nouvelle ligne vide.
@@ -90,7 +102,29 @@ public final class Line {
         this.start = null;
         this.last = null;
         this.sections = new HashMap<>(sections);
-        this.departures = new TreeSet<>();
+        this.sectionsByStart = new HashMap<>();
+        for (Section section : this.sections.keySet())
+            indexSection(section);
+        this.departures = new int[0];
+        this.departureCount = 0;
+    }
+
+    /**
+     * Crée une copie de la ligne, modifiable sans changer {@code other}
+     *
+     * @param other la ligne à copier
+     */
+    Line(Line other) {
+        this.name = other.name;
+        this.variant = other.variant;
+        this.start = other.start;
+        this.last = other.last;
+        this.sections = new HashMap<>(other.sections);
+        this.sectionsByStart = new HashMap<>();
+        other.sectionsByStart.forEach((station, list) -> sectionsByStart.put(station,
+                new ArrayList<>(list)));
+        this.departures = Arrays.copyOf(other.departures, other.departureCount);
+        this.departureCount = other.departureCount;
     }
 
     /**
@@ -127,11 +161,10 @@ public final class Line {
         if (stationName == null)
             throw new IllegalArgumentException();
         if (start == null) {
-            Optional<Section> station = sections.keySet().stream()
-                    .filter(s -> s.getStart().getName().equals(stationName)).findAny();
-            if (station.isEmpty())
+            List<Section> starting = sectionsByStart.get(stationName);
+            if (starting == null)
                 throw new StationNotFoundException(stationName, name, variant);
-            start = station.get();
+            start = starting.get(0);
         } else {
             String actual = start.getStart().getName();
             if (!actual.equals(stationName))
@@ -158,6 +191,15 @@ public final class Line {
         return new ArrayList<>(sections.keySet());
     }
 
+    /**
+     * @param section une section de la ligne
+     * @return la durée pour arriver à la fin de {@code section} depuis le début de la section de
+     *         départ ou {@code null} si elle n'est pas connue
+     */
+    Integer getDurationFromStart(Section section) {
+        return sections.get(section);
+    }
+
     /**
      * @return la map des sections associées à leur durée depuis la station de départ
      */
@@ -175,9 +217,21 @@ public final class Line {
     public void addSection(Section section) throws IllegalArgumentException {
         if (section == null)
             throw new IllegalArgumentException();
+        if (!sections.containsKey(section))
+            indexSection(section);
         sections.put(section, null);
     }
 
+    /**
+     * Ajoute une section à {@code sectionsByStart}
+     *
+     * @param section une section absente de l'index
+     */
+    private void indexSection(Section section) {
+        sectionsByStart.computeIfAbsent(section.getStart().getName(), k -> new ArrayList<>(1))
+                .add(section);
+    }
+
     /**
      * Ajoute un horaire de départ de la section de départ de la ligne.
      *
@@ -187,11 +241,53 @@ public final class Line {
      *         entre 0 et 59 (inclus)
      */
     public void addDepartureTime(int hour, int minute) throws IllegalArgumentException {
-        this.departures.add(new Time(hour, minute));
+        int seconds = new Time(hour, minute).toSeconds();
+        int i = lowerBound(departures, 0, departureCount, seconds);
+        if (i < departureCount && departures[i] == seconds)
+            return;
+        if (departureCount == departures.length)
+            departures = Arrays.copyOf(departures, Math.max(4, departureCount * 2));
+        System.arraycopy(departures, i, departures, i + 1, departureCount - i);
+        departures[i] = seconds;
+        departureCount++;
+    }
+
+    /**
+     * Ajoute des horaires de départ déjà validés de la section de départ de la ligne
+     *
+     * @param seconds les horaires en secondes depuis minuit, dans un ordre quelconque
+     * @param count le nombre de cases utilisées de {@code seconds}
+     */
+    void addDepartureSeconds(int[] seconds, int count) {
+        int[] added = Arrays.copyOf(seconds, count);
+        Arrays.sort(added);
+        int[] merged = new int[departureCount + count];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < departureCount || j < count) {
+            int value = j == count || i < departureCount && departures[i] <= added[j]
+                    ? departures[i++]
+                    : added[j++];
+            if (size == 0 || merged[size - 1] != value)
+                merged[size++] = value;
+        }
+        departures = merged;
+        departureCount = size;
     }
 
     public List<Time> getDepartures() {
-        return new ArrayList<>(departures);
+        List<Time> times = new ArrayList<>(departureCount);
+        for (int i = 0; i < departureCount; i++)
+            times.add(new Time(departures[i]));
+        return times;
+    }
+
+    /**
+     * @return les horaires de départ de la ligne en secondes depuis minuit dans l'ordre croissant
+     */
+    int[] getDepartureSeconds() {
+        return Arrays.copyOf(departures, departureCount);
     }
 
     /**
@@ -202,15 +298,57 @@ public final class Line {
      */
     public Time getNextTime(Section section, Time time) {
         Integer duration = sections.get(section);
-        if (duration == null || time == null || departures.isEmpty())
+        if (duration == null || time == null)
             return null;
-        duration -= section.getDuration();
-        for (Time t : departures) {
-            Time departTime = t.addDuration(duration);
-            if (time.compareTo(departTime) <= 0)
-                return departTime;
+        int next = nextDeparture(duration - section.getDuration(), time.toSeconds());
+        return next < 0 ? null : new Time(next);
+    }
+
+    /**
+     * Cherche par dichotomie le prochain départ d'une section sans allouer d'objet. Les horaires
+     * de la section sont ceux de {@code departures} décalés de {@code offset} : ceux qui passent
+     * minuit forment une seconde suite croissante, parcourue après la première comme le fait
+     * l'ordre de {@code departures}.
+     *
+     * @param offset le temps en secondes entre le départ de la ligne et celui de la section
+     * @param time l'horaire minimal en secondes depuis minuit
+     * @return le premier horaire de départ de la section dans l'ordre de {@code departures} qui
+     *         n'est pas avant {@code time}, sinon celui du premier départ de la ligne, en secondes
+     *         depuis minuit, ou {@code -1} s'il n'y a pas de départ
+     */
+    public int nextDeparture(int offset, int time) {
+        int[] seconds = departures;
+        int n = departureCount;
+        if (n == 0)
+            return -1;
+        int shift = Math.floorMod(offset, DAY);
+        int wrap = lowerBound(seconds, 0, n, DAY - shift);
+        int i = lowerBound(seconds, 0, wrap, time - shift);
+        if (i < wrap)
+            return seconds[i] + shift;
+        i = lowerBound(seconds, wrap, n, time - shift + DAY);
+        if (i < n)
+            return seconds[i] + shift - DAY;
+        return (seconds[0] + shift) % DAY;
+    }
+
+    /**
+     * @param sorted un tableau trié
+     * @param from le premier indice de la recherche
+     * @param to l'indice suivant le dernier de la recherche
+     * @param value une valeur
+     * @return le premier indice entre {@code from} et {@code to} dont la valeur n'est pas
+     *         inférieure à {@code value}, {@code to} s'il n'y en a pas
+     */
+    private static int lowerBound(int[] sorted, int from, int to, int value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sorted[mid] < value)
+                from = mid + 1;
+            else
+                to = mid;
         }
-        return departures.first().addDuration(duration);
+        return from;
     }
 
     /**
@@ -218,9 +356,14 @@ public final class Line {
      * @return la section suivante ou {@code null} s'il n'y en a pas
      */
     private Section getNextSection(Section section) {
-        Optional<Section> next = sections.keySet().stream()
-                .filter(s -> s.getStart().equals(section.getArrival())).findAny();
-        return next.orElse(null);
+        List<Section> starting = sectionsByStart.get(section.getArrival().getName());
+        if (starting != null) {
+            for (Section s : starting) {
+                if (s.getStart().equals(section.getArrival()))
+                    return s;
+            }
+        }
+        return null;
     }
 
     /**
@@ -251,10 +394,24 @@ public final class Line {
         Integer durationToArrival = sections.get(section);
         if (durationToArrival != null) {
             int duration = durationToArrival - section.getDuration();
-            for (Time t : departures) {
-                times.add(t.addDuration(duration));
-            }
+            for (int i = 0; i < departureCount; i++)
+                times.add(new Time(Math.floorMod(departures[i] + duration, DAY)));
         }
         return times;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Line l)
+            return l.name.equals(name) && Objects.equals(l.variant, variant)
+                    && Objects.equals(l.start, start) && l.sections.equals(sections)
+                    && Arrays.equals(l.departures, 0, l.departureCount, departures, 0,
+                            departureCount);
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, variant, sections.keySet());
+    }
 }
@@ -0,0 +1,90 @@
+package server.map;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionnaire associant des noms à des identifiants denses, attribués dans l'ordre d'ajout à
+ * partir de 0. Chaque nom n'est conservé qu'une fois : les objets construits à partir de
+ * {@link #name(int)} partagent la même chaîne.
+ */
+public final class NameDictionary {
+    /**
+     * Identifiant renvoyé pour un nom absent du dictionnaire
+     */
+    public static final int NO_ID = -1;
+    /**
+     * Associe chaque nom à son identifiant
+     */
+    private final Map<String, Integer> ids;
+    /**
+     * Le nom de chaque identifiant, seules les {@code size} premières cases sont utilisées
+     */
+    private String[] names;
+    private int size;
+
+    public NameDictionary() {
+        ids = new HashMap<>();
+        names = new String[16];
+        size = 0;
+    }
+
+    /**
+     * Crée une copie du dictionnaire, les identifiants sont les mêmes
+     *
+     * @param d un dictionnaire à copier
+     */
+    public NameDictionary(NameDictionary d) {
+        ids = new HashMap<>(d.ids);
+        names = Arrays.copyOf(d.names, Math.max(16, d.size));
+        size = d.size;
+    }
+
+    /**
+     * Ajoute un nom s'il n'est pas encore dans le dictionnaire
+     *
+     * @param name un nom
+     * @return l'identifiant de {@code name}
+     * @throws IllegalArgumentException si {@code name} est {@code null}
+     */
+    public int add(String name) throws IllegalArgumentException {
+        if (name == null)
+            throw new IllegalArgumentException();
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        if (size == names.length)
+            names = Arrays.copyOf(names, size * 2);
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * @param name un nom
+     * @return l'identifiant de {@code name} ou {@code NO_ID} s'il n'est pas dans le dictionnaire
+     */
+    public int id(String name) {
+        Integer id = name == null ? null : ids.get(name);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * @param id un identifiant du dictionnaire
+     * @return le nom associé à {@code id}
+     * @throws IndexOutOfBoundsException si {@code id} n'est pas un identifiant du dictionnaire
+     */
+    public String name(int id) throws IndexOutOfBoundsException {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException(id);
+        return names[id];
+    }
+
+    /**
+     * @return le nombre de noms
+     */
+    public int size() {
+        return size;
+    }
+}
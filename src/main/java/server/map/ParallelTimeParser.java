@@ -0,0 +1,205 @@
+package server.map;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import server.map.Line.DifferentStartException;
+import server.map.Line.StationNotFoundException;
+import server.map.Plan.UndefinedLineException;
+import server.map.PlanParser.InconsistentDataException;
+import server.map.PlanParser.IncorrectFileFormatException;
+import util.CsvReader;
+
+/**
+ * Lecture en parallèle d'un fichier CSV d'horaires de départ.
+ *
+ * <p>
+ * Le fichier est découpé en parties qui commencent au début d'une ligne. Chaque partie est lue
+ * par une tâche qui regroupe les horaires par ligne du plan sans modifier le plan. Les parties
+ * sont ensuite ajoutées au plan dans l'ordre du fichier : l'erreur signalée est celle de la
+ * première ligne fautive du fichier, la même qu'avec une lecture séquentielle.
+ */
+final class ParallelTimeParser {
+    /**
+     * La taille minimale en octets d'une partie du fichier
+     */
+    static final long MIN_PART_SIZE = 1 << 20;
+    /**
+     * Le nombre de parties par thread, pour répartir la charge entre les threads
+     */
+    private static final int PARTS_PER_THREAD = 4;
+
+    private ParallelTimeParser() {}
+
+    /**
+     * Les horaires d'une ligne du plan lus dans une partie du fichier
+     */
+    private static final class Departures {
+        private final int lineId;
+        /**
+         * La station de départ de la première ligne du fichier pour cette ligne du plan
+         */
+        private final String station;
+        /**
+         * Le numéro dans la partie de la première ligne du fichier pour cette ligne du plan
+         */
+        private final int firstRow;
+        private int[] seconds = new int[16];
+        private int count;
+
+        private Departures(int lineId, String station, int firstRow) {
+            this.lineId = lineId;
+            this.station = station;
+            this.firstRow = firstRow;
+        }
+
+        private void add(int departure) {
+            if (count == seconds.length)
+                seconds = Arrays.copyOf(seconds, count * 2);
+            seconds[count++] = departure;
+        }
+    }
+
+    /**
+     * Le résultat de la lecture d'une partie du fichier, arrêtée à la première erreur
+     */
+    private static final class Part {
+        /**
+         * Les horaires par ligne du plan, dans l'ordre de leur première ligne dans le fichier
+         */
+        private final List<Departures> departures = new ArrayList<>();
+        /**
+         * Le nombre de lignes lues
+         */
+        private int rows;
+        /**
+         * L'erreur de la ligne {@code rows}, {@code null} s'il n'y en a pas
+         */
+        private Exception error;
+    }
+
+    /**
+     * Ajoute au plan les horaires d'un fichier en le lisant sur plusieurs threads
+     *
+     * @param plan le plan où ajouter les horaires
+     * @param file le fichier à parser
+     * @param pool les threads de lecture
+     * @throws FileNotFoundException si le fichier n'a pas été trouvé
+     * @throws IncorrectFileFormatException si le format du fichier est incorrect
+     * @throws InconsistentDataException si les données du fichier ne correspondent pas avec le plan
+     */
+    static void addTimes(Plan plan, Path file, ForkJoinPool pool)
+            throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
+        long size = fileSize(file);
+        int parts = (int) Math.max(1,
+                Math.min((long) pool.getParallelism() * PARTS_PER_THREAD, size / MIN_PART_SIZE));
+        addTimes(plan, file, pool, parts);
+    }
+
+    /**
+     * Ajoute au plan les horaires d'un fichier découpé en {@code parts} parties au plus
+     *
+     * @see #addTimes(Plan, Path, ForkJoinPool)
+     */
+    static void addTimes(Plan plan, Path file, ForkJoinPool pool, int parts)
+            throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
+        String fileName = file.getFileName().toString();
+        fileSize(file);
+        long[] bounds;
+        try {
+            bounds = CsvReader.split(file, parts);
+        } catch (IOException e) {
+            throw new IncorrectFileFormatException(fileName, 0);
+        }
+        NameDictionary lineNames = plan.lineNames();
+        List<ForkJoinTask<Part>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            tasks.add(pool.submit(() -> readPart(lineNames, file, from, to)));
+        }
+        try {
+            int offset = 0;
+            for (ForkJoinTask<Part> task : tasks) {
+                Part part = task.join();
+                for (Departures d : part.departures) {
+                    try {
+                        plan.addDepartureSeconds(d.lineId, d.station, d.seconds, d.count);
+                    } catch (StationNotFoundException | DifferentStartException e) {
+                        throw new InconsistentDataException(e.getMessage(), offset + d.firstRow);
+                    }
+                }
+                if (part.error instanceof UndefinedLineException
+                        || part.error instanceof DifferentStartException)
+                    throw new InconsistentDataException(part.error.getMessage(),
+                            offset + part.rows);
+                if (part.error != null)
+                    throw new IncorrectFileFormatException(fileName, offset + part.rows);
+                offset += part.rows;
+            }
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+        plan.updateSectionsTime();
+    }
+
+    private static long fileSize(Path file) throws FileNotFoundException {
+        try {
+            if (Files.isRegularFile(file))
+                return Files.size(file);
+        } catch (IOException e) {
+            // traité comme un fichier absent
+        }
+        throw new FileNotFoundException(file.toString());
+    }
+
+    /**
+     * Lit une partie du fichier. Une ligne du fichier est vérifiée dans le même ordre que
+     * {@link Plan#addDepartureTime(String, String, int[])} : une première ligne pour une ligne du
+     * plan est retenue avant de vérifier son horaire, pour que sa station de départ soit vérifiée
+     * d'abord.
+     *
+     * @param lineNames les identifiants des noms de lignes du plan
+     * @param file le fichier à lire
+     * @param from le début de la partie
+     * @param to la fin de la partie
+     * @return les horaires lus
+     */
+    private static Part readPart(NameDictionary lineNames, Path file, long from, long to) {
+        Part part = new Part();
+        Departures[] byLine = new Departures[lineNames.size()];
+        try (CsvReader reader = new CsvReader(file, from, to)) {
+            while (reader.nextLine()) {
+                part.rows++;
+                String line = reader.nextString(';');
+                String station = reader.nextString(';');
+                int hour = reader.nextInt(':');
+                int minute = reader.nextInt(';');
+                String variant = reader.nextString(';');
+                String lineName = line + " variant " + variant;
+                int lineId = lineNames.id(lineName);
+                if (lineId == NameDictionary.NO_ID)
+                    throw new UndefinedLineException(lineName);
+                Departures d = byLine[lineId];
+                if (d == null) {
+                    d = new Departures(lineId, station, part.rows);
+                    byLine[lineId] = d;
+                    part.departures.add(d);
+                } else if (!d.station.equals(station)) {
+                    throw new DifferentStartException(line, variant, d.station, station);
+                }
+                d.add(new Time(hour, minute).toSeconds());
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | IOException
+                | UndefinedLineException | DifferentStartException e) {
+            part.error = e;
+        }
+        return part;
+    }
+}
@@ -1,87 +1,156 @@
 package server.map;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import server.map.Line.DifferentStartException;
 import server.map.Line.StationNotFoundException;
 
 /**
- * Plan contient l'ensemble des données du réseaux
+ * Plan contient l'ensemble des données du réseaux.
+ *
+ * <p>
+ * Un plan est construit puis figé par {@link #freeze()} avant d'être partagé : ses sections, ses
+ * lignes et ses horaires ne changent plus et il peut être lu par plusieurs threads sans
+ * verrou. Pour le modifier, on en construit une copie avec {@link #Plan(Plan)} ou
+ * {@link #resetLinesSections()}.
  */
 public final class Plan {
     /**
-     * Map où chaque nom de station est associé aux sections dont le départ est cette station
+     * Le dernier numéro de version attribué à un plan
      */
-    private final Map<String, List<Section>> map;
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    /**
+     * Les identifiants des noms de stations
+     */
+    private final NameDictionary stationIds;
+    /**
+     * Les identifiants des noms de lignes (avec variant)
+     */
+    private final NameDictionary lineIds;
+    /**
+     * Les sections dont le départ est chaque station, par identifiant de station
+     */
+    private final List<List<Section>> map;
     /**
      * L'ensemble des stations
      */
     private Set<Station> stations;
     /**
-     * Map où chaque nom (avec variant) de ligne est associée sa ligne
+     * Les lignes, par identifiant de ligne
+     */
+    private final List<Line> lines;
+    /**
+     * Les informations de chaque station, par identifiant de station
+     */
+    private final List<StationInfo> stationsInfo;
+    /**
+     * Le graphe compilé du plan, construit à la première demande et invalidé à chaque
+     * modification de la topologie
+     */
+    private volatile PlanGraph graph;
+    /**
+     * Les horaires compilés du plan, construits à la première demande et invalidés à chaque
+     * modification du graphe ou des horaires
+     */
+    private volatile Timetable timetable;
+    /**
+     * Le décalage des arêtes du graphe par rapport au départ de leur ligne, construit à la
+     * première demande et invalidé en même temps que les horaires compilés
+     */
+    private volatile DepartureOffsets departureOffsets;
+    /**
+     * Les parcours des lignes du plan, construits à la première demande et invalidés en même
+     * temps que les horaires compilés
+     */
+    private volatile RoutePatterns routePatterns;
+    /**
+     * La hiérarchie de contraction du graphe, conservée tant que les arrêts et les longueurs des
+     * sections ne changent pas
+     */
+    private volatile ContractionHierarchy hierarchy;
+    /**
+     * Les sections à pied entre les arrêts du graphe, conservées tant que les arrêts ne changent
+     * pas
      */
-    private final Map<String, Line> lines;
+    private volatile FootGraph footGraph;
     /**
-     * Map où le nom de la station est associé à ses informations
+     * Les vues par nom des sections, des lignes et des informations des stations, construites à
+     * la première demande et invalidées à chaque ajout de station ou de section
      */
-    private final Map<String, StationInfo> stationsInfo;
+    private volatile Views views;
+    /**
+     * Le numéro de version du plan, unique parmi tous les plans et changé à chaque modification
+     * des sections ou des horaires
+     */
+    private volatile long version = VERSIONS.incrementAndGet();
+    /**
+     * Si le plan est figé, voir {@link #freeze()}
+     */
+    private volatile boolean frozen;
 
     public Plan() {
-        map = new HashMap<>();
-        lines = new HashMap<>();
+        stationIds = new NameDictionary();
+        lineIds = new NameDictionary();
+        map = new ArrayList<>();
+        lines = new ArrayList<>();
         stations = new HashSet<>();
-        stationsInfo = new HashMap<>();
+        stationsInfo = new ArrayList<>();
     }
 
     /**
-     * Crée une copie du plan
+     * Crée une copie modifiable du plan. Les lignes et les informations des stations sont
+     * copiées : modifier la copie ne change pas {@code p}, qui peut être figé et lu par d'autres
+     * threads. Les sections, qui ne changent pas, sont partagées.
      *
      * @param p un plan à copier
      */
     public Plan(Plan p) {
-        this.map = p.map.entrySet().stream().reduce(new HashMap<>(), (acc, e) -> {
-            acc.put(e.getKey(), e.getValue().stream().map(Section::new)
-                    .collect(Collectors.toCollection(ArrayList::new)));
-            return acc;
-        }, (acc, m) -> {
-            acc.putAll(m);
-            return acc;
-        });
-        this.lines = new HashMap<>(p.lines);
-        this.stations = new HashSet<>(p.stations);
-        this.stationsInfo = new HashMap<>(p.stationsInfo);
+        this(p, p.lines.stream().map(Line::new).toList());
+        this.graph = p.getGraph();
+        this.timetable = p.timetable;
+        this.departureOffsets = p.departureOffsets;
+        this.routePatterns = p.routePatterns;
+        this.hierarchy = p.hierarchy;
+        this.footGraph = p.footGraph;
     }
 
-    private Plan(Map<String, List<Section>> map, Set<Station> stations, Map<String, Line> lines,
-            Map<String, StationInfo> stationsInfo) {
-        this.map = new HashMap<>(map);
-        this.stations = new HashSet<>(stations);
-        this.lines = new HashMap<>(lines);
-        this.stationsInfo = new HashMap<>(stationsInfo);
+    /**
+     * Crée une copie modifiable du plan avec d'autres lignes
+     *
+     * @param p un plan à copier
+     * @param lines les lignes de la copie, qui ne doivent pas être partagées avec {@code p}
+     */
+    private Plan(Plan p, List<Line> lines) {
+        this.stationIds = new NameDictionary(p.stationIds);
+        this.lineIds = new NameDictionary(p.lineIds);
+        this.map = p.map.stream().map(ArrayList::new)
+                .collect(Collectors.toCollection(ArrayList::new));
+        this.stations = new HashSet<>(p.stations);
+        this.lines = new ArrayList<>(lines);
+        this.stationsInfo = p.stationsInfo.stream()
+                .map(info -> new StationInfo(info.getStationName(), info.getLines()))
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
-     * Crée un nouveau Plan conservant, stationsInfo et map mais en reinitilisant les lignes en
-     * applliquant {@link Line#resetTime()}
+     * Crée un nouveau Plan modifiable conservant, stationsInfo et map mais en reinitilisant les
+     * lignes en applliquant {@link Line#resetTime()}
      *
      * @see Line#resetDeparturesTimeData()
      */
     public Plan resetLinesSections() {
-        Map<String, Line> linesReset =
-                this.lines.entrySet().stream().reduce(new HashMap<>(), (acc, entry) -> {
-                    acc.put(entry.getKey(), entry.getValue().resetDeparturesTimeData());
-                    return acc;
-                }, (acc, m) -> {
-                    acc.putAll(m);
-                    return acc;
-                });
-        return new Plan(this.map, this.stations, linesReset, this.stationsInfo);
+        List<Line> linesReset = lines.stream().map(Line::resetDeparturesTimeData).toList();
+        Plan plan = new Plan(this, linesReset);
+        plan.hierarchy = hierarchy;
+        plan.footGraph = footGraph;
+        return plan;
     }
 
     /**
@@ -96,69 +165,95 @@ public final class Plan {
      * @param distance la longueur de la section
      * @throws IndexOutOfBoundsException si l'une des coordonnées ou {@code duration} n'est pas bien
      *         formée
+     * @throws IllegalStateException si le plan est figé
      */
     public void addSection(String startName, double[] startCoord, String arrivalName,
             double[] arrivalCoord, String lineName, int[] duration, double distance)
-            throws IndexOutOfBoundsException {
-        Station start = addStation(startName, startCoord[1], startCoord[0]);
-        Station arrival = addStation(arrivalName, arrivalCoord[1], arrivalCoord[0]);
+            throws IndexOutOfBoundsException, IllegalStateException {
+        checkNotFrozen();
+        int startId = addStationName(startName);
+        int arrivalId = addStationName(arrivalName);
+        int lineId = addLineName(lineName);
         int durationMin = duration[0] * 60 + duration[1];
         int distanceMetre = (int) Math.round(distance * 1000);
-        Line line = addSection(start, arrival, lineName, distanceMetre, durationMin);
-        addStationInfo(startName, line.getName());
-        addStationInfo(arrivalName, line.getName());
+        addSection(startId, startCoord[1], startCoord[0], arrivalId, arrivalCoord[1],
+                arrivalCoord[0], lineId, distanceMetre, durationMin);
     }
 
     /**
-     * Ajoute une station au plan
+     * Ajoute un nom de station au plan s'il n'y est pas encore
      *
      * @param name le nom de la station
-     * @param latitude la coordonnée en latitude en degrés décimaux de la station
-     * @param longitude la coordonnée en longitude en degrés décimaux de la station
-     * @return la station créée
+     * @return l'identifiant du nom de la station
+     * @throws IllegalStateException si le plan est figé
      */
-    private Station addStation(String name, double latitude, double longitude) {
-        Station station = new Station(name, latitude, longitude);
-        stations.add(station);
-        map.putIfAbsent(name, new ArrayList<>());
-        return station;
+    int addStationName(String name) throws IllegalStateException {
+        checkNotFrozen();
+        int id = stationIds.add(name);
+        if (id == map.size()) {
+            map.add(new ArrayList<>());
+            stationsInfo.add(new StationInfo(stationIds.name(id)));
+            views = null;
+        }
+        return id;
     }
 
     /**
-     * Ajoute une section au plan
+     * Ajoute une ligne au plan si elle n'y est pas encore
      *
-     * @param start la station de départ de la section
-     * @param arrival la station d'arrivé de la section
-     * @param lineName le nom de la ligne (avec son variant) de la section
-     * @param distance la longueur de la section
-     * @param duration la durée de la section
-     * @return la ligne de la section
+     * @param lineName le nom de la ligne (avec son variant)
+     * @return l'identifiant du nom de la ligne
      * @throws IndexOutOfBoundsException si le nom de la ligne n'est pas bien formé
+     * @throws IllegalStateException si le plan est figé
      */
-    private Line addSection(Station start, Station arrival, String lineName, int distance,
-            int duration) throws IndexOutOfBoundsException {
-        Section section = new Section(start, arrival, lineName, distance, duration);
-        map.get(start.getName()).add(section);
-        Line line = lines.computeIfAbsent(lineName, n -> {
-            String argsSpltter = " ";
-            String[] lineVariant = n.split(argsSpltter);
-            String name = lineVariant[0];
-            String variant = lineVariant[2];
-            return new Line(name, variant);
-        });
-        line.addSection(section);
-        return line;
+    int addLineName(String lineName) throws IndexOutOfBoundsException, IllegalStateException {
+        checkNotFrozen();
+        int lineId = lineIds.id(lineName);
+        if (lineId == NameDictionary.NO_ID) {
+            String[] lineVariant = lineName.split(" ");
+            Line created = new Line(lineVariant[0], lineVariant[2]);
+            lineId = lineIds.add(lineName);
+            lines.add(created);
+            views = null;
+        }
+        return lineId;
     }
 
     /**
-     * Ajoute un nom de ligne aux informations d'une station dans le plan
+     * Ajoute une section au plan entre deux stations dont les noms sont déjà dans le plan
      *
-     * @param stationName le nom de la station
-     * @param lineName le nom de la ligne
+     * @param startId l'identifiant du nom de la station de départ
+     * @param startLatitude la latitude de la station de départ
+     * @param startLongitude la longitude de la station de départ
+     * @param arrivalId l'identifiant du nom de la station d'arrivée
+     * @param arrivalLatitude la latitude de la station d'arrivée
+     * @param arrivalLongitude la longitude de la station d'arrivée
+     * @param lineId l'identifiant du nom de la ligne de la section
+     * @param distance la longueur de la section en mètres
+     * @param duration la durée de la section en secondes
+     * @throws IllegalStateException si le plan est figé
      */
-    private void addStationInfo(String stationName, String lineName) {
-        StationInfo info = stationsInfo.computeIfAbsent(stationName, StationInfo::new);
-        info.addLine(lineName);
+    void addSection(int startId, double startLatitude, double startLongitude, int arrivalId,
+            double arrivalLatitude, double arrivalLongitude, int lineId, int distance,
+            int duration) throws IllegalStateException {
+        checkNotFrozen();
+        Station start = new Station(stationIds.name(startId), startLatitude, startLongitude);
+        Station arrival =
+                new Station(stationIds.name(arrivalId), arrivalLatitude, arrivalLongitude);
+        stations.add(start);
+        stations.add(arrival);
+        Line line = lines.get(lineId);
+        Section section = new Section(start, arrival, lineIds.name(lineId), distance, duration);
+        map.get(startId).add(section);
+        line.addSection(section);
+        stationsInfo.get(startId).addLine(line.getName());
+        stationsInfo.get(arrivalId).addLine(line.getName());
+        views = null;
+        graph = null;
+        timetable = null;
+        departureOffsets = null;
+        routePatterns = null;
+        version = VERSIONS.incrementAndGet();
     }
 
     static class UndefinedLineException extends Exception {
@@ -177,71 +272,343 @@ public final class Plan {
      * @throws UndefinedLineException si la ligne n'existe pas dans le plan
      * @throws StartStationNotFoundException si la station de départ n'existe pas sur la ligne
      * @throws DifferentStartException s'il y a plusieurs stations de départ pour une même ligne
+     * @throws IllegalStateException si le plan est figé
      */
     public void addDepartureTime(String line, String stationName, int[] time)
             throws IndexOutOfBoundsException, UndefinedLineException, StationNotFoundException,
-            DifferentStartException, IllegalArgumentException {
-        Line l = lines.get(line);
-        if (l == null)
+            DifferentStartException, IllegalArgumentException, IllegalStateException {
+        checkNotFrozen();
+        int lineId = lineIds.id(line);
+        if (lineId == NameDictionary.NO_ID)
             throw new UndefinedLineException(line);
+        Line l = lines.get(lineId);
         l.setStart(stationName);
         l.addDepartureTime(time[0], time[1]);
+        timetable = null;
+        departureOffsets = null;
+        routePatterns = null;
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Ajoute des horaires de départ déjà validés d'une ligne au plan
+     *
+     * @param lineId l'identifiant de la ligne
+     * @param stationName le nom de la station de départ
+     * @param seconds les horaires en secondes depuis minuit
+     * @param count le nombre de cases utilisées de {@code seconds}
+     * @throws StationNotFoundException si la station de départ n'existe pas sur la ligne
+     * @throws DifferentStartException s'il y a plusieurs stations de départ pour une même ligne
+     * @throws IllegalStateException si le plan est figé
+     */
+    void addDepartureSeconds(int lineId, String stationName, int[] seconds, int count)
+            throws StationNotFoundException, DifferentStartException, IllegalStateException {
+        checkNotFrozen();
+        Line l = lines.get(lineId);
+        l.setStart(stationName);
+        l.addDepartureSeconds(seconds, count);
+        timetable = null;
+        departureOffsets = null;
+        routePatterns = null;
+        version = VERSIONS.incrementAndGet();
     }
 
     /**
      * Pour chaque ligne, calcule le temps nécessaire entre la station de départ et toutes les
      * autres stations de la ligne, les résultats sont mis dans sections. Si la station de départ
      * n'est pas définie, ne fait rien.
+     *
+     * @throws IllegalStateException si le plan est figé
      */
-    public void updateSectionsTime() {
-        lines.values().stream().forEach(Line::updateSectionsTime);
+    public void updateSectionsTime() throws IllegalStateException {
+        checkNotFrozen();
+        lines.forEach(Line::updateSectionsTime);
+        timetable = null;
+        departureOffsets = null;
+        routePatterns = null;
+        version = VERSIONS.incrementAndGet();
     }
 
     /**
-     * Met à jour l'horaire de départ d'une section à partir d'un horaire
-     *
-     * @param section une section à mettre à jour
+     * @param section une section
      * @param time l'horaire minimal
+     * @return une copie de {@code section} partant à son prochain départ après {@code time}, ou à
+     *         {@code time} si elle n'est sur aucune ligne du plan, {@code null} si
+     *         {@code section} est {@code null}
+     */
+    public Section withNextTime(Section section, Time time) {
+        if (section == null)
+            return null;
+        Line l = getLine(section);
+        return section.withTime(l != null ? l.getNextTime(section, time) : time);
+    }
+
+    /**
+     * Fige le plan : les méthodes qui modifient ses sections, ses lignes ou ses horaires lèvent
+     * ensuite {@link IllegalStateException}. Les structures calculées à la demande, comme le
+     * graphe, peuvent toujours être construites.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} si le plan est figé
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @throws IllegalStateException si le plan est figé
+     */
+    private void checkNotFrozen() throws IllegalStateException {
+        if (frozen)
+            throw new IllegalStateException("Le plan est figé");
+    }
+
+    /**
+     * @return le numéro de version du plan, différent pour chaque plan et après chaque
+     *         modification des sections ou des horaires
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return le graphe compilé du plan, construit lors du premier appel
+     */
+    public PlanGraph getGraph() {
+        PlanGraph g = graph;
+        if (g == null) {
+            synchronized (this) {
+                g = graph;
+                if (g == null) {
+                    g = new PlanGraph(stationIds, lineIds, map, lines);
+                    graph = g;
+                }
+            }
+        }
+        return g;
+    }
+
+    /**
+     * @return les horaires compilés du plan, construits lors du premier appel
      */
-    public void updateSectionTime(Section section, Time time) {
-        if (section != null) {
-            Line l = lines.get(section.getLine());
-            if (l != null)
-                section.setTime(l.getNextTime(section, time));
-            else
-                section.setTime(time);
+    public Timetable getTimetable() {
+        Timetable t = timetable;
+        if (t == null) {
+            synchronized (this) {
+                t = timetable;
+                if (t == null) {
+                    t = new Timetable(getGraph());
+                    timetable = t;
+                }
+            }
         }
+        return t;
     }
 
+    /**
+     * @return le décalage des arêtes du graphe par rapport au départ de leur ligne, calculé lors
+     *         du premier appel
+     */
+    public DepartureOffsets getDepartureOffsets() {
+        DepartureOffsets o = departureOffsets;
+        if (o == null) {
+            synchronized (this) {
+                o = departureOffsets;
+                if (o == null) {
+                    o = new DepartureOffsets(getGraph());
+                    departureOffsets = o;
+                }
+            }
+        }
+        return o;
+    }
+
+    /**
+     * @return les parcours des lignes du plan, construits lors du premier appel
+     */
+    public RoutePatterns getRoutePatterns() {
+        RoutePatterns r = routePatterns;
+        if (r == null) {
+            synchronized (this) {
+                r = routePatterns;
+                if (r == null) {
+                    r = new RoutePatterns(getGraph());
+                    routePatterns = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return la hiérarchie de contraction du graphe, construite lors du premier appel ou si le
+     *         graphe a changé
+     */
+    public ContractionHierarchy getHierarchy() {
+        PlanGraph g = getGraph();
+        ContractionHierarchy h = hierarchy;
+        if (h == null || h.getGraph() != g) {
+            synchronized (this) {
+                h = hierarchy;
+                if (h == null || h.getGraph() != g) {
+                    h = h == null ? null : h.rebind(g);
+                    if (h == null)
+                        h = ContractionHierarchy.build(g);
+                    hierarchy = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * @return les sections à pied entre les arrêts du graphe, calculées lors du premier appel ou
+     *         si les arrêts ont changé
+     */
+    public FootGraph getFootGraph() {
+        PlanGraph g = getGraph();
+        FootGraph f = footGraph;
+        if (f == null || f.getGraph() != g) {
+            synchronized (this) {
+                f = footGraph;
+                if (f == null || f.getGraph() != g) {
+                    f = f == null ? null : f.rebind(g);
+                    if (f == null)
+                        f = new FootGraph(g);
+                    footGraph = f;
+                }
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Remplace la hiérarchie de contraction, par exemple par une hiérarchie enregistrée
+     *
+     * @param h une hiérarchie construite pour le graphe de ce plan
+     */
+    void setHierarchy(ContractionHierarchy h) {
+        hierarchy = h;
+    }
+
+    /**
+     * Les vues non modifiables par nom des données du plan
+     *
+     * @param map map où chaque nom de station est associé aux sections dont le départ est cette
+     *        station
+     * @param lines map où chaque nom (avec variant) de ligne est associée sa ligne
+     * @param stationsInfo les informations des stations
+     */
+    private record Views(Map<String, List<Section>> map, Map<String, Line> lines,
+            Set<StationInfo> stationsInfo) {
+    }
+
+    /**
+     * @return les vues par nom des données du plan, construites lors du premier appel
+     */
+    private Views views() {
+        Views v = views;
+        if (v == null) {
+            synchronized (this) {
+                v = views;
+                if (v == null) {
+                    Map<String, List<Section>> byStation = new HashMap<>(map.size() * 2);
+                    for (int id = 0; id < map.size(); id++)
+                        byStation.put(stationIds.name(id),
+                                Collections.unmodifiableList(map.get(id)));
+                    Map<String, Line> byLine = new HashMap<>(lines.size() * 2);
+                    for (int id = 0; id < lines.size(); id++)
+                        byLine.put(lineIds.name(id), lines.get(id));
+                    v = new Views(Collections.unmodifiableMap(byStation),
+                            Collections.unmodifiableMap(byLine),
+                            Collections.unmodifiableSet(new HashSet<>(stationsInfo)));
+                    views = v;
+                }
+            }
+        }
+        return v;
+    }
+
+    /**
+     * @return les identifiants des noms de stations, à ne pas modifier
+     */
+    NameDictionary stationNames() {
+        return stationIds;
+    }
+
+    /**
+     * @return les identifiants des noms de lignes (avec variant), à ne pas modifier
+     */
+    NameDictionary lineNames() {
+        return lineIds;
+    }
+
+    /**
+     * @param stationId un identifiant de station
+     * @return une vue non modifiable des sections partant de la station {@code stationId}
+     */
+    List<Section> sections(int stationId) {
+        return Collections.unmodifiableList(map.get(stationId));
+    }
+
+    /**
+     * @param lineId un identifiant de ligne
+     * @return la ligne {@code lineId}
+     */
+    Line line(int lineId) {
+        return lines.get(lineId);
+    }
+
+    /**
+     * @return une vue non modifiable associant chaque nom de station aux sections dont le départ
+     *         est cette station
+     */
     public Map<String, List<Section>> getMap() {
-        return new HashMap<>(map);
+        return views().map();
     }
 
     /**
-     * @return l'ensemble des noms de stations
+     * @return une vue non modifiable de l'ensemble des noms de stations
      */
     public Set<String> getStationsName() {
-        return new HashSet<>(map.keySet());
+        return views().map().keySet();
     }
 
     /**
      * @param station un nom de station
-     * @return la liste des sections partant d'une station à ce nom
+     * @return une vue non modifiable des sections partant d'une station à ce nom, vide si la
+     *         station n'est pas dans le plan
      */
     public List<Section> getSectionsFromStationName(String station) {
-        return new ArrayList<>(map.get(station));
+        int id = stationIds.id(station);
+        if (id == NameDictionary.NO_ID)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(map.get(id));
     }
 
+    /**
+     * @return une vue non modifiable associant chaque nom (avec variant) de ligne à sa ligne
+     */
     public Map<String, Line> getLines() {
-        return new HashMap<>(lines);
+        return views().lines();
     }
 
+    /**
+     * @return une vue non modifiable de l'ensemble des stations
+     */
     public Set<Station> getStations() {
-        return new HashSet<>(stations);
+        return Collections.unmodifiableSet(stations);
     }
 
+    /**
+     * @return une vue non modifiable de l'ensemble des informations des stations
+     */
     public Set<StationInfo> getStationsInfo() {
-        return new HashSet<>(stationsInfo.values());
+        return views().stationsInfo();
     }
 
     /**
@@ -251,7 +618,7 @@ public final class Plan {
     public String getLineName(Section section) {
         if (section == null)
             return null;
-        Line l = lines.get(section.getLine());
+        Line l = getLine(section);
         if (l != null) {
             return l.getName();
         }
@@ -265,60 +632,16 @@ public final class Plan {
     public Line getLine(Section section) {
         if (section == null)
             return null;
-        return lines.get(section.getLine());
-    }
-
-    public void setLineName(Section section) {
-        section.setLine(getLineName(section));
-    }
-
-    /**
-     * Ajoute une station et les sections à pied vers les stations à moins de {@code maxDistance}
-     * mètre. Si aucune station n'a été trouvé, ajoute une section à pied vers la station la plus
-     * proche
-     *
-     * @param name le nom de la station
-     * @param latitude la coordonnée en latitude de la station
-     * @param longitude la coordonnée en latitude de la station
-     * @param maxDistance la distance maximale des sections
-     */
-    public void addStationWithSectionToNearStation(String name, double latitude, double longitude,
-            int maxDistance) {
-        Station station = addStation(name, latitude, longitude);
-        List<Station> nearStations = getCloseStations(station, maxDistance, true);
-        for (Station s : nearStations)
-            addFootSection(station, s);
+        int id = lineIds.id(section.getLine());
+        return id == NameDictionary.NO_ID ? null : lines.get(id);
     }
 
     /**
-     * Ajoute une station et les sections à pied depuis les stations à moins de {@code maxDistance}
-     * mètre. Si aucune station n'a été trouvé, ajoute une section à pied depuis la station la plus
-     * proche
-     *
-     * @param name le nom de la station
-     * @param latitude la coordonnée en latitude de la station
-     * @param longitude la coordonnée en latitude de la station
-     * @param maxDistance la distance maximale des sections
-     */
-    public void addStationWithSectionFromNearStation(String name, double latitude, double longitude,
-            int maxDistance) {
-        Station station = addStation(name, latitude, longitude);
-        List<Station> nearStations = getCloseStations(station, maxDistance, true);
-        for (Station s : nearStations)
-            addFootSection(s, station);
-    }
-
-    /**
-     * Ajoute une section à pied à la map
-     *
-     * @param start la station de départ
-     * @param arrival la station d'arrivé
+     * @param section une section
+     * @return une copie de {@code section} dont la ligne est le nom sans variant de sa ligne
      */
-    private void addFootSection(Station start, Station arrival) {
-        List<Section> startSections = map.get(start.getName());
-        if (startSections != null)
-            startSections.add(new Section(start, arrival, null, start.distanceBetween(arrival),
-                    start.durationBetween(arrival)));
+    public Section withLineName(Section section) {
+        return section.withLine(getLineName(section));
     }
 
     /**
@@ -331,14 +654,20 @@ public final class Plan {
      * @return la liste des stations proches de {@code station}
      */
     public List<Station> getCloseStations(Station station, int maxDistance, boolean closest) {
-        List<Station> closeStations = stations.stream()
-                .filter(s -> !s.equals(station) && station.distanceBetween(s) < maxDistance)
-                .collect(Collectors.toCollection(ArrayList::new));
+        PlanGraph g = getGraph();
+        SpatialIndex index = g.spatialIndex();
+        List<Station> closeStations = new ArrayList<>();
+        for (int s : index.range(station.getCoordinate(), maxDistance)) {
+            if (!g.stop(s).equals(station))
+                closeStations.add(g.stop(s));
+        }
         if (closeStations.isEmpty() && closest) {
-            Station closestStation = stations.stream().filter(s -> !s.equals(station))
-                    .min(Comparator.comparingInt(station::distanceBetween)).orElse(null);
-            if (closestStation != null)
-                closeStations.add(closestStation);
+            for (int s : index.nearest(station.getCoordinate(), 2)) {
+                if (!g.stop(s).equals(station)) {
+                    closeStations.add(g.stop(s));
+                    break;
+                }
+            }
         }
         return closeStations;
     }
@@ -0,0 +1,431 @@
+package server.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graphe compact du réseau compilé une seule fois à partir d'un {@link Plan}.
+ *
+ * <p>
+ * Les sommets sont les noms de stations, numérotés comme dans le {@link NameDictionary} du
+ * plan. Les arêtes (les sections)
+ * sont rangées au format CSR : les arêtes partant du sommet {@code u} sont les indices
+ * {@code firstEdge(u)} à {@code lastEdge(u) - 1}. Une même station peut avoir plusieurs arrêts
+ * (même nom, coordonnées différentes selon la ligne) : chaque arrêt a son propre identifiant et
+ * les distances entre les arrêts d'une même station sont précalculées.
+ */
+public final class PlanGraph {
+    /**
+     * Identifiant d'une arête sans ligne (section à pied)
+     */
+    public static final int NO_LINE = -1;
+    /**
+     * Associe chaque nom de station à son identifiant de sommet
+     */
+    private final NameDictionary nodeIds;
+    /**
+     * Associe chaque arrêt à son identifiant
+     */
+    private final Map<Station, Integer> stopIds;
+    /**
+     * Le nom de chaque sommet
+     */
+    private final String[] names;
+    /**
+     * Les arrêts, regroupés par sommet
+     */
+    private final Station[] stops;
+    /**
+     * Le sommet de chaque arrêt
+     */
+    private final int[] stopNodes;
+    /**
+     * Les arrêts du sommet {@code u} sont les indices {@code nodeStops[u]} à
+     * {@code nodeStops[u + 1] - 1}
+     */
+    private final int[] nodeStops;
+    /**
+     * Position dans {@code transferDistances} de la matrice des distances entre les arrêts de
+     * chaque sommet
+     */
+    private final int[] transferOffsets;
+    /**
+     * Distances en mètres entre deux arrêts d'un même sommet
+     */
+    private final int[] transferDistances;
+    /**
+     * Durées de marche en secondes entre deux arrêts d'un même sommet
+     */
+    private final int[] transferDurations;
+    /**
+     * Les arêtes du sommet {@code u} sont les indices {@code offsets[u]} à
+     * {@code offsets[u + 1] - 1}
+     */
+    private final int[] offsets;
+    /**
+     * Le sommet d'arrivée de chaque arête
+     */
+    private final int[] targets;
+    /**
+     * L'arrêt de départ de chaque arête
+     */
+    private final int[] startStops;
+    /**
+     * L'arrêt d'arrivée de chaque arête
+     */
+    private final int[] arrivalStops;
+    /**
+     * La longueur en mètres de chaque arête
+     */
+    private final int[] distances;
+    /**
+     * La durée en secondes de chaque arête
+     */
+    private final int[] durations;
+    /**
+     * La ligne de chaque arête ou {@code NO_LINE}
+     */
+    private final int[] lineIds;
+    /**
+     * La section d'origine de chaque arête
+     */
+    private final Section[] sections;
+    /**
+     * Les lignes (avec variant) du plan
+     */
+    private final Line[] lines;
+    /**
+     * Plus petit rapport entre la longueur d'une arête et la distance à vol d'oiseau entre ses
+     * arrêts
+     */
+    private final double distanceBound;
+    /**
+     * Plus petit rapport entre la durée d'une arête et la distance à vol d'oiseau entre ses
+     * arrêts, en secondes par mètre
+     */
+    private final double durationBound;
+    /**
+     * Le vecteur unitaire de chaque arrêt, trois composantes par arrêt
+     */
+    private final double[] stopVectors;
+    /**
+     * L'index spatial des arrêts
+     */
+    private final SpatialIndex spatialIndex;
+    /**
+     * Le rayon de la terre en mètres, comme {@link Coordinate#getDistance}
+     */
+    private static final int EARTH_RADIUS = 6_371_000;
+
+    /**
+     * Compile le graphe d'un plan
+     *
+     * @param stationNames les identifiants des noms de stations
+     * @param lineNames les identifiants des noms de lignes (avec variant)
+     * @param map les sections partant de chaque station, par identifiant de station
+     * @param lines les lignes, par identifiant de ligne
+     */
+    PlanGraph(NameDictionary stationNames, NameDictionary lineNames, List<List<Section>> map,
+            List<Line> lines) {
+        int n = map.size();
+        nodeIds = new NameDictionary(stationNames);
+        names = new String[n];
+        for (int u = 0; u < n; u++)
+            names[u] = stationNames.name(u);
+        this.lines = lines.toArray(new Line[0]);
+
+        List<List<Station>> stopsByNode = new ArrayList<>(n);
+        for (int u = 0; u < n; u++)
+            stopsByNode.add(new ArrayList<>(2));
+        Map<Station, Integer> found = new HashMap<>();
+        int m = 0;
+        for (List<Section> sectionsFrom : map) {
+            for (Section s : sectionsFrom) {
+                registerStop(s.getStart(), stopsByNode, found);
+                registerStop(s.getArrival(), stopsByNode, found);
+                m++;
+            }
+        }
+
+        nodeStops = new int[n + 1];
+        transferOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            int k = stopsByNode.get(u).size();
+            nodeStops[u + 1] = nodeStops[u] + k;
+            transferOffsets[u + 1] = transferOffsets[u] + k * k;
+        }
+        stops = new Station[nodeStops[n]];
+        stopNodes = new int[stops.length];
+        stopIds = new HashMap<>(stops.length * 2);
+        transferDistances = new int[transferOffsets[n]];
+        transferDurations = new int[transferOffsets[n]];
+        for (int u = 0; u < n; u++) {
+            List<Station> nodeStopList = stopsByNode.get(u);
+            int k = nodeStopList.size();
+            for (int i = 0; i < k; i++) {
+                Station a = nodeStopList.get(i);
+                stops[nodeStops[u] + i] = a;
+                stopNodes[nodeStops[u] + i] = u;
+                stopIds.put(a, nodeStops[u] + i);
+                for (int j = 0; j < k; j++) {
+                    Station b = nodeStopList.get(j);
+                    transferDistances[transferOffsets[u] + i * k + j] = a.distanceBetween(b);
+                    transferDurations[transferOffsets[u] + i * k + j] = a.durationBetween(b);
+                }
+            }
+        }
+
+        stopVectors = new double[3 * stops.length];
+        for (int i = 0; i < stops.length; i++)
+            System.arraycopy(unitVector(stops[i].getCoordinate()), 0, stopVectors, 3 * i, 3);
+        spatialIndex = new SpatialIndex(stops, FootGraph.MAX_DISTANCE);
+
+        offsets = new int[n + 1];
+        targets = new int[m];
+        startStops = new int[m];
+        arrivalStops = new int[m];
+        distances = new int[m];
+        durations = new int[m];
+        lineIds = new int[m];
+        sections = new Section[m];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            offsets[u] = e;
+            for (Section s : map.get(u)) {
+                targets[e] = nodeIds.id(s.getArrival().getName());
+                startStops[e] = stopIds.get(s.getStart());
+                arrivalStops[e] = stopIds.get(s.getArrival());
+                distances[e] = s.getDistance();
+                durations[e] = s.getDuration();
+                int line = lineNames.id(s.getLine());
+                lineIds[e] = line == NameDictionary.NO_ID ? NO_LINE : line;
+                sections[e] = s;
+                e++;
+            }
+        }
+        offsets[n] = e;
+
+        // Une section à pied a pour longueur la distance à vol d'oiseau et pour durée celle de la
+        // marche : les bornes ne dépassent jamais celles de la marche
+        double minDistance = 1;
+        double minDuration = 1 / Station.WALKING_SPEED;
+        for (int i = 0; i < m; i++) {
+            // + 1 compense l'arrondi au mètre de Coordinate.getDistance
+            int crow = stops[startStops[i]].distanceBetween(stops[arrivalStops[i]]) + 1;
+            minDistance = Math.min(minDistance, (double) distances[i] / crow);
+            minDuration = Math.min(minDuration, (double) durations[i] / crow);
+        }
+        distanceBound = minDistance;
+        durationBound = minDuration;
+    }
+
+    /**
+     * Enregistre un arrêt s'il n'a pas encore été rencontré
+     *
+     * @param station un arrêt
+     * @param stopsByNode les arrêts déjà rencontrés de chaque sommet
+     * @param found les arrêts déjà rencontrés
+     */
+    private void registerStop(Station station, List<List<Station>> stopsByNode,
+            Map<Station, Integer> found) {
+        if (found.putIfAbsent(station, found.size()) == null)
+            stopsByNode.get(nodeIds.id(station.getName())).add(station);
+    }
+
+    /**
+     * @return le nombre de sommets
+     */
+    public int nodeCount() {
+        return names.length;
+    }
+
+    /**
+     * @return le nombre d'arêtes
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @return le nombre d'arrêts
+     */
+    public int stopCount() {
+        return stops.length;
+    }
+
+    /**
+     * @param name un nom de station
+     * @return l'identifiant du sommet de cette station ou {@code -1} s'il n'existe pas
+     */
+    public int nodeId(String name) {
+        return nodeIds.id(name);
+    }
+
+    /**
+     * @param station un arrêt
+     * @return l'identifiant de l'arrêt ou {@code -1} s'il n'existe pas
+     */
+    public int stopId(Station station) {
+        Integer id = station == null ? null : stopIds.get(station);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    public Station stop(int stop) {
+        return stops[stop];
+    }
+
+    public int stopNode(int stop) {
+        return stopNodes[stop];
+    }
+
+    public int firstStop(int node) {
+        return nodeStops[node];
+    }
+
+    public int lastStop(int node) {
+        return nodeStops[node + 1];
+    }
+
+    /**
+     * @param from un arrêt
+     * @param to un arrêt du même sommet que {@code from}
+     * @return la distance en mètres entre les deux arrêts
+     */
+    public int transferDistance(int from, int to) {
+        int u = stopNodes[from];
+        int k = nodeStops[u + 1] - nodeStops[u];
+        return transferDistances[transferOffsets[u] + (from - nodeStops[u]) * k + to
+                - nodeStops[u]];
+    }
+
+    /**
+     * @param from un arrêt
+     * @param to un arrêt du même sommet que {@code from}
+     * @return la durée de marche en secondes entre les deux arrêts
+     */
+    public int transferDuration(int from, int to) {
+        int u = stopNodes[from];
+        int k = nodeStops[u + 1] - nodeStops[u];
+        return transferDurations[transferOffsets[u] + (from - nodeStops[u]) * k + to
+                - nodeStops[u]];
+    }
+
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    public int lastEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int startStop(int edge) {
+        return startStops[edge];
+    }
+
+    public int arrivalStop(int edge) {
+        return arrivalStops[edge];
+    }
+
+    public int distance(int edge) {
+        return distances[edge];
+    }
+
+    public int duration(int edge) {
+        return durations[edge];
+    }
+
+    public int lineId(int edge) {
+        return lineIds[edge];
+    }
+
+    public Section section(int edge) {
+        return sections[edge];
+    }
+
+    /**
+     * @return le nombre de lignes (avec variant)
+     */
+    public int lineCount() {
+        return lines.length;
+    }
+
+    public Line line(int lineId) {
+        return lines[lineId];
+    }
+
+    /**
+     * @return l'index spatial des arrêts, dont les identifiants sont ceux de ce graphe
+     */
+    public SpatialIndex spatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * @param coordinate une coordonnée
+     * @return le vecteur unitaire de la coordonnée sur la sphère terrestre
+     */
+    public static double[] unitVector(Coordinate coordinate) {
+        double latitude = Math.toRadians(coordinate.getLatitude());
+        double longitude = Math.toRadians(coordinate.getLongitude());
+        return new double[] {Math.cos(latitude) * Math.cos(longitude),
+                Math.cos(latitude) * Math.sin(longitude), Math.sin(latitude)};
+    }
+
+    /**
+     * La corde entre deux points est plus courte que l'arc de grand cercle : c'est un minorant
+     * de {@link Coordinate#getDistance} bien moins coûteux à calculer.
+     *
+     * @param a le vecteur unitaire d'une coordonnée
+     * @param b le vecteur unitaire d'une coordonnée
+     * @return la longueur en mètres de la corde entre les deux coordonnées
+     */
+    public static double chordDistance(double[] a, double[] b) {
+        return chordDistance(a, 0, b);
+    }
+
+    /**
+     * @param stop un arrêt
+     * @param vector le vecteur unitaire d'une coordonnée
+     * @return la longueur en mètres de la corde entre l'arrêt et la coordonnée
+     */
+    public double chordDistance(int stop, double[] vector) {
+        return chordDistance(stopVectors, 3 * stop, vector);
+    }
+
+    private static double chordDistance(double[] a, int offset, double[] b) {
+        double x = a[offset] - b[0];
+        double y = a[offset + 1] - b[1];
+        double z = a[offset + 2] - b[2];
+        return Math.sqrt(x * x + y * y + z * z) * EARTH_RADIUS;
+    }
+
+    /**
+     * La longueur de tout trajet est au moins la distance à vol d'oiseau entre ses extrémités
+     * multipliée par cette borne
+     *
+     * @return la longueur minimale d'un trajet par mètre à vol d'oiseau
+     */
+    public double distanceBound() {
+        return distanceBound;
+    }
+
+    /**
+     * La durée de tout trajet est au moins la distance à vol d'oiseau entre ses extrémités
+     * multipliée par cette borne, l'inverse de la vitesse de la ligne la plus rapide
+     *
+     * @return la durée minimale en secondes d'un trajet par mètre à vol d'oiseau
+     */
+    public double durationBound() {
+        return durationBound;
+    }
+}
@@ -1,13 +1,16 @@
 package server.map;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 import server.map.Line.DifferentStartException;
 import server.map.Line.StationNotFoundException;
 import server.map.Plan.UndefinedLineException;
-import util.Parser;
+import util.CsvReader;
+import util.Logger;
 
 /**
  * Parser de fichier CSV pour plan
@@ -20,16 +23,61 @@ public final class PlanParser {
         public IncorrectFileFormatException(String filename) {
             super(String.format("Le fichier %s n'est pas bien formé", filename));
         }
+
+        public IncorrectFileFormatException(String filename, int line) {
+            super(String.format("Le fichier %s n'est pas bien formé (ligne %d)", filename, line));
+        }
     }
 
     public static class InconsistentDataException extends Exception {
         public InconsistentDataException(String line) {
             super(line);
         }
+
+        public InconsistentDataException(String message, int line) {
+            super(String.format("%s (ligne %d)", message, line));
+        }
     }
 
+    /**
+     * Extension du fichier de la hiérarchie de contraction enregistrée à côté du plan
+     */
+    public static final String HIERARCHY_EXTENSION = ".ch";
+
+    /**
+     * Taille en octets à partir de laquelle un fichier d'horaires est lu en parallèle
+     */
+    public static final long PARALLEL_THRESHOLD = 8 << 20;
+
+    /**
+     * Le répertoire où sont enregistrés l'image et la hiérarchie de contraction des plans,
+     * {@code null} pour les enregistrer à côté du fichier du plan
+     */
+    private static volatile Path cacheDirectory = null;
+
     private PlanParser() {}
 
+    /**
+     * @param directory le répertoire où enregistrer l'image et la hiérarchie de contraction des
+     *        plans chargés ensuite, {@code null} pour les enregistrer à côté du fichier du plan
+     */
+    public static void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * @param mapFileName le nom du fichier d'un plan
+     * @param extension la fin du nom du fichier à enregistrer pour ce plan
+     * @return le fichier enregistré pour ce plan, dans le répertoire des caches s'il y en a un,
+     *         à côté du fichier du plan sinon
+     */
+    static Path cacheFile(String mapFileName, String extension) {
+        Path directory = cacheDirectory;
+        if (directory == null)
+            return Path.of(mapFileName + extension);
+        return directory.resolve(Path.of(mapFileName).getFileName() + extension);
+    }
+
     /**
      * @param fileName le nom du fichier à parser
      * @return un plan à partir d'un fichier CSV
@@ -44,6 +92,105 @@ public final class PlanParser {
         return parsePlan(fileName);
     }
 
+    /**
+     * Charge un plan sans horaires : relit son image si elle est plus récente que le fichier du
+     * plan, sinon parse le fichier et enregistre l'image
+     *
+     * @param mapFileName le nom du fichier du plan
+     * @return le plan chargé
+     * @throws FileNotFoundException si le fichier n'a pas été trouvé
+     * @throws IncorrectFileFormatException si le format du fichier est incorrect
+     * @throws IllegalArgumentException si {@code mapFileName} est {@code null}
+     * @see PlanSnapshot
+     */
+    public static Plan planFromFiles(String mapFileName)
+            throws FileNotFoundException, IncorrectFileFormatException, IllegalArgumentException {
+        if (mapFileName == null)
+            throw new IllegalArgumentException();
+        Plan plan = loadSnapshot(mapFileName, null);
+        if (plan == null) {
+            PlanSnapshot.Sources sources = snapshotSources(mapFileName, null);
+            plan = parsePlan(mapFileName);
+            saveSnapshot(plan, sources);
+        }
+        return plan;
+    }
+
+    /**
+     * Charge un plan et ses horaires : relit leur image si elle est plus récente que les deux
+     * fichiers, sinon parse les fichiers et enregistre l'image
+     *
+     * @param mapFileName le nom du fichier du plan
+     * @param timeFileName le nom du fichier des horaires, {@code null} s'il n'y en a pas
+     * @return le plan chargé
+     * @throws FileNotFoundException si un des fichiers n'a pas été trouvé
+     * @throws IncorrectFileFormatException si le format d'un des fichiers est incorrect
+     * @throws InconsistentDataException si les horaires ne correspondent pas avec le plan
+     * @throws IllegalArgumentException si {@code mapFileName} est {@code null}
+     * @see PlanSnapshot
+     */
+    public static Plan planFromFiles(String mapFileName, String timeFileName)
+            throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException,
+            IllegalArgumentException {
+        if (timeFileName == null)
+            return planFromFiles(mapFileName);
+        if (mapFileName == null)
+            throw new IllegalArgumentException();
+        Plan plan = loadSnapshot(mapFileName, timeFileName);
+        if (plan == null) {
+            PlanSnapshot.Sources sources = snapshotSources(mapFileName, timeFileName);
+            plan = parsePlan(mapFileName);
+            addTimeFromCSV(plan, timeFileName);
+            saveSnapshot(plan, sources);
+        }
+        return plan;
+    }
+
+    /**
+     * @return le plan relu depuis son image, {@code null} si elle ne peut pas être utilisée
+     */
+    private static Plan loadSnapshot(String mapFileName, String timeFileName) {
+        try {
+            long begin = System.nanoTime();
+            Plan plan = PlanSnapshot.load(mapFileName, timeFileName);
+            if (plan != null)
+                Logger.info(String.format("Plan relu depuis %s en %d ms",
+                        PlanSnapshot.file(mapFileName, timeFileName),
+                        (System.nanoTime() - begin) / 1_000_000));
+            return plan;
+        } catch (IOException e) {
+            Logger.info(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return les sources du plan relevées avant de le parser, {@code null} si elles ne peuvent
+     *         pas être lues
+     */
+    private static PlanSnapshot.Sources snapshotSources(String mapFileName, String timeFileName) {
+        try {
+            return PlanSnapshot.sources(mapFileName, timeFileName);
+        } catch (IOException e) {
+            // le fichier absent est signalé par le parsing
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre l'image d'un plan parsé depuis {@code sources}, rien si elles n'ont pas pu être
+     * relevées
+     */
+    private static void saveSnapshot(Plan plan, PlanSnapshot.Sources sources) {
+        if (sources == null)
+            return;
+        try {
+            PlanSnapshot.save(plan, sources);
+        } catch (IOException e) {
+            Logger.error("Impossible d'enregistrer l'image du plan : " + e.getMessage());
+        }
+    }
+
     /**
      * Parse un fichier CSV décrivant un plan et créer le plan associé
      *
@@ -54,13 +201,15 @@ public final class PlanParser {
     private static Plan parsePlan(String fileName)
             throws FileNotFoundException, IncorrectFileFormatException {
         Plan plan = new Plan();
-        File file = new File(fileName);
-        try (Scanner sc = new Scanner(file)) {
-            while (sc.hasNextLine()) {
-                handlePlanLine(plan, sc.nextLine());
+        Path file = Path.of(fileName);
+        CsvReader reader = new CsvReader(file);
+        try (reader) {
+            while (reader.nextLine()) {
+                handlePlanLine(plan, reader);
             }
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            throw new IncorrectFileFormatException(file.getName());
+        } catch (IndexOutOfBoundsException | NumberFormatException | IOException e) {
+            throw new IncorrectFileFormatException(file.getFileName().toString(),
+                    reader.lineNumber());
         }
         return plan;
     }
@@ -69,25 +218,60 @@ public final class PlanParser {
      * Parse une ligne d'un fichier CSV contenant une section de trajet du réseau.
      *
      * @param plan le plan où ajouter la section
-     * @param input la ligne à parser
+     * @param reader le lecteur placé sur la ligne à parser
      * @throws IndexOutOfBoundsException si la ligne est mal formée
      * @throws NumberFormatException si une des données qui doit être un nombre ne l'est pas
      */
-    private static void handlePlanLine(Plan plan, String input)
+    private static void handlePlanLine(Plan plan, CsvReader reader)
             throws IndexOutOfBoundsException, NumberFormatException {
-        String[] data = input.split(";");
-        String startName = data[0].trim();
-        double[] startCoord = Parser.parse2DoubleSep(data[1], ",");
-        String arrivalName = data[2].trim();
-        double[] arrivalCoord = Parser.parse2DoubleSep(data[3], ",");
-        String line = data[4].trim();
-        int[] duration = Parser.parse2IntSep(data[5].trim(), ":");
-        double distance = Double.parseDouble(data[6].trim());
+        String startName = reader.nextString(';');
+        double[] startCoord = {reader.nextDouble(','), reader.nextDouble(';')};
+        String arrivalName = reader.nextString(';');
+        double[] arrivalCoord = {reader.nextDouble(','), reader.nextDouble(';')};
+        String line = reader.nextString(';');
+        int[] duration = {reader.nextInt(':'), reader.nextInt(';')};
+        double distance = reader.nextDouble(';');
         plan.addSection(startName, startCoord, arrivalName, arrivalCoord, line, duration, distance);
     }
 
     /**
-     * Parse un fichier CSV décrivant les horaires de départ et les ajoute au plan
+     * Prépare la hiérarchie de contraction d'un plan : relit celle enregistrée pour le fichier du
+     * plan si elle correspond encore au plan, sinon la construit et l'enregistre
+     *
+     * @param plan le plan chargé depuis {@code mapFileName}
+     * @param mapFileName le nom du fichier du plan
+     * @throws IllegalArgumentException si {@code plan} ou {@code mapFileName} est {@code null}
+     */
+    public static void prepareHierarchy(Plan plan, String mapFileName)
+            throws IllegalArgumentException {
+        if (plan == null || mapFileName == null)
+            throw new IllegalArgumentException();
+        Path file = cacheFile(mapFileName, HIERARCHY_EXTENSION);
+        if (Files.isRegularFile(file)) {
+            try {
+                ContractionHierarchy h = ContractionHierarchy.load(file, plan.getGraph());
+                if (h != null) {
+                    plan.setHierarchy(h);
+                    return;
+                }
+            } catch (IOException e) {
+                Logger.info(e.getMessage());
+            }
+        }
+        long begin = System.nanoTime();
+        ContractionHierarchy h = plan.getHierarchy();
+        Logger.info(String.format("Hiérarchie de contraction construite en %d ms",
+                (System.nanoTime() - begin) / 1_000_000));
+        try {
+            h.save(file);
+        } catch (IOException e) {
+            Logger.error("Impossible d'enregistrer " + file);
+        }
+    }
+
+    /**
+     * Parse un fichier CSV décrivant les horaires de départ et les ajoute au plan. Un fichier d'au
+     * moins {@link #PARALLEL_THRESHOLD} octets est lu sur les threads du pool commun.
      *
      * @param plan le plan où ajouté les horaires
      * @param fileName le nom du fichier à parser
@@ -99,38 +283,87 @@ public final class PlanParser {
             throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
         if (plan == null || fileName == null)
             throw new IllegalArgumentException();
-        File file = new File(fileName);
-        try (Scanner sc = new Scanner(file)) {
-            while (sc.hasNextLine()) {
-                handleTimeLine(plan, sc.nextLine());
+        Path file = Path.of(fileName);
+        try {
+            if (Files.isRegularFile(file) && Files.size(file) >= PARALLEL_THRESHOLD) {
+                ParallelTimeParser.addTimes(plan, file, ForkJoinPool.commonPool());
+                return;
+            }
+        } catch (IOException e) {
+            Logger.info(e.getMessage());
+        }
+        CsvReader reader = new CsvReader(file);
+        try (reader) {
+            while (reader.nextLine()) {
+                handleTimeLine(plan, reader);
             }
             plan.updateSectionsTime();
-        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
-            throw new IncorrectFileFormatException(file.getName());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | IOException e) {
+            throw new IncorrectFileFormatException(file.getFileName().toString(),
+                    reader.lineNumber());
         } catch (UndefinedLineException | StationNotFoundException | DifferentStartException e) {
-            throw new InconsistentDataException(e.getMessage());
+            throw new InconsistentDataException(e.getMessage(), reader.lineNumber());
         }
     }
 
+    /**
+     * Ajoute au plan les horaires d'un fichier, comme {@link #addTimeFromCSV(Plan, String)}, puis
+     * enregistre l'image du plan et de ces horaires pour le prochain chargement
+     *
+     * @param plan un plan parsé depuis {@code mapFileName}, sans horaires
+     * @param mapFileName le nom du fichier du plan
+     * @param timeFileName le nom du fichier des horaires
+     * @throws FileNotFoundException si le fichier des horaires n'a pas été trouvé
+     * @throws IncorrectFileFormatException si le format du fichier est incorrect
+     * @throws InconsistentDataException si les données du fichier ne correspondent pas avec le plan
+     * @see PlanSnapshot
+     */
+    public static void addTimeFromFiles(Plan plan, String mapFileName, String timeFileName)
+            throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
+        if (plan == null || mapFileName == null || timeFileName == null)
+            throw new IllegalArgumentException();
+        PlanSnapshot.Sources sources = snapshotSources(mapFileName, timeFileName);
+        addTimeFromCSV(plan, timeFileName);
+        saveSnapshot(plan, sources);
+    }
+
+    /**
+     * Parse un fichier CSV décrivant les horaires de départ et les ajoute au plan en lisant des
+     * parties du fichier en parallèle. Les horaires ajoutés et les erreurs signalées sont les
+     * mêmes qu'avec {@link #addTimeFromCSV(Plan, String)}.
+     *
+     * @param plan le plan où ajouté les horaires
+     * @param fileName le nom du fichier à parser
+     * @param pool les threads de lecture
+     * @throws FileNotFoundException si le fichier n'a pas été trouvé
+     * @throws IncorrectFileFormatException si le format du fichier est incorrect
+     * @throws InconsistentDataException si les données du fichier ne correspondent pas avec le plan
+     */
+    public static void addTimeFromCSV(Plan plan, String fileName, ForkJoinPool pool)
+            throws FileNotFoundException, IncorrectFileFormatException, InconsistentDataException {
+        if (plan == null || fileName == null || pool == null)
+            throw new IllegalArgumentException();
+        ParallelTimeParser.addTimes(plan, Path.of(fileName), pool);
+    }
+
     /**
      * Parse une ligne d'un fichier CSV contenant un horaire de départ d'une ligne
      *
      * @param plan le plan où ajouter la section
-     * @param input la ligne à parser
+     * @param reader le lecteur placé sur la ligne à parser
      * @throws IndexOutOfBoundsException si la ligne est mal formée
      * @throws NumberFormatException si une des données qui doit être un nombre ne l'est pas
      * @throws UndefinedLineException si la ligne n'existe pas dans la map
      * @throws StartStationNotFoundException si la ligne n'existe pas sur la ligne
      * @throws DifferentStartException s'il y a plusieurs station de départ pour une même ligne
      */
-    private static void handleTimeLine(Plan plan, String input)
+    private static void handleTimeLine(Plan plan, CsvReader reader)
             throws IndexOutOfBoundsException, NumberFormatException, UndefinedLineException,
             StationNotFoundException, DifferentStartException, IllegalArgumentException {
-        String[] data = input.split(";");
-        String line = data[0].trim();
-        String stationName = data[1].trim();
-        int[] time = Parser.parse2IntSep(data[2], ":");
-        String variant = data[3].trim();
+        String line = reader.nextString(';');
+        String stationName = reader.nextString(';');
+        int[] time = {reader.nextInt(':'), reader.nextInt(';')};
+        String variant = reader.nextString(';');
         String ligneVariant = line + " variant " + variant;
         plan.addDepartureTime(ligneVariant, stationName, time);
     }
@@ -0,0 +1,269 @@
+package server.map;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import server.map.Line.DifferentStartException;
+import server.map.Line.StationNotFoundException;
+import util.AtomicFile;
+
+/**
+ * Image binaire d'un plan et de ses horaires, enregistrée à côté du fichier du plan ou dans le
+ * répertoire choisi par {@link PlanParser#setCacheDirectory(Path)} pour ne pas reparser les
+ * fichiers CSV à chaque démarrage. Chaque ensemble de sources a sa propre image : le
+ * plan seul et le plan avec un fichier d'horaires ne se remplacent pas l'un l'autre.
+ *
+ * <p>
+ * L'en-tête retient la taille et la date de modification des fichiers CSV dont le plan est issu,
+ * relevées avant de les parser : une image plus ancienne que ses sources est ignorée, et un
+ * fichier réécrit pendant qu'il est parsé ne peut pas être confondu avec son ancien contenu.
+ * L'image est remplacée de façon atomique et projetée en mémoire pour être relue. Les noms sont
+ * enregistrés dans l'ordre de leurs identifiants, le plan relu a donc le même graphe compilé que
+ * le plan enregistré et sa hiérarchie de contraction peut être relue.
+ */
+public final class PlanSnapshot {
+    /**
+     * L'extension ajoutée au nom du fichier du plan, suivi de celui des horaires s'il y en a, pour
+     * nommer son image
+     */
+    public static final String EXTENSION = ".snapshot";
+    private static final int MAGIC = 0x504c4e31;
+    /**
+     * La taille et la date de modification enregistrées pour un fichier absent
+     */
+    private static final long NO_FILE = -1;
+
+    private PlanSnapshot() {
+    }
+
+    /**
+     * La taille et la date de modification d'un fichier CSV source
+     *
+     * @param name le chemin absolu du fichier, vide pour un fichier absent
+     * @param size la taille du fichier
+     * @param modified la date de modification du fichier en millisecondes
+     */
+    private record Source(String name, long size, long modified) {
+        private static final Source NONE = new Source("", NO_FILE, NO_FILE);
+
+        /**
+         * @param fileName le nom du fichier, {@code null} s'il n'y en a pas
+         * @throws IOException si le fichier ne peut pas être lu
+         */
+        static Source of(String fileName) throws IOException {
+            if (fileName == null)
+                return NONE;
+            Path source = Path.of(fileName);
+            return new Source(source.toAbsolutePath().normalize().toString(), Files.size(source),
+                    Files.getLastModifiedTime(source).toMillis());
+        }
+
+        static Source read(ByteBuffer in) {
+            return new Source(readString(in), in.getLong(), in.getLong());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeString(out, name);
+            out.writeLong(size);
+            out.writeLong(modified);
+        }
+    }
+
+    /**
+     * Les fichiers CSV dont un plan est issu, tels qu'ils étaient avant d'être parsés
+     */
+    public static final class Sources {
+        private final String mapFileName;
+        private final String timeFileName;
+        private final Source map;
+        private final Source time;
+
+        private Sources(String mapFileName, String timeFileName, Source map, Source time) {
+            this.mapFileName = mapFileName;
+            this.timeFileName = timeFileName;
+            this.map = map;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Relève la taille et la date de modification des fichiers d'un plan. À appeler avant de les
+     * parser, pour que l'image enregistrée ensuite ne corresponde qu'au contenu parsé.
+     *
+     * @param mapFileName le nom du fichier CSV du plan
+     * @param timeFileName le nom du fichier CSV des horaires, {@code null} s'il n'y en a pas
+     * @return les sources du plan
+     * @throws IOException si un des fichiers ne peut pas être lu
+     */
+    public static Sources sources(String mapFileName, String timeFileName) throws IOException {
+        return new Sources(mapFileName, timeFileName, Source.of(mapFileName),
+                Source.of(timeFileName));
+    }
+
+    /**
+     * @param mapFileName le nom du fichier du plan
+     * @param timeFileName le nom du fichier des horaires, {@code null} s'il n'y en a pas
+     * @return le fichier de l'image du plan et de ces horaires
+     */
+    public static Path file(String mapFileName, String timeFileName) {
+        if (timeFileName == null)
+            return PlanParser.cacheFile(mapFileName, EXTENSION);
+        return PlanParser.cacheFile(mapFileName,
+                "." + Path.of(timeFileName).getFileName() + EXTENSION);
+    }
+
+    /**
+     * Relit l'image d'un plan si elle est plus récente que ses fichiers sources
+     *
+     * @param mapFileName le nom du fichier CSV du plan
+     * @param timeFileName le nom du fichier CSV des horaires, {@code null} s'il n'y en a pas
+     * @return le plan relu, {@code null} si l'image est absente, ne correspond plus aux fichiers
+     *         sources ou est mal formée
+     * @throws IOException si l'image ou les fichiers sources ne peuvent pas être lus
+     */
+    public static Plan load(String mapFileName, String timeFileName) throws IOException {
+        Path file = file(mapFileName, timeFileName);
+        if (!Files.isRegularFile(file))
+            return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || !Source.read(in).equals(Source.of(mapFileName))
+                    || !Source.read(in).equals(Source.of(timeFileName)))
+                return null;
+            Plan plan = readPlan(in);
+            return in.hasRemaining() ? null : plan;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | StationNotFoundException | DifferentStartException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre l'image d'un plan en remplaçant l'image précédente de façon atomique
+     *
+     * @param plan le plan parsé depuis {@code sources}
+     * @param sources les fichiers du plan, relevés avant de les parser
+     * @throws IOException si l'image ne peut pas être écrite
+     */
+    public static void save(Plan plan, Sources sources) throws IOException {
+        AtomicFile.write(file(sources.mapFileName, sources.timeFileName), out -> {
+            out.writeInt(MAGIC);
+            sources.map.write(out);
+            sources.time.write(out);
+            writePlan(out, plan);
+        });
+    }
+
+    /**
+     * Relit les noms, puis les sections de chaque station dans leur ordre d'ajout, puis les
+     * horaires de chaque ligne
+     */
+    private static Plan readPlan(ByteBuffer in)
+            throws StationNotFoundException, DifferentStartException {
+        Plan plan = new Plan();
+        int stationCount = in.getInt();
+        for (int id = 0; id < stationCount; id++) {
+            if (plan.addStationName(readString(in)) != id)
+                throw new IllegalArgumentException();
+        }
+        int lineCount = in.getInt();
+        for (int id = 0; id < lineCount; id++) {
+            if (plan.addLineName(readString(in)) != id)
+                throw new IllegalArgumentException();
+        }
+        for (int startId = 0; startId < stationCount; startId++) {
+            int sectionCount = in.getInt();
+            for (int i = 0; i < sectionCount; i++) {
+                int arrivalId = in.getInt();
+                plan.addSection(startId, in.getDouble(), in.getDouble(), arrivalId,
+                        in.getDouble(), in.getDouble(), in.getInt(), in.getInt(), in.getInt());
+            }
+        }
+        if (in.get() == 0)
+            return plan;
+        NameDictionary stationNames = plan.stationNames();
+        for (int lineId = 0; lineId < lineCount; lineId++) {
+            int startId = in.getInt();
+            int departureCount = in.getInt();
+            if (startId == NameDictionary.NO_ID)
+                continue;
+            Line line = plan.line(lineId);
+            line.setStart(stationNames.name(startId));
+            for (int i = 0; i < departureCount; i++) {
+                int seconds = in.getInt();
+                line.addDepartureTime(seconds / 3600, seconds % 3600 / 60);
+            }
+        }
+        // invalide aussi les horaires compilés du plan
+        plan.updateSectionsTime();
+        return plan;
+    }
+
+    private static void writePlan(DataOutputStream out, Plan plan) throws IOException {
+        NameDictionary stationNames = plan.stationNames();
+        NameDictionary lineNames = plan.lineNames();
+        out.writeInt(stationNames.size());
+        for (int id = 0; id < stationNames.size(); id++)
+            writeString(out, stationNames.name(id));
+        out.writeInt(lineNames.size());
+        for (int id = 0; id < lineNames.size(); id++)
+            writeString(out, lineNames.name(id));
+        for (int id = 0; id < stationNames.size(); id++) {
+            List<Section> sections = plan.sections(id);
+            out.writeInt(sections.size());
+            for (Section s : sections) {
+                Coordinate start = s.getStart().getCoordinate();
+                Coordinate arrival = s.getArrival().getCoordinate();
+                out.writeInt(stationNames.id(s.getArrival().getName()));
+                out.writeDouble(start.getLatitude());
+                out.writeDouble(start.getLongitude());
+                out.writeDouble(arrival.getLatitude());
+                out.writeDouble(arrival.getLongitude());
+                out.writeInt(lineNames.id(s.getLine()));
+                out.writeInt(s.getDistance());
+                out.writeInt(s.getDuration());
+            }
+        }
+        boolean hasTime = false;
+        for (int id = 0; id < lineNames.size() && !hasTime; id++)
+            hasTime = plan.line(id).getStart() != null;
+        out.writeByte(hasTime ? 1 : 0);
+        if (!hasTime)
+            return;
+        for (int id = 0; id < lineNames.size(); id++) {
+            Line line = plan.line(id);
+            if (line.getStart() == null) {
+                out.writeInt(NameDictionary.NO_ID);
+                out.writeInt(0);
+                continue;
+            }
+            int[] departures = line.getDepartureSeconds();
+            out.writeInt(stationNames.id(line.getStart().getStart().getName()));
+            out.writeInt(departures.length);
+            for (int seconds : departures)
+                out.writeInt(seconds);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,233 @@
+package server.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Horaires d'un plan compilés en parcours pour l'algorithme RAPTOR.
+ *
+ * <p>
+ * Chaque ligne (avec variant) ayant des horaires devient un parcours : la suite ordonnée de ses
+ * arrêts, le décalage de chaque arrêt par rapport au départ de la ligne et la liste triée des
+ * départs de ses trains, répétés sur {@link Timetable#DAYS} jours. Les positions de tous les
+ * parcours sont numérotées à la suite : les positions du parcours {@code r} sont les indices
+ * {@code firstPosition(r)} à {@code lastPosition(r) - 1}.
+ */
+public final class RoutePatterns {
+    /**
+     * Le graphe dont les parcours suivent les arêtes
+     */
+    private final PlanGraph graph;
+    /**
+     * Les positions du parcours {@code r} sont les indices {@code routePositions[r]} à
+     * {@code routePositions[r + 1] - 1}
+     */
+    private final int[] routePositions;
+    /**
+     * Les trains du parcours {@code r} sont les indices {@code routeTrips[r]} à
+     * {@code routeTrips[r + 1] - 1}
+     */
+    private final int[] routeTrips;
+    /**
+     * L'arrêt de chaque position
+     */
+    private final int[] stops;
+    /**
+     * Le parcours de chaque position
+     */
+    private final int[] positionRoutes;
+    /**
+     * Le temps entre le départ du train et son arrivée à chaque position
+     */
+    private final int[] arrivalOffsets;
+    /**
+     * Le temps entre le départ du train et son départ de chaque position, {@code -1} pour la
+     * dernière position d'un parcours
+     */
+    private final int[] departureOffsets;
+    /**
+     * L'arête parcourue depuis chaque position, {@code -1} pour la dernière position d'un
+     * parcours
+     */
+    private final int[] edges;
+    /**
+     * L'horaire de départ de chaque train depuis la première position de son parcours, dans
+     * l'ordre croissant pour un même parcours
+     */
+    private final int[] tripDepartures;
+    /**
+     * Les positions passant par le sommet {@code u} sont {@code nodePositions[i]} pour {@code i}
+     * de {@code nodeOffsets[u]} à {@code nodeOffsets[u + 1] - 1}
+     */
+    private final int[] nodeOffsets;
+    /**
+     * Les positions regroupées par sommet
+     */
+    private final int[] nodePositions;
+
+    /**
+     * Compile les parcours des lignes d'un graphe
+     *
+     * @param graph le graphe compilé du plan
+     */
+    RoutePatterns(PlanGraph graph) {
+        this.graph = graph;
+        List<List<Integer>> lineEdges = new ArrayList<>(graph.lineCount());
+        for (int l = 0; l < graph.lineCount(); l++)
+            lineEdges.add(new ArrayList<>());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (Timetable.offset(graph, e) >= 0)
+                lineEdges.get(graph.lineId(e)).add(e);
+        }
+        int[][] lineDepartures = new int[graph.lineCount()][];
+        List<Integer> lines = new ArrayList<>();
+        int positions = 0;
+        int trips = 0;
+        for (int l = 0; l < graph.lineCount(); l++) {
+            List<Integer> edgesOfLine = lineEdges.get(l);
+            int departures = Timetable.departures(graph, l, lineDepartures).length;
+            if (edgesOfLine.isEmpty() || departures == 0)
+                continue;
+            edgesOfLine.sort(Comparator.comparingInt(e -> Timetable.offset(graph, e)));
+            lines.add(l);
+            positions += edgesOfLine.size() + 1;
+            trips += departures * Timetable.DAYS;
+        }
+
+        routePositions = new int[lines.size() + 1];
+        routeTrips = new int[lines.size() + 1];
+        stops = new int[positions];
+        positionRoutes = new int[positions];
+        arrivalOffsets = new int[positions];
+        departureOffsets = new int[positions];
+        edges = new int[positions];
+        tripDepartures = new int[trips];
+        int p = 0;
+        int t = 0;
+        for (int r = 0; r < lines.size(); r++) {
+            int l = lines.get(r);
+            routePositions[r] = p;
+            routeTrips[r] = t;
+            int arrival = 0;
+            for (int e : lineEdges.get(l)) {
+                int departure = Timetable.offset(graph, e);
+                stops[p] = graph.startStop(e);
+                positionRoutes[p] = r;
+                arrivalOffsets[p] = arrival;
+                departureOffsets[p] = departure;
+                edges[p] = e;
+                arrival = departure + graph.duration(e);
+                p++;
+            }
+            List<Integer> edgesOfLine = lineEdges.get(l);
+            stops[p] = graph.arrivalStop(edgesOfLine.get(edgesOfLine.size() - 1));
+            positionRoutes[p] = r;
+            arrivalOffsets[p] = arrival;
+            departureOffsets[p] = -1;
+            edges[p] = -1;
+            p++;
+            for (int day = 0; day < Timetable.DAYS; day++) {
+                for (int departure : lineDepartures[l])
+                    tripDepartures[t++] = departure + day * Timetable.DAY;
+            }
+        }
+        routePositions[lines.size()] = p;
+        routeTrips[lines.size()] = t;
+
+        nodeOffsets = new int[graph.nodeCount() + 1];
+        for (int i = 0; i < positions; i++)
+            nodeOffsets[graph.stopNode(stops[i]) + 1]++;
+        for (int u = 0; u < graph.nodeCount(); u++)
+            nodeOffsets[u + 1] += nodeOffsets[u];
+        nodePositions = new int[positions];
+        int[] next = Arrays.copyOf(nodeOffsets, graph.nodeCount());
+        for (int i = 0; i < positions; i++)
+            nodePositions[next[graph.stopNode(stops[i])]++] = i;
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return le nombre de parcours
+     */
+    public int routeCount() {
+        return routePositions.length - 1;
+    }
+
+    public int firstPosition(int route) {
+        return routePositions[route];
+    }
+
+    public int lastPosition(int route) {
+        return routePositions[route + 1];
+    }
+
+    public int route(int position) {
+        return positionRoutes[position];
+    }
+
+    public int stop(int position) {
+        return stops[position];
+    }
+
+    public int arrivalOffset(int position) {
+        return arrivalOffsets[position];
+    }
+
+    public int departureOffset(int position) {
+        return departureOffsets[position];
+    }
+
+    public int edge(int position) {
+        return edges[position];
+    }
+
+    public int firstTrip(int route) {
+        return routeTrips[route];
+    }
+
+    public int lastTrip(int route) {
+        return routeTrips[route + 1];
+    }
+
+    public int tripDeparture(int trip) {
+        return tripDepartures[trip];
+    }
+
+    /**
+     * @param position une position qui n'est pas la dernière de son parcours
+     * @param time un horaire en secondes
+     * @return le premier train partant de {@code position} à {@code time} ou après,
+     *         {@code lastTrip(route(position))} s'il n'y en a pas
+     */
+    public int earliestTrip(int position, int time) {
+        int route = positionRoutes[position];
+        int low = routeTrips[route];
+        int high = routeTrips[route + 1];
+        int target = time - departureOffsets[position];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tripDepartures[mid] < target)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    public int firstNodePosition(int node) {
+        return nodeOffsets[node];
+    }
+
+    public int lastNodePosition(int node) {
+        return nodeOffsets[node + 1];
+    }
+
+    public int nodePosition(int index) {
+        return nodePositions[index];
+    }
+}
@@ -1,5 +1,7 @@
 package server.map;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -7,13 +9,27 @@ import java.util.List;
 import java.util.Objects;
 
 /**
- * Classe représentant une portion de trajet entre deux stations
+ * Classe représentant une portion de trajet entre deux stations.
+ *
+ * <p>
+ * Une section ne change pas après sa création : les sections d'un plan sont partagées par toutes
+ * les recherches, qui créent les sections de leurs résultats avec {@link #withDeparture(int)} et
+ * {@link #withLine(String)}.
  */
 public class Section implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 12L;
 
+    /**
+     * Valeur de l'horaire de départ d'une section sans horaire
+     */
+    public static final int NO_TIME = -1;
+    /**
+     * Nombre de secondes dans une journée
+     */
+    private static final int DAY = 24 * 3600;
+
     /**
      * La station de départ
      */
@@ -25,11 +41,16 @@ public class Section implements Serializable {
     /**
      * Le nom de ligne
      */
-    private String line;
+    private final String line;
+    /**
+     * L'horaire de départ tel qu'envoyé aux clients ou {@code null}
+     */
+    private final Time time;
     /**
-     * L'horaire de départ
+     * L'horaire de départ en secondes depuis minuit ou {@code NO_TIME}, recalculé à partir de
+     * {@code time} à la désérialisation
      */
-    private Time time;
+    private transient int departure;
     /**
      * La longueur de la section en mètres
      */
@@ -58,7 +79,8 @@ public class Section implements Serializable {
         this.start = start;
         this.arrival = arrival;
         this.line = line;
-        this.time = null;
+        this.time = time;
+        this.departure = time == null ? NO_TIME : time.toSeconds();
         this.distance = distance;
         this.duration = duration;
     }
@@ -87,8 +109,28 @@ public class Section implements Serializable {
         this(s.start, s.arrival, s.line, s.time, s.distance, s.duration);
     }
 
-    public void setLine(String line) {
-        this.line = line;
+    /**
+     * @param line un nom de ligne
+     * @return une copie de la section sur la ligne {@code line}
+     */
+    public Section withLine(String line) {
+        return new Section(start, arrival, line, time, distance, duration);
+    }
+
+    /**
+     * @param time un horaire de départ ou {@code null}
+     * @return une copie de la section partant à {@code time}
+     */
+    public Section withTime(Time time) {
+        return new Section(start, arrival, line, time, distance, duration);
+    }
+
+    /**
+     * @param departure un horaire de départ en secondes depuis minuit ou {@code NO_TIME}
+     * @return une copie de la section partant à {@code departure}
+     */
+    public Section withDeparture(int departure) {
+        return withTime(departure == NO_TIME ? null : new Time(departure));
     }
 
     public Station getStart() {
@@ -103,22 +145,32 @@ public class Section implements Serializable {
         return line;
     }
 
+    /**
+     * @return l'horaire de départ ou {@code null} s'il n'est pas connu
+     */
     public Time getTime() {
         return time;
     }
 
     /**
-     * @return l'heure d'arrivé ou {@code null} si {@code time} est {@code null}
+     * @return l'heure d'arrivé ou {@code null} si l'horaire de départ n'est pas connu
      */
     public Time getArrivalTime() {
-        return time == null ? null : time.addDuration(duration);
+        return departure == NO_TIME ? null : new Time(getArrivalSeconds());
+    }
+
+    /**
+     * @return l'horaire de départ en secondes depuis minuit ou {@code NO_TIME}
+     */
+    public int getDepartureSeconds() {
+        return departure;
     }
 
-    public void setTime(Time time) {
-        if (time == null)
-            this.time = null;
-        else
-            this.time = new Time(time);
+    /**
+     * @return l'horaire d'arrivée en secondes depuis minuit ou {@code NO_TIME}
+     */
+    public int getArrivalSeconds() {
+        return departure == NO_TIME ? NO_TIME : (departure + duration) % DAY;
     }
 
     /**
@@ -139,16 +191,20 @@ public class Section implements Serializable {
      *         sections est {@code null}
      */
     public int durationTo(Section nextSection) throws IllegalArgumentException {
-        if (nextSection == null)
+        if (nextSection == null || departure == NO_TIME || nextSection.departure == NO_TIME)
             throw new IllegalArgumentException();
         return arrival.durationBetween(nextSection.start)
-                + getArrivalTime().durationTo(nextSection.getArrivalTime());
+                + Math.floorMod(nextSection.getArrivalSeconds() - getArrivalSeconds(), DAY);
     }
 
     public int getDuration() {
         return duration;
     }
 
+    public int getDistance() {
+        return distance;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Section s)
@@ -166,7 +222,8 @@ public class Section implements Serializable {
     @Override
     public String toString() {
         return String.format("%s à %s : %s --> %s (%d m, %s)",
-                line == null ? "à pied" : "ligne " + line, time != null ? time : "no:tm",
+                line == null ? "à pied" : "ligne " + line,
+                time != null ? time : "no:tm",
                 start.getName(), arrival.getName(), distance, new Time(duration));
 
     }
@@ -190,9 +247,7 @@ public class Section implements Serializable {
                 distance += s.distance;
                 duration += s.duration;
             } else {
-                Section toAdd = new Section(start, arrival, line, distance, duration);
-                toAdd.setTime(time);
-                trajet.add(toAdd);
+                trajet.add(new Section(start, arrival, line, time, distance, duration));
                 start = s.start;
                 arrival = s.arrival;
                 line = s.line;
@@ -201,9 +256,13 @@ public class Section implements Serializable {
                 duration = s.duration;
             }
         }
-        Section toAdd = new Section(start, arrival, line, distance, duration);
-        toAdd.setTime(time);
-        trajet.add(toAdd);
+        trajet.add(new Section(start, arrival, line, time, distance, duration));
         return trajet;
     }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        departure = time == null ? NO_TIME : time.toSeconds();
+    }
 }
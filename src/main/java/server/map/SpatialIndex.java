@@ -0,0 +1,214 @@
+package server.map;
+
+import java.util.Arrays;
+
+/**
+ * Index spatial des arrêts d'un plan sous forme de grille uniforme.
+ *
+ * <p>
+ * Chaque case couvre au moins {@code cellSize} mètres dans les deux directions. Les arrêts sont
+ * rangés par case au format CSR : ceux de la case {@code c} sont les indices
+ * {@code cellOffsets[c]} à {@code cellOffsets[c + 1] - 1} de {@code cellStops}. Une recherche ne
+ * parcourt que les cases proches de la coordonnée demandée.
+ */
+public final class SpatialIndex {
+    /**
+     * Le nombre de mètres par degré de latitude, avec le rayon de {@link Coordinate}
+     */
+    private static final double METERS_PER_DEGREE = Math.toRadians(6_371_000);
+    /**
+     * Latitude maximale prise en compte pour la largeur des cases, pour éviter une division par
+     * zéro près des pôles
+     */
+    private static final double MAX_LATITUDE = 89;
+    /**
+     * Nombre maximal de cases par arrêt, au-delà duquel les cases sont agrandies
+     */
+    private static final int CELLS_PER_STOP = 4;
+    /**
+     * Les arrêts indexés
+     */
+    private final Station[] stops;
+    private final double minLatitude;
+    private final double minLongitude;
+    /**
+     * La hauteur et la largeur d'une case en degrés
+     */
+    private final double latitudeStep;
+    private final double longitudeStep;
+    /**
+     * La plus grande latitude en valeur absolue, où les cases sont les moins larges
+     */
+    private final double maxAbsLatitude;
+    private final int rows;
+    private final int columns;
+    private final int[] cellOffsets;
+    private final int[] cellStops;
+
+    /**
+     * Construit la grille des arrêts
+     *
+     * @param stops les arrêts à indexer, chacun identifié par sa position
+     * @param cellSize la taille minimale d'une case en mètres
+     */
+    SpatialIndex(Station[] stops, int cellSize) {
+        this.stops = stops;
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        for (Station s : stops) {
+            Coordinate c = s.getCoordinate();
+            minLat = Math.min(minLat, c.getLatitude());
+            maxLat = Math.max(maxLat, c.getLatitude());
+            minLon = Math.min(minLon, c.getLongitude());
+            maxLon = Math.max(maxLon, c.getLongitude());
+        }
+        if (stops.length == 0) {
+            minLat = maxLat = minLon = maxLon = 0;
+        }
+        minLatitude = minLat;
+        minLongitude = minLon;
+        maxAbsLatitude = Math.min(MAX_LATITUDE, Math.max(Math.abs(minLat), Math.abs(maxLat)));
+        double size = cellSize;
+        int r;
+        int c;
+        while (true) {
+            double latStep = size / METERS_PER_DEGREE;
+            double lonStep = latStep / Math.cos(Math.toRadians(maxAbsLatitude));
+            r = (int) ((maxLat - minLat) / latStep) + 1;
+            c = (int) ((maxLon - minLon) / lonStep) + 1;
+            if ((long) r * c <= (long) CELLS_PER_STOP * stops.length + 1)
+                break;
+            size *= 2;
+        }
+        latitudeStep = size / METERS_PER_DEGREE;
+        longitudeStep = latitudeStep / Math.cos(Math.toRadians(maxAbsLatitude));
+        rows = r;
+        columns = c;
+
+        int[] cells = new int[stops.length];
+        cellOffsets = new int[rows * columns + 1];
+        for (int i = 0; i < stops.length; i++) {
+            Coordinate coord = stops[i].getCoordinate();
+            cells[i] = row(coord.getLatitude()) * columns + column(coord.getLongitude());
+            cellOffsets[cells[i] + 1]++;
+        }
+        for (int i = 0; i < rows * columns; i++)
+            cellOffsets[i + 1] += cellOffsets[i];
+        cellStops = new int[stops.length];
+        int[] next = Arrays.copyOf(cellOffsets, rows * columns);
+        for (int i = 0; i < stops.length; i++)
+            cellStops[next[cells[i]]++] = i;
+    }
+
+    private int row(double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude - minLatitude)
+                / latitudeStep)));
+    }
+
+    private int column(double longitude) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((longitude - minLongitude)
+                / longitudeStep)));
+    }
+
+    /**
+     * @param coordinate une coordonnée
+     * @param maxDistance la distance maximale en mètres
+     * @return les arrêts à moins de {@code maxDistance} mètres de {@code coordinate}
+     */
+    public int[] range(Coordinate coordinate, int maxDistance) {
+        if (stops.length == 0)
+            return new int[0];
+        int[] found = new int[8];
+        int count = 0;
+        double latitude = coordinate.getLatitude();
+        // 1 % de marge pour couvrir l'écart entre l'arc et sa projection sur la grille
+        double dLat = 1.01 * maxDistance / METERS_PER_DEGREE;
+        double dLon = dLat / Math.cos(Math.toRadians(Math.min(MAX_LATITUDE,
+                Math.abs(latitude) + dLat)));
+        int lastRow = row(latitude + dLat);
+        int firstColumn = column(coordinate.getLongitude() - dLon);
+        int lastColumn = column(coordinate.getLongitude() + dLon);
+        for (int i = row(latitude - dLat); i <= lastRow; i++) {
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                int cell = i * columns + j;
+                for (int k = cellOffsets[cell]; k < cellOffsets[cell + 1]; k++) {
+                    int s = cellStops[k];
+                    if (coordinate.getDistance(stops[s].getCoordinate()) < maxDistance) {
+                        if (count == found.length)
+                            found = Arrays.copyOf(found, count * 2);
+                        found[count++] = s;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @param coordinate une coordonnée
+     * @param k le nombre d'arrêts cherchés
+     * @return les {@code k} arrêts les plus proches de {@code coordinate}, du plus proche au plus
+     *         éloigné, ou tous les arrêts s'il y en a moins
+     */
+    public int[] nearest(Coordinate coordinate, int k) {
+        int wanted = Math.min(k, stops.length);
+        if (wanted <= 0)
+            return new int[0];
+        // Arrêts trouvés, triés par distance, chacun codé avec sa distance dans un long
+        long[] best = new long[wanted];
+        int count = 0;
+        int centerRow = row(coordinate.getLatitude());
+        int centerColumn = column(coordinate.getLongitude());
+        double cosine = Math.cos(Math.toRadians(Math.min(MAX_LATITUDE,
+                Math.max(maxAbsLatitude, Math.abs(coordinate.getLatitude())))));
+        // Distance minimale par anneau entre la coordonnée et les cases non parcourues
+        double ringSize = 0.99 * Math.min(latitudeStep, longitudeStep * cosine) * METERS_PER_DEGREE;
+        int maxRing = Math.max(Math.max(centerRow, rows - 1 - centerRow),
+                Math.max(centerColumn, columns - 1 - centerColumn));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int i = centerRow - ring; i <= centerRow + ring; i++) {
+                if (i < 0 || i >= rows)
+                    continue;
+                boolean edgeRow = i == centerRow - ring || i == centerRow + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int j = centerColumn - ring; j <= centerColumn + ring; j += step) {
+                    if (j < 0 || j >= columns)
+                        continue;
+                    int cell = i * columns + j;
+                    for (int c = cellOffsets[cell]; c < cellOffsets[cell + 1]; c++) {
+                        int s = cellStops[c];
+                        long d = coordinate.getDistance(stops[s].getCoordinate());
+                        long entry = d << 32 | s;
+                        if (count < wanted) {
+                            best[count++] = entry;
+                            insert(best, count - 1);
+                        } else if (entry < best[wanted - 1]) {
+                            best[wanted - 1] = entry;
+                            insert(best, wanted - 1);
+                        }
+                    }
+                }
+            }
+            if (count == wanted && (best[wanted - 1] >>> 32) <= ring * ringSize)
+                break;
+        }
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++)
+            result[i] = (int) best[i];
+        return result;
+    }
+
+    /**
+     * Remonte l'élément {@code i} à sa place dans le tableau trié {@code sorted}
+     */
+    private static void insert(long[] sorted, int i) {
+        long value = sorted[i];
+        while (i > 0 && sorted[i - 1] > value) {
+            sorted[i] = sorted[i - 1];
+            i--;
+        }
+        sorted[i] = value;
+    }
+}
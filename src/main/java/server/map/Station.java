@@ -23,7 +23,7 @@ public class Station implements Serializable {
     /**
      * Vitesse de marche à pied en mètre par seconde
      */
-    private static final double WALKING_SPEED = 1.2;
+    static final double WALKING_SPEED = 1.2;
 
     /**
      * @param name le nom de la station
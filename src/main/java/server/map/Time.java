@@ -79,7 +79,7 @@ public record Time(int hour, int minute, int second) implements Comparable<Time>
     /**
      * @return le nombre de secondes depuis minuit
      */
-    private int toSeconds() {
+    public int toSeconds() {
         return second + minute * 60 + hour * 3600;
     }
 
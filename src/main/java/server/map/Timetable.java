@@ -0,0 +1,188 @@
+package server.map;
+
+import java.util.Arrays;
+
+/**
+ * Horaires d'un plan compilés en un tableau de connexions élémentaires triées par horaire de
+ * départ, pour l'algorithme Connection Scan.
+ *
+ * <p>
+ * Une connexion est le passage d'un train sur une section de ligne : elle part d'un arrêt à un
+ * horaire et arrive à l'arrêt suivant à un autre. Les horaires sont en secondes depuis minuit le
+ * premier jour et les connexions sont répétées sur {@code DAYS} jours, ce qui permet d'attendre
+ * un départ du lendemain sans calcul modulo pendant le parcours.
+ */
+public final class Timetable {
+    /**
+     * Nombre de jours sur lesquels les connexions sont répétées
+     */
+    public static final int DAYS = 3;
+    /**
+     * Nombre de secondes dans une journée
+     */
+    public static final int DAY = 24 * 3600;
+    /**
+     * Nombre de bits de la clé de tri réservés à l'indice d'une connexion du premier jour
+     */
+    private static final int INDEX_BITS = 22;
+    /**
+     * Nombre de bits de la clé de tri réservés à la durée d'une connexion
+     */
+    private static final int DURATION_BITS = 20;
+    /**
+     * Le graphe dont les connexions parcourent les arêtes
+     */
+    private final PlanGraph graph;
+    /**
+     * L'horaire de départ de chaque connexion, dans l'ordre croissant
+     */
+    private final int[] departures;
+    /**
+     * L'horaire d'arrivée de chaque connexion
+     */
+    private final int[] arrivals;
+    /**
+     * L'arête du graphe parcourue par chaque connexion
+     */
+    private final int[] edges;
+    /**
+     * L'arrêt de départ de chaque connexion
+     */
+    private final int[] startStops;
+    /**
+     * L'arrêt d'arrivée de chaque connexion
+     */
+    private final int[] arrivalStops;
+
+    /**
+     * Compile les horaires des lignes d'un graphe
+     *
+     * @param graph le graphe compilé du plan
+     * @throws IllegalStateException s'il y a trop de connexions pour les trier
+     */
+    Timetable(PlanGraph graph) throws IllegalStateException {
+        this.graph = graph;
+        int[][] lineDepartures = new int[graph.lineCount()][];
+        int count = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (offset(graph, e) >= 0)
+                count += departures(graph, graph.lineId(e), lineDepartures).length;
+        }
+        if (count >= 1 << INDEX_BITS)
+            throw new IllegalStateException();
+
+        int[] baseDepartures = new int[count];
+        int[] baseEdges = new int[count];
+        int c = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int offset = offset(graph, e);
+            if (offset < 0)
+                continue;
+            for (int departure : departures(graph, graph.lineId(e), lineDepartures)) {
+                baseDepartures[c] = departure + offset;
+                baseEdges[c] = e;
+                c++;
+            }
+        }
+
+        long[] keys = new long[count * DAYS];
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < count; i++) {
+                long departure = baseDepartures[i] + (long) day * DAY;
+                long duration = graph.duration(baseEdges[i]);
+                keys[day * count + i] = departure << (DURATION_BITS + INDEX_BITS)
+                        | duration << INDEX_BITS | i;
+            }
+        }
+        Arrays.sort(keys);
+        departures = new int[keys.length];
+        arrivals = new int[keys.length];
+        edges = new int[keys.length];
+        startStops = new int[keys.length];
+        arrivalStops = new int[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            int i = (int) (keys[k] & ((1 << INDEX_BITS) - 1));
+            departures[k] = (int) (keys[k] >>> (DURATION_BITS + INDEX_BITS));
+            edges[k] = baseEdges[i];
+            arrivals[k] = departures[k] + graph.duration(edges[k]);
+            startStops[k] = graph.startStop(edges[k]);
+            arrivalStops[k] = graph.arrivalStop(edges[k]);
+        }
+    }
+
+    /**
+     * @param graph un graphe
+     * @param edge une arête du graphe
+     * @return le temps entre le départ de la ligne et le départ de l'arête en secondes ou
+     *         {@code -1} si l'arête n'a pas d'horaire
+     */
+    static int offset(PlanGraph graph, int edge) {
+        int line = graph.lineId(edge);
+        if (line == PlanGraph.NO_LINE)
+            return -1;
+        Integer duration = graph.line(line).getDurationFromStart(graph.section(edge));
+        return duration == null ? -1 : duration - graph.duration(edge);
+    }
+
+    /**
+     * @param graph un graphe
+     * @param line une ligne du graphe
+     * @param cache les horaires déjà convertis de chaque ligne
+     * @return les horaires de départ de la ligne en secondes depuis minuit
+     */
+    static int[] departures(PlanGraph graph, int line, int[][] cache) {
+        if (cache[line] == null) {
+            cache[line] = graph.line(line).getDepartureSeconds();
+        }
+        return cache[line];
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return le nombre de connexions
+     */
+    public int size() {
+        return departures.length;
+    }
+
+    /**
+     * @param time un horaire en secondes
+     * @return l'indice de la première connexion partant à {@code time} ou après, {@code size()}
+     *         s'il n'y en a pas
+     */
+    public int firstDepartureAfter(int time) {
+        int low = 0;
+        int high = departures.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] < time)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    public int departure(int connection) {
+        return departures[connection];
+    }
+
+    public int arrival(int connection) {
+        return arrivals[connection];
+    }
+
+    public int edge(int connection) {
+        return edges[connection];
+    }
+
+    public int startStop(int connection) {
+        return startStops[connection];
+    }
+
+    public int arrivalStop(int connection) {
+        return arrivalStops[connection];
+    }
+}
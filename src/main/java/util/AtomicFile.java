@@ -0,0 +1,62 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Écriture d'un fichier par remplacement atomique.
+ *
+ * <p>
+ * Le contenu est écrit dans un fichier temporaire du même répertoire, forcé sur le disque, puis
+ * renommé à la place du fichier. Un lecteur, même s'il projette le fichier en mémoire, voit donc
+ * l'ancien contenu ou le nouveau, jamais un fichier à moitié écrit ou tronqué.
+ */
+public final class AtomicFile {
+    private AtomicFile() {}
+
+    /**
+     * Écrit le contenu d'un fichier
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * @param out le flux du fichier temporaire
+         * @throws IOException si le contenu ne peut pas être écrit
+         */
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Remplace le contenu de {@code file} par celui écrit par {@code content}. Si l'écriture
+     * échoue, {@code file} est inchangé et le fichier temporaire est supprimé.
+     *
+     * @param file le fichier à écrire
+     * @param content le contenu à écrire
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public static void write(Path file, Content content) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path tmp =
+                Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)));
+                content.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
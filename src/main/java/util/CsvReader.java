@@ -0,0 +1,304 @@
+package util;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Lecteur de fichier CSV en UTF-8 qui découpe les lignes directement dans son tampon d'octets.
+ *
+ * <p>
+ * {@link #nextLine()} passe à la ligne suivante, puis chaque appel à {@code nextString},
+ * {@code nextInt} ou {@code nextDouble} lit le champ suivant de la ligne jusqu'au séparateur
+ * donné ou la fin de la ligne. Les espaces autour d'un champ sont ignorés. Les nombres sont lus
+ * sans créer de chaîne intermédiaire, seuls les champs textuels en créent une.
+ */
+public final class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Les puissances de 10 représentables exactement par un {@code double}
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+            1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * Le plus grand entier à partir duquel tous les entiers ne sont plus représentables
+     * exactement par un {@code double}
+     */
+    private static final long MAX_EXACT = 1L << 53;
+
+    private final FileChannel channel;
+    /**
+     * Le tampon de lecture, seules les {@code limit} premières cases sont lues du fichier
+     */
+    private byte[] buffer;
+    private int limit;
+    /**
+     * Le début de la ligne suivante dans {@code buffer}
+     */
+    private int next;
+    /**
+     * La fin de la ligne courante (sans le retour à la ligne) dans {@code buffer}
+     */
+    private int lineEnd;
+    /**
+     * Le début du champ suivant de la ligne courante, après {@code lineEnd} si tous les champs
+     * ont été lus
+     */
+    private int position;
+    /**
+     * Le nombre d'octets qu'il reste à lire du fichier
+     */
+    private long remaining;
+    private boolean endOfFile;
+    private int lineNumber;
+
+    /**
+     * @param file le fichier à lire
+     * @throws FileNotFoundException si le fichier n'existe pas, est un répertoire ou ne peut pas
+     *         être ouvert
+     */
+    public CsvReader(Path file) throws FileNotFoundException {
+        this(file, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Crée un lecteur d'une partie d'un fichier, découpée par {@link #split(Path, int)}
+     *
+     * @param file le fichier à lire
+     * @param from la position du premier octet à lire, au début d'une ligne
+     * @param to la position qui suit le dernier octet à lire, au début d'une ligne ou à la fin
+     *        du fichier
+     * @throws FileNotFoundException si le fichier n'existe pas, est un répertoire ou ne peut pas
+     *         être ouvert
+     */
+    public CsvReader(Path file, long from, long to) throws FileNotFoundException {
+        if (!Files.isRegularFile(file))
+            throw new FileNotFoundException(file.toString());
+        try {
+            channel = FileChannel.open(file);
+            channel.position(from);
+        } catch (IOException e) {
+            throw new FileNotFoundException(file.toString());
+        }
+        buffer = new byte[BUFFER_SIZE];
+        remaining = to - from;
+    }
+
+    /**
+     * Découpe un fichier en parties de tailles proches qui commencent chacune au début d'une ligne
+     *
+     * @param file le fichier à découper
+     * @param parts le nombre de parties souhaité
+     * @return les positions de début des parties suivies de la taille du fichier, il peut y avoir
+     *         moins de parties que demandé
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static long[] split(Path file, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            long[] bounds = new long[parts + 1];
+            int count = 1;
+            ByteBuffer window = ByteBuffer.allocate(4096);
+            for (int k = 1; k < parts; k++) {
+                long position = Math.max(size * k / parts, bounds[count - 1] + 1) - 1;
+                long start = size;
+                while (start == size && position < size) {
+                    window.clear();
+                    int read = channel.read(window, position);
+                    if (read < 0)
+                        break;
+                    for (int i = 0; i < read; i++) {
+                        if (window.get(i) == '\n') {
+                            start = position + i + 1;
+                            break;
+                        }
+                    }
+                    position += read;
+                }
+                if (start >= size)
+                    break;
+                bounds[count++] = start;
+            }
+            bounds[count++] = size;
+            return Arrays.copyOf(bounds, count);
+        }
+    }
+
+    /**
+     * Passe à la ligne suivante
+     *
+     * @return {@code false} s'il n'y a plus de ligne
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public boolean nextLine() throws IOException {
+        int start = next;
+        int i = start;
+        while (true) {
+            while (i < limit && buffer[i] != '\n')
+                i++;
+            if (i < limit)
+                break;
+            if (endOfFile) {
+                if (start == limit)
+                    return false;
+                break;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                i -= start;
+                start = 0;
+            }
+            if (limit == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            int space = (int) Math.min(buffer.length - limit, remaining);
+            int read = space == 0 ? -1 : channel.read(ByteBuffer.wrap(buffer, limit, space));
+            if (read < 0) {
+                endOfFile = true;
+            } else {
+                limit += read;
+                remaining -= read;
+            }
+        }
+        next = i < limit ? i + 1 : i;
+        lineEnd = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+        position = start;
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * @return le numéro de la ligne courante, à partir de 1
+     */
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param separator le séparateur qui termine le champ
+     * @return le champ suivant de la ligne courante
+     * @throws IndexOutOfBoundsException si tous les champs de la ligne ont été lus
+     */
+    public String nextString(char separator) throws IndexOutOfBoundsException {
+        int end = fieldEnd(separator);
+        int from = skipSpaces(position, end);
+        int to = trimSpaces(from, end);
+        position = end + 1;
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param separator le séparateur qui termine le champ
+     * @return le champ suivant de la ligne courante lu comme un entier
+     * @throws IndexOutOfBoundsException si tous les champs de la ligne ont été lus
+     * @throws NumberFormatException si le champ n'est pas un entier
+     */
+    public int nextInt(char separator) throws IndexOutOfBoundsException, NumberFormatException {
+        int end = fieldEnd(separator);
+        int from = skipSpaces(position, end);
+        int to = trimSpaces(from, end);
+        position = end + 1;
+        boolean negative = from < to && buffer[from] == '-';
+        int i = negative || from < to && buffer[from] == '+' ? from + 1 : from;
+        if (i == to)
+            throw numberFormat(from, to);
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw numberFormat(from, to);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1)
+                throw numberFormat(from, to);
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE)
+            throw numberFormat(from, to);
+        return (int) value;
+    }
+
+    /**
+     * Lit le champ suivant comme un {@code double}. Un nombre décimal d'au plus 15 ou 16 chiffres
+     * significatifs est lu directement depuis le tampon, les autres écritures sont confiées à
+     * {@link Double#parseDouble(String)} : le résultat est le même dans les deux cas.
+     *
+     * @param separator le séparateur qui termine le champ
+     * @return le champ suivant de la ligne courante lu comme un {@code double}
+     * @throws IndexOutOfBoundsException si tous les champs de la ligne ont été lus
+     * @throws NumberFormatException si le champ n'est pas un nombre
+     */
+    public double nextDouble(char separator)
+            throws IndexOutOfBoundsException, NumberFormatException {
+        int end = fieldEnd(separator);
+        int from = skipSpaces(position, end);
+        int to = trimSpaces(from, end);
+        position = end + 1;
+        boolean negative = from < to && buffer[from] == '-';
+        int i = negative || from < to && buffer[from] == '+' ? from + 1 : from;
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < to; i++) {
+            byte b = buffer[i];
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || mantissa >= MAX_EXACT / 10)
+                break;
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (decimals >= 0)
+                decimals++;
+        }
+        if (i < to || digits == 0 || decimals >= POWERS_OF_TEN.length)
+            return Double.parseDouble(new String(buffer, from, to - from,
+                    StandardCharsets.ISO_8859_1));
+        // le quotient de deux double exacts est correctement arrondi
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return la fin du champ commençant à {@code position}
+     * @throws IndexOutOfBoundsException si tous les champs de la ligne ont été lus
+     */
+    private int fieldEnd(char separator) throws IndexOutOfBoundsException {
+        if (position > lineEnd)
+            throw new IndexOutOfBoundsException(
+                    String.format("Champ manquant à la ligne %d", lineNumber));
+        int i = position;
+        while (i < lineEnd && buffer[i] != separator)
+            i++;
+        return i;
+    }
+
+    private int skipSpaces(int from, int to) {
+        while (from < to && (buffer[from] & 0xff) <= ' ')
+            from++;
+        return from;
+    }
+
+    private int trimSpaces(int from, int to) {
+        while (to > from && (buffer[to - 1] & 0xff) <= ' ')
+            to--;
+        return to;
+    }
+
+    private NumberFormatException numberFormat(int from, int to) {
+        return new NumberFormatException(String.format("\"%s\" à la ligne %d",
+                new String(buffer, from, to - from, StandardCharsets.UTF_8), lineNumber));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
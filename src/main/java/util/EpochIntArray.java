@@ -0,0 +1,86 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Tableau d'entiers réutilisable d'un calcul à l'autre sans être parcouru entièrement. Chaque
+ * case retient l'époque de sa dernière écriture : {@link #reset(int)} change d'époque, et une case
+ * qui n'a pas été écrite depuis vaut la valeur par défaut. Un calcul ne touche donc que les cases
+ * qu'il utilise.
+ */
+public final class EpochIntArray {
+    /**
+     * La valeur des cases non écrites depuis le dernier {@link #reset(int)}
+     */
+    private final int defaultValue;
+    private int[] values;
+    /**
+     * L'époque de la dernière écriture de chaque case
+     */
+    private int[] epochs;
+    /**
+     * L'époque en cours, toujours strictement positive
+     */
+    private int epoch;
+
+    /**
+     * @param capacity le nombre de cases
+     * @param defaultValue la valeur des cases non écrites
+     * @throws IllegalArgumentException si {@code capacity} est négatif
+     */
+    public EpochIntArray(int capacity, int defaultValue) throws IllegalArgumentException {
+        if (capacity < 0)
+            throw new IllegalArgumentException();
+        this.defaultValue = defaultValue;
+        values = new int[capacity];
+        epochs = new int[capacity];
+        epoch = 1;
+    }
+
+    /**
+     * Remet toutes les cases à la valeur par défaut en changeant d'époque, et agrandit le tableau
+     * si nécessaire
+     *
+     * @param capacity le nombre minimal de cases
+     */
+    public void reset(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, capacity);
+            epochs = Arrays.copyOf(epochs, capacity);
+        }
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(epochs, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    /**
+     * @return le nombre de cases
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * @param i une case
+     * @return {@code true} si la case a été écrite depuis le dernier {@link #reset(int)}
+     */
+    public boolean isSet(int i) {
+        return epochs[i] == epoch;
+    }
+
+    /**
+     * @param i une case
+     * @return la valeur de la case, ou la valeur par défaut si elle n'a pas été écrite depuis le
+     *         dernier {@link #reset(int)}
+     */
+    public int get(int i) {
+        return epochs[i] == epoch ? values[i] : defaultValue;
+    }
+
+    public void set(int i, int value) {
+        values[i] = value;
+        epochs[i] = epoch;
+    }
+}
@@ -0,0 +1,194 @@
+package util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Tas binaire minimum sur des identifiants entiers denses ({@code 0} à {@code capacity - 1}),
+ * chacun associé à une clé entière. La position de chaque identifiant dans le tas est conservée,
+ * ce qui permet de diminuer une clé en O(log n) sans parcourir le tas. Les identifiants ne sont
+ * insérés qu'au moment où ils reçoivent une clé.
+ */
+public final class IndexedHeap {
+    /**
+     * Position d'un identifiant absent du tas
+     */
+    private static final int ABSENT = -1;
+    /**
+     * Les identifiants rangés en tas
+     */
+    private int[] heap;
+    /**
+     * La clé de chaque identifiant
+     */
+    private int[] keys;
+    /**
+     * La position de chaque identifiant dans {@code heap} ou {@code ABSENT}
+     */
+    private int[] positions;
+    /**
+     * Le nombre d'identifiants dans le tas
+     */
+    private int size;
+
+    /**
+     * @param capacity le nombre d'identifiants possibles
+     * @throws IllegalArgumentException si {@code capacity} est négatif
+     */
+    public IndexedHeap(int capacity) throws IllegalArgumentException {
+        if (capacity < 0)
+            throw new IllegalArgumentException();
+        heap = new int[capacity];
+        keys = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+        size = 0;
+    }
+
+    /**
+     * @return le nombre d'identifiants possibles
+     */
+    public int capacity() {
+        return positions.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param id un identifiant
+     * @return {@code true} si {@code id} est dans le tas
+     */
+    public boolean contains(int id) {
+        return positions[id] != ABSENT;
+    }
+
+    /**
+     * Insère {@code id} avec la clé {@code key}, ou diminue sa clé s'il est déjà dans le tas. Ne
+     * fait rien si {@code id} est déjà dans le tas avec une clé inférieure ou égale.
+     *
+     * @param id un identifiant
+     * @param key la clé
+     */
+    public void push(int id, int key) {
+        int pos = positions[id];
+        if (pos == ABSENT) {
+            pos = size++;
+            heap[pos] = id;
+            positions[id] = pos;
+        } else if (keys[id] <= key) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(pos);
+    }
+
+    /**
+     * @return la plus petite clé du tas
+     * @throws NoSuchElementException si le tas est vide
+     */
+    public int peekKey() throws NoSuchElementException {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return keys[heap[0]];
+    }
+
+    /**
+     * Retire l'identifiant de plus petite clé
+     *
+     * @return l'identifiant retiré
+     * @throws NoSuchElementException si le tas est vide
+     */
+    public int poll() throws NoSuchElementException {
+        if (size == 0)
+            throw new NoSuchElementException();
+        int min = heap[0];
+        positions[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Vide le tas en ne parcourant que les identifiants encore présents
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[heap[i]] = ABSENT;
+        size = 0;
+    }
+
+    /**
+     * Agrandit le tas pour accepter au moins {@code capacity} identifiants
+     *
+     * @param capacity le nombre d'identifiants possibles
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length)
+            return;
+        int old = positions.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, old, capacity, ABSENT);
+    }
+
+    /**
+     * Remonte l'élément en position {@code pos} tant que sa clé est plus petite que celle de son
+     * parent
+     *
+     * @param pos une position dans le tas
+     */
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        int key = keys[id];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int p = heap[parent];
+            if (keys[p] <= key)
+                break;
+            heap[pos] = p;
+            positions[p] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+    /**
+     * Descend l'élément en position {@code pos} tant que sa clé est plus grande que celle de l'un
+     * de ses enfants
+     *
+     * @param pos une position dans le tas
+     */
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        int key = keys[id];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (key <= keys[c])
+                break;
+            heap[pos] = c;
+            positions[c] = pos;
+            pos = child;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+}
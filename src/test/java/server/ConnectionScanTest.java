@@ -0,0 +1,105 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.Dijkstra.PathNotFoundException;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Section;
+import server.map.Time;
+
+class ConnectionScanTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA = "map_data";
+
+    private static final String MAP_DATA_ALL = "map_data_fix_dist_time";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static Plan map;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+    }
+
+    /**
+     * @return le nombre de secondes entre {@code depart} et l'arrivée du trajet
+     */
+    private static int travelTime(List<Section> path, Time depart) {
+        int total = 0;
+        Time now = depart;
+        for (Section s : path) {
+            total += now.durationTo(s.getTime()) + s.getDuration();
+            now = s.getTime().addDuration(s.getDuration());
+        }
+        return total;
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nullValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConnectionScan(map, "Nation", "Bercy", null), "Horaire null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConnectionScan(null, "Nation", "Bercy", new Time(8, 0)), "Plan null");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void noTimetable() throws Exception {
+        Plan plan = PlanParser.planFromSectionCSV(getPath(MAP_DATA));
+        assertThrows(PathNotFoundException.class,
+                () -> new ConnectionScan(plan, "Lourmel", "Commerce", new Time(8, 0)).getPath(),
+                "Pas d'horaire");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void contiguousPath() throws Exception {
+        List<Section> path =
+                new ConnectionScan(map, "Gare du Nord", "Gare de Lyon", new Time(13, 50, 32))
+                        .getPath();
+        assertEquals("Gare du Nord", path.get(0).getStart().getName(), "Départ");
+        assertEquals("Gare de Lyon", path.get(path.size() - 1).getArrival().getName(), "Arrivée");
+        for (int i = 1; i < path.size(); i++)
+            assertEquals(path.get(i - 1).getArrival().getName(), path.get(i).getStart().getName(),
+                    "Sections consécutives");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void waitUntilNextDay() throws Exception {
+        Time depart = new Time(23, 59);
+        List<Section> path = new ConnectionScan(map, "Lourmel", "Commerce", depart).getPath();
+        assertTrue(travelTime(path, depart) > 0, "Trajet trouvé le lendemain");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void notSlowerThanDijkstra() throws Exception {
+        String[][] queries = {{"Wagram", "Fort d'Aubervilliers"},
+                {"Cambronne", "Sèvres - Babylone"}, {"Saint-Philippe du Roule", "Bercy"},
+                {"Maison Blanche", "Pigalle"}};
+        Time depart = new Time(7, 22);
+        for (String[] q : queries) {
+            int csa = travelTime(new ConnectionScan(map, q[0], q[1], depart).getPath(), depart);
+            List<Section> path = new Dijkstra(map, q[0], q[1], depart, false, false).getPath();
+            int dijkstra = travelTime(path, depart);
+            assertTrue(csa <= dijkstra, String.format("%s to %s", q[0], q[1]));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.map.ContractionHierarchy;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Section;
+import server.map.Time;
+
+class ContractionSearchTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA = "map_data";
+
+    private static final String MAP_DATA_ALL = "map_data_fix_dist_time";
+
+    private static Plan map;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+    }
+
+    private static int distance(List<Section> path) {
+        return path.stream().mapToInt(Section::getDistance).sum();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nullValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ContractionSearch(null, "Nation", "Bercy", null), "Plan null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new ContractionSearch(map, null, "Bercy", null), "Départ null");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameStation() throws Exception {
+        assertTrue(new ContractionSearch(map, "Nation", "Nation", null).getPath().isEmpty(),
+                "Départ et arrivée identiques");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void contiguousPath() throws Exception {
+        List<Section> path =
+                new ContractionSearch(map, "Lourmel", "Pigalle", new Time(8, 0)).getPath();
+        assertEquals("Lourmel", path.get(0).getStart().getName(), "Station de départ");
+        assertEquals("Pigalle", path.get(path.size() - 1).getArrival().getName(),
+                "Station d'arrivée");
+        for (int i = 1; i < path.size(); i++)
+            assertEquals(path.get(i - 1).getArrival().getName(),
+                    path.get(i).getStart().getName(), "Sections consécutives");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void notLongerThanDijkstra() throws Exception {
+        String[][] queries = {{"Gare du Nord", "Gare de Lyon"}, {"Cambronne", "Sèvres - Babylone"},
+                {"Saint-Philippe du Roule", "Bercy"}, {"Maison Blanche", "Pigalle"},
+                {"Wagram", "Fort d'Aubervilliers"}};
+        for (String[] q : queries) {
+            List<Section> ch = new ContractionSearch(map, q[0], q[1], null).getPath();
+            List<Section> dijkstra = new Dijkstra(map, q[0], q[1], null, true, false).getPath();
+            assertTrue(distance(ch) <= distance(dijkstra), String.format("%s to %s", q[0], q[1]));
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void saveAndLoad() throws Exception {
+        Path file = Files.createTempFile("plan", PlanParser.HIERARCHY_EXTENSION);
+        file.toFile().deleteOnExit();
+        ContractionHierarchy hierarchy = map.getHierarchy();
+        hierarchy.save(file);
+        ContractionHierarchy loaded = ContractionHierarchy.load(file, map.getGraph());
+        assertNotNull(loaded, "Hiérarchie rechargée");
+        assertEquals(hierarchy.arcCount(), loaded.arcCount(), "Même nombre d'arcs");
+        Plan other = PlanParser.planFromSectionCSV(getPath(MAP_DATA));
+        assertNull(ContractionHierarchy.load(file, other.getGraph()), "Plan différent");
+    }
+}
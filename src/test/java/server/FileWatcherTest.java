@@ -0,0 +1,104 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.map.Plan;
+import server.map.Section;
+
+class FileWatcherTest {
+
+    private static final int PORT = 12348;
+
+    private static final int DEFAULT_TIMEOUT = 5000;
+
+    private static final long DELAY = 100;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static final String STATION = "Lourmel";
+
+    private static Server server = null;
+
+    private static Path mapFile;
+
+    private static Path timeFile;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    private static Path copy(Path dir, String filename) throws Exception {
+        Path file = dir.resolve(filename + ".csv");
+        Files.copy(Path.of(getPath(filename)), file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        Path dir = Files.createTempDirectory("watch");
+        mapFile = copy(dir, MAP_DATA_ALL);
+        timeFile = copy(dir, TIME_DATA_ALL);
+        server = new Server(mapFile.toString(), timeFile.toString(), PORT, false, 0);
+        server.watch(mapFile.toString(), timeFile.toString(), DELAY);
+    }
+
+    @AfterAll
+    static void close() throws Exception {
+        server.stop();
+        File[] files = mapFile.getParent().toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        mapFile.getParent().toFile().delete();
+    }
+
+    /**
+     * Réécrit {@code file} et attend que le server publie un nouveau plan
+     *
+     * @return le nouveau plan
+     */
+    private static Plan touchAndWait(Path file) throws Exception {
+        Plan before = server.getPlan();
+        Files.write(file, Files.readAllBytes(file));
+        while (server.getPlan() == before)
+            Thread.sleep(DELAY / 2);
+        return server.getPlan();
+    }
+
+    private static Section firstSection(Plan plan) {
+        return plan.getSectionsFromStationName(STATION).get(0);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void timeChangeKeepsMap() throws Exception {
+        Plan before = server.getPlan();
+        Plan after = touchAndWait(timeFile);
+        assertSame(firstSection(before), firstSection(after), "Plan non reparsé");
+        assertFalse(after.getLines().values().stream().allMatch(l -> l.getDepartures().isEmpty()),
+                "Horaires rechargés");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void mapChangeReloadsMap() throws Exception {
+        Plan before = server.getPlan();
+        Plan after = touchAndWait(mapFile);
+        assertNotSame(firstSection(before), firstSection(after), "Plan reparsé");
+        assertFalse(after.getLines().values().stream().allMatch(l -> l.getDepartures().isEmpty()),
+                "Horaires rechargés avec le plan");
+    }
+}
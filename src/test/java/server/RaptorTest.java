@@ -0,0 +1,103 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.Dijkstra.PathNotFoundException;
+import server.Raptor.Journey;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Section;
+import server.map.Time;
+
+class RaptorTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_fix_dist_time";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static final int MAX_TRANSFERS = 8;
+
+    private static Plan map;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+    }
+
+    private static Time arrival(List<Section> path) {
+        Section last = path.get(path.size() - 1);
+        return last.getTime().addDuration(last.getDuration());
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void illegalArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Raptor(map, "Nation", "Bercy", null, MAX_TRANSFERS), "Horaire null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Raptor(map, "Nation", "Bercy", new Time(8, 0), -1),
+                "Correspondances négatives");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void unknownStation() {
+        assertThrows(PathNotFoundException.class,
+                () -> new Raptor(map, "test", "Bercy", new Time(8, 0), MAX_TRANSFERS).getPath(),
+                "Station inconnue");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void noTransfer() throws Exception {
+        List<Journey> journeys =
+                new Raptor(map, "Lourmel", "Commerce", new Time(12, 32), 0).getJourneys();
+        assertEquals(1, journeys.size(), "Un seul itinéraire sans correspondance");
+        List<Section> sections = journeys.get(0).sections();
+        for (Section s : sections)
+            assertEquals(sections.get(0).getLine(), s.getLine(), "Même ligne");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void paretoSet() throws Exception {
+        List<Journey> journeys =
+                new Raptor(map, "Wagram", "Fort d'Aubervilliers", new Time(7, 22), MAX_TRANSFERS)
+                        .getJourneys();
+        for (int i = 1; i < journeys.size(); i++) {
+            Journey previous = journeys.get(i - 1);
+            Journey journey = journeys.get(i);
+            assertTrue(previous.transfers() < journey.transfers(), "Correspondances croissantes");
+            assertTrue(journey.arrival().compareTo(previous.arrival()) < 0,
+                    "Arrivée plus tôt avec plus de correspondances");
+        }
+        for (Journey journey : journeys)
+            assertEquals(journey.arrival(), arrival(journey.sections()), "Horaire d'arrivée");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameArrivalAsConnectionScan() throws Exception {
+        String[][] queries = {{"Gare du Nord", "Gare de Lyon"}, {"Cambronne", "Sèvres - Babylone"},
+                {"Saint-Philippe du Roule", "Bercy"}, {"Maison Blanche", "Pigalle"}};
+        Time depart = new Time(13, 50, 32);
+        for (String[] q : queries) {
+            List<Section> raptor = new Raptor(map, q[0], q[1], depart, MAX_TRANSFERS).getPath();
+            List<Section> csa = new ConnectionScan(map, q[0], q[1], depart).getPath();
+            assertEquals(arrival(csa), arrival(raptor), String.format("%s to %s", q[0], q[1]));
+        }
+    }
+}
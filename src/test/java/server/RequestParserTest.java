@@ -35,7 +35,10 @@ class RequestParserTest {
             "ROUTE; ; Madeleine;13:30;DISTANCE;FOOT", "ROUTE;Gare de Lyon; ;13:30;DISTANCE;FOOT",
             "ROUTE;Gare de Lyon; Madeleine; ;DISTANCE;FOOT", "SEARCH", "SEARCH;", "SEARCH;test;",
             "SEARCH;test;34", "SEARCH; ;DEPART", "TIME;", "TIME;;", "TIME;test;34", "TIME; ;13:23",
-            "TIME;test; "})
+            "TIME;test; ", "ISO;test;12:20", "ISO; ;12:20;30", "ISO;test;1220;30",
+            "ISO;test;12:20;trente", "ISO;test;12:20;-5", "ISO;test;12:20;30;TEST",
+            "MATRIX;a|b;c;12:20", "MATRIX;a||b;c;12:20;TIME", "MATRIX;a;;12:20;TIME",
+            "MATRIX;a;c; ;TIME", "MATRIX;a;c;1220;TIME", "MATRIX;a;c;12:20;TIME;TEST"})
     @Timeout(DEFAULT_TIMEOUT)
     void parsingException(String args) {
         parsingExceptionHelper(args);
@@ -46,7 +49,9 @@ class RequestParserTest {
             "ROUTE; Gare de Lyon; Madeleine;13:30;DISTANCE; FOOT",
             "ROUTE;Gare de Lyon; Madeleine ;13:30; TIME;",
             "ROUTE; Gare de Lyon; Madeleine; 13:30;TIME;FOOT",
-            "ROUTE;Gare de Lyon; Madeleine;13:30;TIME;TEST"})
+            "ROUTE;Gare de Lyon; Madeleine;13:30;TIME;TEST",
+            "ROUTE;Gare de Lyon; Madeleine;13:30;DISTANCE;ASTAR",
+            "ROUTE;Gare de Lyon; Madeleine;13:30;TIME;FOOT;ASTAR"})
     @Timeout(DEFAULT_TIMEOUT)
     void handleRoute(String request) throws Exception {
         ServerActionCallback callback = getServerActionCallbackHelper(request);
@@ -68,4 +73,20 @@ class RequestParserTest {
         ServerActionCallback callback = getServerActionCallbackHelper(request);
         assertTrue(callback instanceof SearchTime, request);
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ISO; test; 12:20; 30", "ISO;test;12:20;0;FOOT"})
+    @Timeout(DEFAULT_TIMEOUT)
+    void handleIso(String request) throws Exception {
+        ServerActionCallback callback = getServerActionCallbackHelper(request);
+        assertTrue(callback instanceof SearchReachable, request);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MATRIX;a|b;c|d;12:20;TIME", "MATRIX; a ; c|d ;12:20;DISTANCE;FOOT"})
+    @Timeout(DEFAULT_TIMEOUT)
+    void handleMatrix(String request) throws Exception {
+        ServerActionCallback callback = getServerActionCallbackHelper(request);
+        assertTrue(callback instanceof SearchMatrix, request);
+    }
 }
@@ -0,0 +1,100 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.data.ErrorServer;
+import server.data.ServerResponse;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Time;
+
+class RouteCacheTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_fix_dist_time";
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    private static RouteCache.Key key(String start) {
+        return new RouteCache.Key(0, start, "Bercy", new Time(8, 0), true, false, false);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void negativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache(-1), "Taille négative");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void leastRecentlyUsedRemoved() {
+        RouteCache cache = new RouteCache(2);
+        ServerResponse a = new ErrorServer("a");
+        ServerResponse b = new ErrorServer("b");
+        cache.put(key("A"), a);
+        cache.put(key("B"), b);
+        assertSame(a, cache.get(key("A")), "A en cache");
+        cache.put(key("C"), new ErrorServer("c"));
+        assertNull(cache.get(key("B")), "B retiré");
+        assertSame(a, cache.get(key("A")), "A conservé");
+        assertEquals(2, cache.getHits(), "Succès");
+        assertEquals(1, cache.getMisses(), "Échecs");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void shrinkAndDisable() {
+        RouteCache cache = new RouteCache(3);
+        for (String s : new String[] {"A", "B", "C"})
+            cache.put(key(s), new ErrorServer(s));
+        cache.setCapacity(1);
+        assertEquals(1, cache.size(), "Taille réduite");
+        assertNull(cache.get(key("A")), "Plus ancien retiré");
+        cache.setCapacity(0);
+        cache.put(key("D"), new ErrorServer("d"));
+        assertEquals(0, cache.size(), "Cache désactivé");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void searchPathHit() throws Exception {
+        Plan map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        RouteCache cache = RouteCache.getInstance();
+        ServerResponse first =
+                new SearchPath(map, "Lourmel", "Pigalle", new Time(8, 0), true, true).execute();
+        long hits = cache.getHits();
+        ServerResponse second =
+                new SearchPath(map, "Lourmel", "Pigalle", new Time(8, 0), true, true).execute();
+        assertEquals(hits + 1, cache.getHits(), "Trajet trouvé dans le cache");
+        assertSame(first, second, "Même réponse");
+        ServerResponse other =
+                new SearchPath(map, "Lourmel", "Pigalle", new Time(8, 1), true, true).execute();
+        assertNotSame(first, other, "Autre horaire");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void planVersionChanged() throws Exception {
+        Plan map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        long version = map.getVersion();
+        ServerResponse first =
+                new SearchPath(map, "Nation", "Bercy", new Time(8, 0), false, true).execute();
+        Plan reset = map.resetLinesSections();
+        assertNotEquals(version, reset.getVersion(), "Version du nouveau plan");
+        ServerResponse second =
+                new SearchPath(reset, "Nation", "Bercy", new Time(8, 0), false, true).execute();
+        assertNotSame(first, second, "Nouveau plan");
+        map.updateSectionsTime();
+        assertNotEquals(version, map.getVersion(), "Version après modification");
+    }
+}
@@ -0,0 +1,189 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import server.Dijkstra.PathNotFoundException;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Time;
+import util.Logger;
+
+/**
+ * Mesure du temps de recherche d'itinéraires sur des réseaux synthétiques de taille croissante.
+ *
+ * <p>
+ * Lancement : {@code ./gradlew benchmark}
+ */
+public final class RoutingBenchmark {
+    /**
+     * Nombre de stations des réseaux générés
+     */
+    private static final int[] SIZES = {300, 1_000, 5_000, 10_000, 50_000};
+    /**
+     * Nombre de requêtes de chauffe avant chaque mesure
+     */
+    private static final int WARMUP = 20;
+    /**
+     * Nombre de requêtes mesurées pour chaque réseau
+     */
+    private static final int QUERIES = 50;
+    /**
+     * Le réseau et les horaires réels utilisés pour comparer les recherches en temps
+     */
+    private static final String MAP_DATA = "src/test/resources/map_data_fix_dist_time.csv";
+    private static final String TIME_DATA = "src/test/resources/time_data_all.csv";
+    /**
+     * Nombre de requêtes de chauffe avant chaque mesure sur le réseau réel
+     */
+    private static final int TIME_WARMUP = 500;
+    /**
+     * Nombre de correspondances autorisées pour RAPTOR
+     */
+    private static final int MAX_TRANSFERS = 8;
+
+    private RoutingBenchmark() {}
+
+    /**
+     * Crée un réseau en grille de {@code rows} x {@code columns} stations, chaque rangée et
+     * chaque colonne étant une ligne parcourue dans les deux sens
+     *
+     * @param rows le nombre de rangées
+     * @param columns le nombre de colonnes
+     * @return le plan généré
+     */
+    static Plan gridPlan(int rows, int columns) {
+        Plan plan = new Plan();
+        int[] duration = {1, 30};
+        double distance = 0.4;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (j + 1 < columns) {
+                    addBothWays(plan, i, j, i, j + 1, "R" + i, duration, distance);
+                }
+                if (i + 1 < rows) {
+                    addBothWays(plan, i, j, i + 1, j, "C" + j, duration, distance);
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static void addBothWays(Plan plan, int i1, int j1, int i2, int j2, String line,
+            int[] duration, double distance) {
+        plan.addSection(stationName(i1, j1), coord(i1, j1), stationName(i2, j2), coord(i2, j2),
+                line + " variant 0", duration, distance);
+        plan.addSection(stationName(i2, j2), coord(i2, j2), stationName(i1, j1), coord(i1, j1),
+                line + " variant 1", duration, distance);
+    }
+
+    static String stationName(int i, int j) {
+        return "S" + i + "_" + j;
+    }
+
+    /**
+     * @return les coordonnées au format du fichier CSV (longitude, latitude)
+     */
+    private static double[] coord(int i, int j) {
+        return new double[] {2.2 + j * 0.005, 48.7 + i * 0.0036};
+    }
+
+    /**
+     * Exécute {@code count} recherches en distance entre des stations tirées au hasard
+     *
+     * @param goalDirected si les recherches utilisent A*
+     * @return le nombre total de sommets traités
+     */
+    private static long runDijkstra(Plan plan, int rows, int columns, int count, Random random,
+            boolean goalDirected) {
+        long settled = 0;
+        for (int q = 0; q < count; q++) {
+            String start = stationName(random.nextInt(rows), random.nextInt(columns));
+            String arrival = stationName(random.nextInt(rows), random.nextInt(columns));
+            Dijkstra dijkstra =
+                    new Dijkstra(plan, start, arrival, null, true, false, goalDirected);
+            try {
+                dijkstra.getPath();
+            } catch (PathNotFoundException ignored) {
+                // départ = arrivée
+            }
+            settled += dijkstra.getSettledCount();
+        }
+        return settled;
+    }
+
+    /**
+     * Une recherche en temps à mesurer
+     */
+    private interface TimeQuery {
+        void run(Plan plan, String start, String arrival, Time depart) throws Exception;
+    }
+
+    /**
+     * Mesure le temps moyen d'une recherche en temps entre des stations tirées au hasard
+     *
+     * @return le temps moyen en millisecondes
+     */
+    private static double timeQueries(Plan plan, List<String> names, TimeQuery query)
+            throws Exception {
+        Random random = new Random(names.size());
+        long elapsed = 0;
+        for (int q = 0; q < TIME_WARMUP + QUERIES; q++) {
+            String start = names.get(random.nextInt(names.size()));
+            String arrival = names.get(random.nextInt(names.size()));
+            Time depart = new Time(random.nextInt(24), random.nextInt(60));
+            long begin = System.nanoTime();
+            try {
+                query.run(plan, start, arrival, depart);
+            } catch (PathNotFoundException ignored) {
+                // départ = arrivée
+            }
+            if (q >= TIME_WARMUP)
+                elapsed += System.nanoTime() - begin;
+        }
+        return elapsed / 1e6 / QUERIES;
+    }
+
+    /**
+     * Compare les moteurs de recherche en temps sur le réseau et les horaires réels
+     */
+    private static void timetableBenchmark() throws Exception {
+        Plan plan = PlanParser.planFromSectionCSV(MAP_DATA);
+        PlanParser.addTimeFromCSV(plan, TIME_DATA);
+        plan.getTimetable();
+        plan.getRoutePatterns();
+        List<String> names = new ArrayList<>(plan.getStationsName());
+        names.sort(null);
+        System.out.printf("%n%-14s %12s%n", "moteur", "ms/requête");
+        System.out.printf("%-14s %12.3f%n", "SearchPath", timeQueries(plan, names,
+                (p, s, a, d) -> new SearchPath(p, s, a, d, false, false).execute()));
+        System.out.printf("%-14s %12.3f%n", "Dijkstra", timeQueries(plan, names,
+                (p, s, a, d) -> new Dijkstra(p, s, a, d, false, false).getPath()));
+        System.out.printf("%-14s %12.3f%n", "RAPTOR", timeQueries(plan, names,
+                (p, s, a, d) -> new Raptor(p, s, a, d, MAX_TRANSFERS).getJourneys()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Logger.disable();
+        System.out.printf("%10s %10s %8s %12s %14s %14s%n", "stations", "arêtes", "moteur",
+                "ms/requête", "sommets/req.", "ns/sommet");
+        for (int size : SIZES) {
+            int rows = (int) Math.sqrt(size);
+            int columns = size / rows;
+            Plan plan = gridPlan(rows, columns);
+            plan.getGraph();
+            for (boolean goalDirected : new boolean[] {false, true}) {
+                Random random = new Random(size);
+                runDijkstra(plan, rows, columns, WARMUP, random, goalDirected);
+                long begin = System.nanoTime();
+                long settled = runDijkstra(plan, rows, columns, QUERIES, random, goalDirected);
+                long elapsed = System.nanoTime() - begin;
+                System.out.printf("%10d %10d %8s %12.3f %14d %14.1f%n", rows * columns,
+                        plan.getGraph().edgeCount(), goalDirected ? "A*" : "Dijkstra",
+                        elapsed / 1e6 / QUERIES, settled / QUERIES,
+                        (double) elapsed / Math.max(1, settled));
+            }
+        }
+        timetableBenchmark();
+    }
+}
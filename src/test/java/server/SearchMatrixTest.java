@@ -0,0 +1,136 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.data.ErrorServer;
+import server.data.ReachableStations;
+import server.data.Route;
+import server.data.ServerResponse;
+import server.data.StationTime;
+import server.data.TravelMatrix;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Section;
+import server.map.Time;
+
+class SearchMatrixTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static final Time DEPART = new Time(8, 0);
+
+    private static final List<String> ORIGINS =
+            List.of("Nation", "Gare du Nord", "Lourmel", "Pigalle");
+
+    private static final List<String> DESTINATIONS =
+            List.of("Bercy", "Pigalle", "Wagram", "Maison Blanche", "inconnue");
+
+    private static final int MAX_MINUTES = 180;
+
+    private static Plan map;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+    }
+
+    private static int[][] matrix(boolean distOpt, boolean foot) {
+        return ((TravelMatrix) new SearchMatrix(map, ORIGINS, DESTINATIONS, DEPART, distOpt, foot)
+                .execute()).getValues();
+    }
+
+    /**
+     * @return la valeur attendue d'une case, calculée avec la requête ROUTE
+     */
+    private static int expected(String start, String arrival, boolean distOpt, boolean foot)
+            throws Exception {
+        if (start.equals(arrival))
+            return 0;
+        ServerResponse response =
+                new SearchPath(map, start, arrival, DEPART, distOpt, foot).execute();
+        if (response instanceof ErrorServer)
+            return TravelMatrix.UNREACHABLE;
+        List<Section> path = ((Route) response).getPathDistOpt();
+        if (distOpt)
+            return path.stream().mapToInt(Section::getDistance).sum();
+        Section last = path.get(path.size() - 1);
+        return DEPART.durationTo(last.getTime().addDuration(last.getDuration()));
+    }
+
+    private static void sameAsRoutes(boolean distOpt, boolean foot) throws Exception {
+        int[][] values = matrix(distOpt, foot);
+        assertEquals(ORIGINS.size(), values.length, "Une ligne par départ");
+        for (int i = 0; i < ORIGINS.size(); i++) {
+            assertEquals(DESTINATIONS.size(), values[i].length, "Une colonne par arrivée");
+            for (int j = 0; j < DESTINATIONS.size(); j++)
+                assertEquals(expected(ORIGINS.get(i), DESTINATIONS.get(j), distOpt, foot),
+                        values[i][j],
+                        String.format("%s vers %s", ORIGINS.get(i), DESTINATIONS.get(j)));
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nullValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchMatrix(map, null, DESTINATIONS, DEPART, true, false),
+                "Départs null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchMatrix(map, ORIGINS, DESTINATIONS, null, true, false),
+                "Horaire null");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void distanceSameAsRoutes() throws Exception {
+        sameAsRoutes(true, false);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void timeSameAsRoutes() throws Exception {
+        sameAsRoutes(false, false);
+    }
+
+    /**
+     * Avec des sections à pied, ROUTE donne plus de poids à la marche : la matrice donne l'arrivée
+     * au plus tôt, la même que ISO, jamais plus tardive que celle de ROUTE
+     */
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void footSameAsReachable() throws Exception {
+        int[][] values = matrix(false, true);
+        for (int i = 0; i < ORIGINS.size(); i++) {
+            Map<String, Time> arrivals = ((ReachableStations) new SearchReachable(map,
+                    ORIGINS.get(i), DEPART, MAX_MINUTES, true).execute()).getStations().stream()
+                            .collect(Collectors.toMap(StationTime::getStation,
+                                    StationTime::getTime));
+            arrivals.put(ORIGINS.get(i), DEPART);
+            for (int j = 0; j < DESTINATIONS.size(); j++) {
+                String message = String.format("%s vers %s", ORIGINS.get(i), DESTINATIONS.get(j));
+                Time arrival = arrivals.get(DESTINATIONS.get(j));
+                assertEquals(arrival == null ? TravelMatrix.UNREACHABLE
+                        : DEPART.durationTo(arrival), values[i][j], message);
+                assertTrue(values[i][j] <= expected(ORIGINS.get(i), DESTINATIONS.get(j), false,
+                        true), "Pas plus tard que ROUTE " + message);
+            }
+        }
+    }
+}
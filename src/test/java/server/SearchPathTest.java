@@ -2,9 +2,13 @@ package server;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import server.Dijkstra.PathNotFoundException;
 import server.data.ErrorServer;
 import server.data.Route;
 import server.map.Plan;
@@ -87,6 +91,15 @@ class SearchPathTest {
         pathNotFoundHelperDistOpt("Commerce", "Lourmel");
     }
 
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameStationEmptyRoute() throws Exception {
+        findPathMapWithTimeHelper("Lourmel", "Lourmel", 0, new Time(12, 32), true, false);
+        findPathMapWithTimeHelper("Lourmel", "Lourmel", 0, new Time(12, 32), false, false);
+        findPathMapWithTimeHelper("Lourmel", "Lourmel", 0, new Time(12, 32), true, true);
+        findPathMapWithTimeHelper("Lourmel", "Lourmel", 0, new Time(12, 32), false, true);
+    }
+
     private void findPathMapHelper(boolean timedMap, String start, String arrival, int nbLine,
             Time time, boolean distOpt, boolean foot) throws Exception {
         Plan map = initMap(MAP_DATA_ALL);
@@ -240,7 +253,7 @@ class SearchPathTest {
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void findPathWithTimeMaisonBlancheToPigalleTimeOptFoot() throws Exception {
-        findPathMapWithTimeHelper("Maison Blanche", "Pigalle", 14, new Time(12, 32), true, true);
+        findPathMapWithTimeHelper("Maison Blanche", "Pigalle", 15, new Time(12, 32), true, true);
     }
 
     @Test
@@ -268,7 +281,7 @@ class SearchPathTest {
     @Timeout(DEFAULT_TIMEOUT)
     void findPathWithTimeCoords() throws Exception {
         findPathMapWithTimeHelper("(48.855402921055045, 2.3443066430543738)",
-                "(48.84718353452897, 2.398076946926344)", 9, new Time(9, 0), true, true);
+                "(48.84718353452897, 2.398076946926344)", 8, new Time(9, 0), true, true);
 
     }
 
@@ -276,7 +289,7 @@ class SearchPathTest {
     @Timeout(DEFAULT_TIMEOUT)
     void findPathWithTimeCoordsMaisonBlancheToPigalleTimeOptFoot() throws Exception {
         findPathMapWithTimeHelper("(48.824868685169676, 2.358546268381532)",
-                "(48.88264085646782, 2.3401402839553964)", 15, new Time(12, 32), true, true);
+                "(48.88264085646782, 2.3401402839553964)", 16, new Time(12, 32), true, true);
     }
 
     @Test
@@ -292,4 +305,87 @@ class SearchPathTest {
         findPathMapWithTimeHelper("Châtelet", "(48.76844682672424,2.3622296824389313)", 14,
                 new Time(6, 32), true, false);
     }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void coordSearchLeavesPlanUnchanged() throws Exception {
+        Plan map = initMap(MAP_DATA_ALL);
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+        int stations = map.getMap().size();
+        int sections = map.getMap().values().stream().mapToInt(List::size).sum();
+        new SearchPath(map, "(48.83866086365990, 2.2822419598550800)",
+                "(48.84461151236850,2.293796842192860)", new Time(12, 32), true, true).execute();
+        assertEquals(stations, map.getMap().size(), "Aucune station ajoutée au plan");
+        assertEquals(sections, map.getMap().values().stream().mapToInt(List::size).sum(),
+                "Aucune section ajoutée au plan");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void goalDirectedSameArrival() throws Exception {
+        Plan map = initMap(MAP_DATA_ALL);
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+        String start = "(48.824868685169676, 2.358546268381532)";
+        String arrival = "(48.88264085646782, 2.3401402839553964)";
+        Time depart = new Time(12, 32);
+        List<Section> dijkstra = new Dijkstra(map, start, arrival, depart, false, true).getPath();
+        List<Section> astar =
+                new Dijkstra(map, start, arrival, depart, false, true, true).getPath();
+        Section last = dijkstra.get(dijkstra.size() - 1);
+        Section lastAstar = astar.get(astar.size() - 1);
+        assertEquals(last.getTime().addDuration(last.getDuration()),
+                lastAstar.getTime().addDuration(lastAstar.getDuration()), "Même horaire d'arrivée");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void goalDirectedSettlesFewerNodes() throws Exception {
+        Plan map = initMap(MAP_DATA_ALL);
+        Dijkstra dijkstra = new Dijkstra(map, "Lourmel", "Pigalle", null, true, true);
+        Dijkstra astar = new Dijkstra(map, "Lourmel", "Pigalle", null, true, true, true);
+        dijkstra.getPath();
+        astar.getPath();
+        assertTrue(astar.getSettledCount() < dijkstra.getSettledCount(),
+                "Moins de sommets traités avec A*");
+    }
+
+    /**
+     * @return la longueur du trajet en comptant les changements d'arrêt entre deux sections
+     */
+    private static int length(List<Section> path) {
+        int length = path.get(0).getDistance();
+        for (int i = 1; i < path.size(); i++)
+            length += path.get(i - 1).getArrival().distanceBetween(path.get(i).getStart())
+                    + path.get(i).getDistance();
+        return length;
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void goalDirectedShortestDistance() throws Exception {
+        Plan map = initMap(MAP_DATA_ALL);
+        List<String> names = new ArrayList<>(map.getStationsName());
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            String start = names.get(random.nextInt(names.size()));
+            String arrival = names.get(random.nextInt(names.size()));
+            if (start.equals(arrival))
+                continue;
+            String message = String.format("%s to %s", start, arrival);
+            List<Section> astar;
+            try {
+                astar = new Dijkstra(map, start, arrival, null, true, false, true).getPath();
+            } catch (PathNotFoundException e) {
+                assertThrows(PathNotFoundException.class,
+                        () -> new Dijkstra(map, start, arrival, null, true, false).getPath(),
+                        message);
+                continue;
+            }
+            List<Section> dijkstra =
+                    new Dijkstra(map, start, arrival, null, true, false).getPath();
+            List<Section> ch = new ContractionSearch(map, start, arrival, null).getPath();
+            assertEquals(length(ch), length(astar), "Plus court trajet " + message);
+            assertEquals(length(dijkstra), length(astar), "Même longueur " + message);
+        }
+    }
 }
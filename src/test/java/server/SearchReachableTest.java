@@ -0,0 +1,117 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.data.ReachableStations;
+import server.data.Route;
+import server.data.ServerResponse;
+import server.data.StationTime;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.Section;
+import server.map.Time;
+
+class SearchReachableTest {
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static final Time DEPART = new Time(8, 0);
+
+    private static Plan map;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        map = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        PlanParser.addTimeFromCSV(map, getPath(TIME_DATA_ALL));
+    }
+
+    private static List<StationTime> reachable(String start, int minutes, boolean foot) {
+        return ((ReachableStations) new SearchReachable(map, start, DEPART, minutes, foot)
+                .execute()).getStations();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nullValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchReachable(null, "Nation", DEPART, 10, false), "Plan null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchReachable(map, "Nation", null, 10, false), "Horaire null");
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchReachable(map, "Nation", DEPART, -1, false), "Durée négative");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void unknownStation() {
+        assertTrue(reachable("inconnue", 30, false).isEmpty(), "Aucune station accessible");
+    }
+
+    /**
+     * @return l'horaire d'arrivée d'une requête ROUTE en optimisation de temps, {@code null} s'il
+     *         n'y a pas de trajet
+     */
+    private static Time routeArrival(String start, String arrival, boolean foot) {
+        ServerResponse response =
+                new SearchPath(map, start, arrival, DEPART, false, foot).execute();
+        if (!(response instanceof Route))
+            return null;
+        List<Section> path = ((Route) response).getPathDistOpt();
+        Section last = path.get(path.size() - 1);
+        return last.getTime().addDuration(last.getDuration());
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameArrivalAsRoute() throws Exception {
+        List<StationTime> stations = reachable("Nation", 20, false);
+        assertFalse(stations.isEmpty(), "Stations accessibles");
+        for (StationTime station : stations) {
+            assertFalse(station.getStation().equals("Nation"), "Départ exclu");
+            assertEquals(routeArrival("Nation", station.getStation(), false), station.getTime(),
+                    "Arrivée à " + station.getStation());
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void footListsEveryReachableStation() {
+        int minutes = 10;
+        Map<String, Time> stations = reachable("Nation", minutes, true).stream()
+                .collect(Collectors.toMap(StationTime::getStation, StationTime::getTime));
+        Time limit = DEPART.addDuration(minutes * 60);
+        for (String name : map.getStationsName()) {
+            Time arrival = name.equals("Nation") ? null : routeArrival("Nation", name, true);
+            if (arrival == null || arrival.compareTo(limit) > 0)
+                continue;
+            assertTrue(stations.containsKey(name), "Station accessible " + name);
+            assertTrue(stations.get(name).compareTo(arrival) <= 0, "Arrivée à " + name);
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void longerBudgetReachesMore() {
+        List<StationTime> near = reachable("Nation", 10, true);
+        List<StationTime> far = reachable("Nation", 30, true);
+        assertTrue(far.size() > near.size(), "Plus de stations en 30 minutes");
+        assertTrue(far.containsAll(near), "Mêmes horaires d'arrivée");
+    }
+}
@@ -4,11 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -18,12 +21,14 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import server.commands.ServerCommandCache;
 import server.commands.ServerCommandDebug;
 import server.commands.ServerCommandUpdateMapFile;
 import server.commands.ServerCommandUpdateTimeFile;
 import server.data.DepartureTimes;
 import server.data.StationTime;
 import server.data.SuggestionStations;
+import server.map.PlanParser;
 import server.map.StationInfo;
 import server.map.Time;
 import server.map.PlanParser.IncorrectFileFormatException;
@@ -31,6 +36,7 @@ import util.Logger;
 
 class ServerCommandTest {
     private static Server server = null;
+    private static Path cache = null;
     private static final String HOST = "localhost";
     private static final int PORT = 12345;
     private static final String MAP_DATA_ALL = "map_data_all";
@@ -49,6 +55,8 @@ class ServerCommandTest {
 
     @BeforeAll
     static void init() throws Exception {
+        cache = Files.createTempDirectory("cache");
+        PlanParser.setCacheDirectory(cache);
         server = initServer();
         changeTimeFile(getPath(TIME_DATA));
         changeMap(getPath(MAP_DATA_DUMMY));
@@ -57,6 +65,12 @@ class ServerCommandTest {
 
     @AfterAll
     static void close() {
+        PlanParser.setCacheDirectory(null);
+        File[] files = cache.toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        cache.toFile().delete();
         if (isLoggerEnable) {
             Logger.enable();
         } else {
@@ -207,6 +221,16 @@ class ServerCommandTest {
         , "ServerCommandUpdateTimeFile wrong argument");
     }
 
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void testWrongCacheCommandFormat() throws Exception {
+        ServerCommandCache scc = new ServerCommandCache();
+        assertThrows(IllegalArgumentException.class, () -> scc.execute(server, "cache", "1", "2"),
+                "ServerCommandCache too many arguments");
+        assertThrows(IllegalArgumentException.class, () -> scc.execute(server, "cache", "-1"),
+                "ServerCommandCache negative capacity");
+    }
+
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void testSuggestionValueAftereChange() throws Exception {
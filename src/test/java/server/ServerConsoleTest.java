@@ -3,11 +3,14 @@ package server;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -19,12 +22,14 @@ import org.junit.jupiter.api.Timeout;
 import server.data.DepartureTimes;
 import server.data.StationTime;
 import server.data.SuggestionStations;
+import server.map.PlanParser;
 import server.map.StationInfo;
 import server.map.Time;
 import server.map.PlanParser.IncorrectFileFormatException;
 
 class ServerConsoleTest {
     private static Server server = null;
+    private static Path cache = null;
     private static final String HOST = "localhost";
     private static final int PORT = 12346;
     private static final String MAP_DATA_ALL = "map_data_all";
@@ -45,6 +50,8 @@ class ServerConsoleTest {
 
     @BeforeAll
     static void init() throws Exception {
+        cache = Files.createTempDirectory("cache");
+        PlanParser.setCacheDirectory(cache);
         server = initServer();
         changeTimeFile(getPath(TIME_DATA));
 
@@ -52,6 +59,12 @@ class ServerConsoleTest {
 
     @AfterAll
     static void close() {
+        PlanParser.setCacheDirectory(null);
+        File[] files = cache.toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        cache.toFile().delete();
         try {
             server.stop();
         } catch (IOException e) {
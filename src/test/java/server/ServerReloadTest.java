@@ -0,0 +1,98 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import server.map.Plan;
+import server.map.PlanParser;
+import server.map.PlanParser.IncorrectFileFormatException;
+
+class ServerReloadTest {
+
+    private static final int PORT = 12347;
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA = "map_data";
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static Server server = null;
+
+    private static Path cache;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @BeforeAll
+    static void init() throws Exception {
+        cache = Files.createTempDirectory("cache");
+        PlanParser.setCacheDirectory(cache);
+        server = new Server(getPath(MAP_DATA_ALL), PORT);
+    }
+
+    @AfterAll
+    static void close() throws IOException {
+        PlanParser.setCacheDirectory(null);
+        File[] files = cache.toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        cache.toFile().delete();
+        server.stop();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void reloadKeepsOldPlan() throws Exception {
+        Plan before = server.getPlan();
+        long version = before.getVersion();
+        Plan after = server.reloadTime(getPath(TIME_DATA_ALL)).get();
+        assertSame(after, server.getPlan(), "Nouveau plan publié");
+        assertNotSame(before, after, "Plan remplacé");
+        assertTrue(after.isFrozen(), "Nouveau plan figé");
+        assertEquals(version, before.getVersion(), "Ancien plan inchangé");
+        assertTrue(before.getLines().values().stream().allMatch(l -> l.getDepartures().isEmpty()),
+                "Ancien plan sans horaires");
+        assertFalse(after.getLines().values().stream().allMatch(l -> l.getDepartures().isEmpty()),
+                "Nouveau plan avec horaires");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void failedReloadKeepsPlan() throws Exception {
+        Plan before = server.getPlan();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> server.reloadMap(getPath("bad_coord_format")).get(), "Plan incorrect");
+        assertTrue(e.getCause() instanceof IncorrectFileFormatException, "Cause de l'erreur");
+        assertSame(before, server.getPlan(), "Plan conservé");
+        assertThrows(IncorrectFileFormatException.class,
+                () -> server.updateMap(getPath("bad_coord_format")), "Erreur relancée");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void reloadsInOrder() throws Exception {
+        server.reloadMap(getPath(MAP_DATA));
+        Plan last = server.reloadMap(getPath(MAP_DATA_ALL), getPath(TIME_DATA_ALL)).get();
+        assertSame(last, server.getPlan(), "Dernier plan publié");
+        server.updateMap(getPath(MAP_DATA_ALL));
+    }
+}
@@ -1,10 +1,13 @@
 package server;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.Timeout;
 import server.data.ErrorServer;
 import server.data.Route;
 import server.data.SuggestionStations;
+import server.map.PlanParser;
 import server.map.PlanParser.IncorrectFileFormatException;
 
 class ServerTest {
@@ -33,6 +37,7 @@ class ServerTest {
     private static final long TIMEOUT = 3;
 
     private static Server server = null;
+    private static Path cache = null;
     private static Socket clientSocket = null;
     private static PrintWriter out = null;
     private static ObjectInputStream in = null;
@@ -47,6 +52,8 @@ class ServerTest {
 
     @BeforeAll
     static void init() throws IOException, IllegalArgumentException, IncorrectFileFormatException {
+        cache = Files.createTempDirectory("cache");
+        PlanParser.setCacheDirectory(cache);
         server = initServer();
         clientSocket = new Socket(HOST, PORT);
         out = new PrintWriter(clientSocket.getOutputStream());
@@ -54,6 +61,12 @@ class ServerTest {
 
     @AfterAll
     static void close() {
+        PlanParser.setCacheDirectory(null);
+        File[] files = cache.toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        cache.toFile().delete();
         try {
             server.stop();
             out.close();
@@ -0,0 +1,70 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class FootGraphTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private final Plan plan;
+
+    private final PlanGraph graph;
+
+    private final FootGraph foot;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    FootGraphTest() throws Exception {
+        plan = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        graph = plan.getGraph();
+        foot = plan.getFootGraph();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameStopsAsCloseStations() {
+        for (int s = 0; s < graph.stopCount(); s++) {
+            Set<Station> close = new HashSet<>();
+            for (int e = foot.firstEdge(s); e < foot.lastEdge(s); e++)
+                close.add(graph.stop(foot.target(e)));
+            Station station = graph.stop(s);
+            assertEquals(new HashSet<>(plan.getCloseStations(station, FootGraph.MAX_DISTANCE,
+                    false)), close, "Arrêts proches de " + station);
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void edgesMatchWalk() {
+        for (int s = 0; s < graph.stopCount(); s++) {
+            for (int e = foot.firstEdge(s); e < foot.lastEdge(s); e++) {
+                Station from = graph.stop(s);
+                Station to = graph.stop(foot.target(e));
+                assertTrue(foot.distance(e) < FootGraph.MAX_DISTANCE, "Distance maximale");
+                assertEquals(from.distanceBetween(to), foot.distance(e), "Longueur");
+                assertEquals(from.durationBetween(to), foot.duration(e), "Durée");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void keptAfterTimeReset() {
+        Plan reset = plan.resetLinesSections();
+        FootGraph other = reset.getFootGraph();
+        assertSame(reset.getGraph(), other.getGraph(), "Associé au nouveau graphe");
+        assertEquals(foot.edgeCount(), other.edgeCount(), "Mêmes sections à pied");
+    }
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import server.map.Line.DifferentStartException;
@@ -53,6 +54,23 @@ class LineTest {
         line.addSection(s2);
     }
 
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void updateSectionsTimeLongLine() throws Exception {
+        int n = 100_000;
+        Station[] stations = new Station[n + 1];
+        for (int i = 0; i <= n; i++)
+            stations[i] = new Station("S" + i, 0, 0);
+        for (int i = n - 1; i >= 0; i--)
+            line.addSection(new Section(stations[i], stations[i + 1], "test variant 0", 0, 10));
+        line.setStart("S0");
+        line.updateSectionsTime();
+        Section last = new Section(stations[n - 1], stations[n], "test variant 0", 0, 10);
+        assertEquals(last, line.getLast(), "Last section of a long line");
+        assertEquals(n * 10 + (n - 1) * 20, line.getDurationFromStart(last),
+                "Duration to the end of a long line");
+    }
+
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void setTwoDifferentStart() throws Exception {
@@ -200,6 +218,53 @@ class LineTest {
         getNextTimeHelper(s2, new Time(16, 0), new Time(6, 30, 30));
     }
 
+    /**
+     * @return le prochain départ calculé en parcourant les horaires de la ligne dans l'ordre
+     */
+    private static int scanNextDeparture(List<Time> departures, int offset, int time) {
+        for (Time t : departures) {
+            Time depart = t.addDuration(offset);
+            if (new Time(time).compareTo(depart) <= 0)
+                return depart.toSeconds();
+        }
+        Time first = departures.get(0).addDuration(offset);
+        return first.toSeconds();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nextDepartureSameAsScan() {
+        Random random = new Random(3);
+        for (int l = 0; l < 50; l++) {
+            Line randomLine = new Line("test", "0");
+            int count = 1 + random.nextInt(30);
+            for (int d = 0; d < count; d++)
+                randomLine.addDepartureTime(random.nextInt(24), random.nextInt(60));
+            List<Time> departures = randomLine.getDepartures();
+            for (int q = 0; q < 100; q++) {
+                int offset = random.nextInt(4 * 3600);
+                int time = random.nextInt(24 * 3600);
+                assertEquals(scanNextDeparture(departures, offset, time),
+                        randomLine.nextDeparture(offset, time),
+                        String.format("Décalage %d après %s", offset, new Time(time)));
+            }
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nextDepartureWithoutDepartureTime() {
+        assertEquals(-1, line.nextDeparture(0, 0), "Aucun départ");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nextDepartureAfterMidnight() {
+        line.addDepartureTime(23, 50);
+        assertEquals(20 * 60, line.nextDeparture(1800, 10 * 60), "Départ après minuit");
+        assertEquals(20 * 60, line.nextDeparture(1800, 23 * 3600), "Départ du lendemain");
+    }
+
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void getDeparturesTime() throws Exception {
@@ -0,0 +1,59 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class NameDictionaryTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private final NameDictionary dictionary = new NameDictionary();
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void addNull() {
+        assertThrows(IllegalArgumentException.class, () -> dictionary.add(null), "Add null");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void denseIds() {
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, dictionary.add("S" + i), "Identifiant du nom " + i);
+        assertEquals(100, dictionary.size(), "Nombre de noms");
+        assertEquals(42, dictionary.add("S42"), "Identifiant d'un nom déjà ajouté");
+        assertEquals(100, dictionary.size(), "Nombre de noms après un doublon");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameNameInstance() {
+        String name = new String("Nation");
+        int id = dictionary.add(name);
+        dictionary.add(new String("Nation"));
+        assertSame(name, dictionary.name(id), "Le nom conservé est le premier ajouté");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void unknownName() {
+        dictionary.add("Nation");
+        assertEquals(NameDictionary.NO_ID, dictionary.id("Bastille"), "Nom absent");
+        assertEquals(NameDictionary.NO_ID, dictionary.id(null), "Nom null");
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.name(1),
+                "Identifiant absent");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void copieIsIndependent() {
+        dictionary.add("Nation");
+        NameDictionary copie = new NameDictionary(dictionary);
+        copie.add("Bastille");
+        assertEquals(1, dictionary.size(), "Le dictionnaire copié ne change pas");
+        assertEquals(0, copie.id("Nation"), "Mêmes identifiants dans la copie");
+    }
+}
@@ -0,0 +1,123 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParallelTimeParserTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA = "map_data";
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private static final int PARTS = 8;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    /**
+     * @return un fichier d'horaires contenant {@code rows}
+     */
+    private static Path write(List<String> rows) throws Exception {
+        Path file = Files.createTempFile("time", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, rows, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> rows(String filename) throws Exception {
+        return new ArrayList<>(Files.readAllLines(Path.of(getPath(filename))));
+    }
+
+    /**
+     * Vérifie que la lecture séquentielle et la lecture en parallèle de {@code file} lèvent la
+     * même exception, avec le même message
+     */
+    private static void assertSameError(String mapFilename, Path file) throws Exception {
+        Plan sequential = PlanParser.planFromSectionCSV(getPath(mapFilename));
+        Exception expected = assertThrows(Exception.class,
+                () -> PlanParser.addTimeFromCSV(sequential, file.toString()), "Erreur attendue");
+        Plan parallel = PlanParser.planFromSectionCSV(getPath(mapFilename));
+        Exception actual = assertThrows(expected.getClass(),
+                () -> ParallelTimeParser.addTimes(parallel, file, POOL, PARTS), "Même erreur");
+        assertEquals(expected.getMessage(), actual.getMessage(), "Même message");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameDeparturesAsSequential() throws Exception {
+        Plan sequential = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        PlanParser.addTimeFromCSV(sequential, getPath(TIME_DATA_ALL));
+        Plan parallel = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        ParallelTimeParser.addTimes(parallel, Path.of(getPath(TIME_DATA_ALL)), POOL, PARTS);
+        sequential.getLines().forEach((name, line) -> {
+            Line other = parallel.getLines().get(name);
+            assertArrayEquals(line.getDepartureSeconds(), other.getDepartureSeconds(),
+                    "Mêmes départs " + name);
+            assertEquals(line.getSectionsMap(), other.getSectionsMap(), "Mêmes durées " + name);
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"time_station_missing", "time_bad_time_format", "time_line_missing",
+            "time_data", "time_unknow_station", "time_two_start"})
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameErrorSmallFile(String filename) throws Exception {
+        assertSameError(MAP_DATA, Path.of(getPath(filename)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"5;Place d'Italie;10:4A;4", "5;Place d'Italie;25:00;4",
+            "5;Place d'Italie;10:42;99", "5;Nation;10:42;4"})
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameErrorLargeFile(String row) throws Exception {
+        List<String> rows = rows(TIME_DATA_ALL);
+        rows.add(rows.size() * 2 / 3, row);
+        int earlier = rows.size() / 3;
+        rows.add(earlier, "5;Place d'Italie;10:42;99");
+        assertSameError(MAP_DATA_ALL, write(rows));
+        rows.remove(earlier);
+        assertSameError(MAP_DATA_ALL, write(rows));
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void differentStartInLastPart() throws Exception {
+        List<String> rows = rows(TIME_DATA_ALL);
+        rows.add("5;Nation;10:42;4");
+        assertSameError(MAP_DATA_ALL, write(rows));
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void startStationNotFound() throws Exception {
+        List<String> rows = rows(TIME_DATA_ALL);
+        rows.add(0, "5;Nation;10:42;4");
+        assertSameError(MAP_DATA_ALL, write(rows));
+    }
+}
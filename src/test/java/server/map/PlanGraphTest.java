@@ -0,0 +1,83 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class PlanGraphTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private final Plan plan;
+
+    private final PlanGraph graph;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    PlanGraphTest() throws Exception {
+        plan = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL));
+        graph = plan.getGraph();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameNodesAsMap() {
+        Map<String, List<Section>> map = plan.getMap();
+        assertEquals(map.size(), graph.nodeCount(), "Nombre de sommets");
+        for (String name : map.keySet())
+            assertEquals(name, graph.name(graph.nodeId(name)), "Identifiant de " + name);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameEdgesAsMap() {
+        for (Map.Entry<String, List<Section>> entry : plan.getMap().entrySet()) {
+            int u = graph.nodeId(entry.getKey());
+            assertEquals(entry.getValue().size(), graph.lastEdge(u) - graph.firstEdge(u),
+                    "Arêtes de " + entry.getKey());
+            for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+                Section s = graph.section(e);
+                assertEquals(s.getArrival().getName(), graph.name(graph.target(e)),
+                        "Arrivée de " + s);
+                assertEquals(s.getDistance(), graph.distance(e), "Distance de " + s);
+                assertEquals(s.getDuration(), graph.duration(e), "Durée de " + s);
+                assertEquals(plan.getLine(s), graph.line(graph.lineId(e)), "Ligne de " + s);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void transferBetweenStopsOfSameStation() {
+        for (int s = 0; s < graph.stopCount(); s++) {
+            int u = graph.stopNode(s);
+            assertTrue(graph.firstStop(u) <= s && s < graph.lastStop(u), "Arrêt dans son sommet");
+            assertEquals(0, graph.transferDistance(s, s), "Distance vers soi-même");
+            for (int t = graph.firstStop(u); t < graph.lastStop(u); t++)
+                assertEquals(graph.stop(s).distanceBetween(graph.stop(t)),
+                        graph.transferDistance(s, t), "Distance entre arrêts");
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void unknownStation() {
+        assertEquals(-1, graph.nodeId("test"), "Station inconnue");
+        assertEquals(-1, graph.nodeId(null), "Station null");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void graphSharedByCopy() {
+        assertTrue(graph == new Plan(plan).getGraph(), "Graphe partagé par la copie");
+    }
+}
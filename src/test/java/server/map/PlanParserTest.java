@@ -55,6 +55,15 @@ class PlanParserTest {
                 () -> PlanParser.planFromSectionCSV(getPath(filename)), "Incorrect file format");
     }
 
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void incorrectFileFormatLine() {
+        IncorrectFileFormatException e = assertThrows(IncorrectFileFormatException.class,
+                () -> PlanParser.planFromSectionCSV(getPath("bad_coord_format")),
+                "Incorrect file format");
+        assertTrue(e.getMessage().contains("ligne 1"), "Numéro de ligne dans " + e.getMessage());
+    }
+
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void sameSectionInMapAndLines() throws Exception {
@@ -0,0 +1,155 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class PlanSnapshotTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final String TIME_DATA_ALL = "time_data_all";
+
+    private final String mapFile;
+
+    private final String timeFile;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    PlanSnapshotTest() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot");
+        dir.toFile().deleteOnExit();
+        mapFile = copy(MAP_DATA_ALL, dir);
+        timeFile = copy(TIME_DATA_ALL, dir);
+        PlanSnapshot.file(mapFile, null).toFile().deleteOnExit();
+        PlanSnapshot.file(mapFile, timeFile).toFile().deleteOnExit();
+    }
+
+    private static String copy(String filename, Path dir) throws Exception {
+        Path copy = dir.resolve(filename + ".csv");
+        Files.copy(Path.of(getPath(filename)), copy, StandardCopyOption.REPLACE_EXISTING);
+        copy.toFile().deleteOnExit();
+        return copy.toString();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void saveAndLoad() throws Exception {
+        Plan plan = PlanParser.planFromFiles(mapFile, timeFile);
+        assertTrue(Files.isRegularFile(PlanSnapshot.file(mapFile, timeFile)), "Image enregistrée");
+        Plan loaded = PlanSnapshot.load(mapFile, timeFile);
+        assertNotNull(loaded, "Image relue");
+        assertEquals(plan.getMap(), loaded.getMap(), "Mêmes sections");
+        assertEquals(plan.getStations(), loaded.getStations(), "Mêmes stations");
+        assertEquals(ContractionHierarchy.fingerprint(plan.getGraph()),
+                ContractionHierarchy.fingerprint(loaded.getGraph()), "Même graphe");
+        Map<String, Line> lines = loaded.getLines();
+        assertEquals(plan.getLines().keySet(), lines.keySet(), "Mêmes lignes");
+        plan.getLines().forEach((name, line) -> {
+            Line other = lines.get(name);
+            assertArrayEquals(line.getDepartureSeconds(), other.getDepartureSeconds(),
+                    "Mêmes départs " + name);
+            assertEquals(line.getSectionsMap(), other.getSectionsMap(), "Mêmes durées " + name);
+        });
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void staleSnapshot() throws Exception {
+        PlanParser.planFromFiles(mapFile, timeFile);
+        assertNull(PlanSnapshot.load(mapFile, null), "Image avec horaires");
+        Path time = Path.of(timeFile);
+        Files.setLastModifiedTime(time,
+                FileTime.fromMillis(Files.getLastModifiedTime(time).toMillis() + 1000));
+        assertNull(PlanSnapshot.load(mapFile, timeFile), "Horaires modifiés");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void malformedSnapshot() throws Exception {
+        PlanParser.planFromFiles(mapFile);
+        Path file = PlanSnapshot.file(mapFile, null);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(PlanSnapshot.load(mapFile, null), "Image tronquée");
+        assertNotNull(PlanParser.planFromFiles(mapFile), "Plan reparsé");
+        assertNotNull(PlanSnapshot.load(mapFile, null), "Image réenregistrée");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sourceChangedWhileParsing() throws Exception {
+        PlanSnapshot.Sources sources = PlanSnapshot.sources(mapFile, timeFile);
+        Plan plan = PlanParser.planFromSectionCSV(mapFile);
+        PlanParser.addTimeFromCSV(plan, timeFile);
+        Path time = Path.of(timeFile);
+        Files.writeString(time, Files.readString(time) + "5;Place d'Italie;10:42;4\n");
+        PlanSnapshot.save(plan, sources);
+        assertNull(PlanSnapshot.load(mapFile, timeFile), "Image de l'ancien contenu");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void oneSnapshotPerSources() throws Exception {
+        PlanParser.planFromFiles(mapFile, timeFile);
+        PlanParser.planFromFiles(mapFile);
+        assertNotNull(PlanSnapshot.load(mapFile, timeFile), "Image avec horaires conservée");
+        assertNotNull(PlanSnapshot.load(mapFile, null), "Image sans horaires");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void timeReloadRefreshesSnapshot() throws Exception {
+        Plan plan = PlanParser.planFromFiles(mapFile, timeFile);
+        Path time = Path.of(timeFile);
+        Files.writeString(time, Files.readString(time) + "5;Place d'Italie;10:42;4\n");
+        assertNull(PlanSnapshot.load(mapFile, timeFile), "Horaires modifiés");
+        Plan reloaded = plan.resetLinesSections();
+        PlanParser.addTimeFromFiles(reloaded, mapFile, timeFile);
+        Plan loaded = PlanSnapshot.load(mapFile, timeFile);
+        assertNotNull(loaded, "Image réenregistrée");
+        assertArrayEquals(reloaded.getLines().get("5 variant 4").getDepartureSeconds(),
+                loaded.getLines().get("5 variant 4").getDepartureSeconds(), "Nouveaux départs");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void cacheDirectory() throws Exception {
+        Path cache = Files.createTempDirectory("cache");
+        cache.toFile().deleteOnExit();
+        PlanParser.setCacheDirectory(cache);
+        try {
+            Plan plan = PlanParser.planFromFiles(mapFile, timeFile);
+            PlanParser.prepareHierarchy(plan, mapFile);
+            Path snapshot = PlanSnapshot.file(mapFile, timeFile);
+            Path hierarchy = cache.resolve(MAP_DATA_ALL + ".csv" + PlanParser.HIERARCHY_EXTENSION);
+            snapshot.toFile().deleteOnExit();
+            hierarchy.toFile().deleteOnExit();
+            assertEquals(cache, snapshot.getParent(), "Image dans le répertoire des caches");
+            assertTrue(Files.isRegularFile(snapshot), "Image enregistrée");
+            assertTrue(Files.isRegularFile(hierarchy), "Hiérarchie enregistrée");
+            assertFalse(Files.exists(Path.of(mapFile).resolveSibling(snapshot.getFileName())),
+                    "Rien à côté du plan");
+            assertNotNull(PlanSnapshot.load(mapFile, timeFile), "Image relue");
+        } finally {
+            PlanParser.setCacheDirectory(null);
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package server.map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
@@ -51,15 +58,15 @@ class PlanTest {
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void updateSectionTimeNullSection() {
-        plan.updateSectionTime(null, new Time(0, 0));
-        assertEquals(plan.getMap(), new Plan(plan).getMap(), "Update null section");
+        assertNull(plan.withNextTime(null, new Time(0, 0)), "Update null section");
     }
 
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void updateSectionTimeUnknownSection() {
-        plan.updateSectionTime(unknownSection, new Time(0, 0));
-        assertEquals(plan.getMap(), new Plan(plan).getMap(), "Update null section");
+        Section timed = plan.withNextTime(unknownSection, new Time(0, 0));
+        assertEquals(new Time(0, 0), timed.getTime(), "Update unknown section");
+        assertNull(unknownSection.getTime(), "Unknown section unchanged");
     }
 
     @Test
@@ -85,4 +92,79 @@ class PlanTest {
     void getLineUnknownSection() {
         assertNull(plan.getLine(unknownSection), "Line of unknown section");
     }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void frozenPlanRejectsChanges() {
+        plan.freeze();
+        assertThrows(IllegalStateException.class,
+                () -> plan.addSection("A", new double[] {0, 0}, "B", new double[] {0, 0},
+                        "8 variant 1", new int[] {1, 0}, 1),
+                "Add a section to a frozen plan");
+        assertThrows(IllegalStateException.class, plan::updateSectionsTime,
+                "Update a frozen plan");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void copieOfFrozenPlanIsModifiable() throws Exception {
+        plan.freeze();
+        Plan copie = plan.resetLinesSections();
+        assertFalse(copie.isFrozen(), "Copie of a frozen plan");
+        PlanParser.addTimeFromCSV(copie, getPath(TIME_DATA));
+        assertEquals(plan.getStationsInfo(), copie.getStationsInfo(), "Plan copie");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void gettersReturnSameViews() {
+        assertSame(plan.getMap(), plan.getMap(), "Vue des sections");
+        assertSame(plan.getLines(), plan.getLines(), "Vue des lignes");
+        assertSame(plan.getStationsInfo(), plan.getStationsInfo(), "Vue des informations");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void viewsAreReadOnly() {
+        String station = plan.getStationsName().iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> plan.getMap().remove(station),
+                "Retrait d'une station");
+        assertThrows(UnsupportedOperationException.class,
+                () -> plan.getSectionsFromStationName(station).add(unknownSection),
+                "Ajout d'une section");
+        assertThrows(UnsupportedOperationException.class,
+                () -> plan.getMap().get(station).clear(), "Retrait des sections");
+        assertThrows(UnsupportedOperationException.class, () -> plan.getStations().clear(),
+                "Retrait des stations");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sectionsFromUnknownStation() {
+        assertTrue(plan.getSectionsFromStationName("inconnue").isEmpty(),
+                "Sections d'une station inconnue");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void viewsFollowChanges() throws Exception {
+        Plan copie = new Plan(plan);
+        int stations = copie.getMap().size();
+        Line line = plan.getLines().get("8 variant 1");
+        Map<Section, Integer> sections = line.getSectionsMap();
+        List<Time> departures = line.getDepartures();
+        Set<StationInfo> infos = plan.getStationsInfo();
+        String start = line.getStart().getStart().getName();
+        copie.addSection("Nouvelle", new double[] {2.3, 48.8}, start, new double[] {2.3, 48.9},
+                "8 variant 1", new int[] {1, 0}, 1);
+        copie.addDepartureTime("8 variant 1", start, new int[] {3, 7});
+        assertEquals(stations + 1, copie.getMap().size(), "Stations après un ajout");
+        assertTrue(copie.getStationsName().contains("Nouvelle"), "Nouvelle station");
+        assertEquals(departures.size() + 1,
+                copie.getLines().get("8 variant 1").getDepartures().size(), "Départ ajouté");
+        assertEquals(stations, plan.getMap().size(), "Le plan copié ne change pas");
+        assertEquals(sections, line.getSectionsMap(), "Sections de la ligne inchangées");
+        assertEquals(departures, line.getDepartures(), "Départs de la ligne inchangés");
+        assertEquals(infos, plan.getStationsInfo(), "Informations des stations inchangées");
+    }
 }
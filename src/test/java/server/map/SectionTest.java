@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -59,32 +63,56 @@ class SectionTest {
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void durationToS1ArrivalTimeIsNull() {
-        s1.setTime(new Time(13, 30));
-        assertThrows(IllegalArgumentException.class, () -> s1.durationTo(null), "Duration to null");
+        Section timed = s1.withTime(new Time(13, 30));
+        assertThrows(IllegalArgumentException.class, () -> timed.durationTo(null),
+                "Duration to null");
     }
 
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void durationToS2ArrivalTimeIsNull() {
-        s2.setTime(new Time(13, 30));
         assertThrows(IllegalArgumentException.class, () -> s1.durationTo(null), "Duration to null");
     }
 
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void durationTo() {
-        s1.setTime(new Time(13, 30));
-        s2.setTime(new Time(13, 40));
-        assertEquals(930, s1.durationTo(s2), "Distance between two section arrivals");
+        Section timed1 = s1.withTime(new Time(13, 30));
+        Section timed2 = s2.withTime(new Time(13, 40));
+        assertEquals(930, timed1.durationTo(timed2), "Distance between two section arrivals");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void durationToWithoutTime() {
+        Section timed2 = s2.withTime(new Time(13, 40));
+        assertThrows(IllegalArgumentException.class, () -> s1.durationTo(timed2),
+                "Duration without departure time");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void serializationKeepsTime() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(s1.withTime(new Time(23, 59)));
+            out.writeObject(s2);
+        }
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Section read1 = (Section) in.readObject();
+            Section read2 = (Section) in.readObject();
+            assertEquals(new Time(23, 59), read1.getTime(), "Departure time after serialization");
+            assertEquals(new Time(0, 1), read1.getArrivalTime(), "Arrival time after midnight");
+            assertNull(read2.getTime(), "No departure time after serialization");
+        }
     }
 
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void equalsWithDifferentTime() {
-        Section s1bis = new Section(a, b, "", 1716, 120);
-        s1.setTime(new Time(12, 45));
-        s1bis.setTime(new Time(11, 34));
-        assertEquals(s1, s1bis, "Sections with different time");
+        Section s1bis = new Section(a, b, "", new Time(11, 34), 1716, 120);
+        assertEquals(s1.withTime(new Time(12, 45)), s1bis, "Sections with different time");
     }
 
     @Test
@@ -146,8 +174,19 @@ class SectionTest {
     @Test
     @Timeout(DEFAULT_TIMEOUT)
     void copieWithTime() {
-        s1.setTime(new Time(12, 30));
-        assertEquals(s1, new Section(a, b, "", 1716, 120), "Copie section with non-null time");
+        Section timed = s1.withTime(new Time(12, 30));
+        assertEquals(timed, new Section(timed), "Copie section with non-null time");
+        assertEquals(new Time(12, 30), new Section(timed).getTime(), "Copie keeps time");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void withDepartureLeavesSectionUnchanged() {
+        Section timed = s1.withDeparture(13 * 3600);
+        assertNull(s1.getTime(), "La section d'origine n'a pas d'horaire");
+        assertEquals(new Time(13, 0), timed.getTime(), "Horaire de la copie");
+        assertEquals(s1, timed.withLine(""), "Même section");
+        assertNull(s1.withDeparture(Section.NO_TIME).getTime(), "Sans horaire");
     }
 
     @Test
@@ -0,0 +1,80 @@
+package server.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class SpatialIndexTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static final String MAP_DATA_ALL = "map_data_all";
+
+    private static final int QUERIES = 200;
+
+    private final PlanGraph graph;
+
+    private static String getPath(String filename) {
+        if (filename == null)
+            return null;
+        return "src/test/resources/" + filename + ".csv";
+    }
+
+    SpatialIndexTest() throws Exception {
+        graph = PlanParser.planFromSectionCSV(getPath(MAP_DATA_ALL)).getGraph();
+    }
+
+    /**
+     * @return une coordonnée tirée au hasard autour de Paris, parfois hors du réseau
+     */
+    private static Coordinate randomCoordinate(Random random) {
+        return new Coordinate(48.75 + random.nextDouble() * 0.2, 2.2 + random.nextDouble() * 0.3);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void rangeSameAsFullScan() {
+        Random random = new Random(1);
+        for (int q = 0; q < QUERIES; q++) {
+            Coordinate c = randomCoordinate(random);
+            int maxDistance = 200 + random.nextInt(3000);
+            int[] expected = IntStream.range(0, graph.stopCount())
+                    .filter(s -> c.getDistance(graph.stop(s).getCoordinate()) < maxDistance)
+                    .toArray();
+            int[] found = graph.spatialIndex().range(c, maxDistance);
+            Arrays.sort(found);
+            assertArrayEquals(expected, found, String.format("%d m autour de %s", maxDistance, c));
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nearestSameAsFullScan() {
+        Random random = new Random(2);
+        for (int q = 0; q < QUERIES; q++) {
+            Coordinate c = randomCoordinate(random);
+            int k = 1 + random.nextInt(10);
+            int[] expected = IntStream.range(0, graph.stopCount()).boxed()
+                    .sorted(Comparator.comparingInt(
+                            (Integer s) -> c.getDistance(graph.stop(s).getCoordinate()))
+                            .thenComparing(s -> s))
+                    .limit(k).mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(expected, graph.spatialIndex().nearest(c, k),
+                    String.format("%d plus proches de %s", k, c));
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void nearestFarFromNetwork() {
+        Coordinate c = new Coordinate(45.76, 4.83);
+        assertEquals(graph.stopCount(), graph.spatialIndex().nearest(c, Integer.MAX_VALUE).length,
+                "Tous les arrêts");
+        assertEquals(1, graph.spatialIndex().nearest(c, 1).length, "Un seul arrêt");
+    }
+}
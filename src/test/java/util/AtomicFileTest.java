@@ -0,0 +1,57 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class AtomicFileTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static Path directory() throws Exception {
+        Path dir = Files.createTempDirectory("atomic");
+        dir.toFile().deleteOnExit();
+        return dir;
+    }
+
+    private static void delete(Path dir) {
+        File[] files = dir.toFile().listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        dir.toFile().delete();
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void replacesContent() throws Exception {
+        Path dir = directory();
+        Path file = dir.resolve("data");
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        AtomicFile.write(file, out -> out.writeByte(5));
+        assertArrayEquals(new byte[] {5}, Files.readAllBytes(file), "Contenu remplacé");
+        assertEquals(1, dir.toFile().list().length, "Pas de fichier temporaire");
+        delete(dir);
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void failureKeepsContent() throws Exception {
+        Path dir = directory();
+        Path file = dir.resolve("data");
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        assertThrows(IOException.class, () -> AtomicFile.write(file, out -> {
+            out.writeByte(5);
+            throw new IOException("échec");
+        }), "Erreur relancée");
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, Files.readAllBytes(file), "Contenu conservé");
+        assertEquals(1, dir.toFile().list().length, "Fichier temporaire supprimé");
+        delete(dir);
+    }
+}
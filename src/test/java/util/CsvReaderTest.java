@@ -0,0 +1,119 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class CsvReaderTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    private static Path write(String content) throws Exception {
+        Path file = Files.createTempFile("reader", ".csv");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void notFound() {
+        assertThrows(FileNotFoundException.class, () -> new CsvReader(Path.of("test")),
+                "File not found");
+        assertThrows(FileNotFoundException.class,
+                () -> new CsvReader(Path.of("src/test/resources")), "Répertoire");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void fields() throws Exception {
+        try (CsvReader reader = new CsvReader(write(" Félix Faure ;2.5, -48;4:14\r\n\nx"))) {
+            assertTrue(reader.nextLine(), "Première ligne");
+            assertEquals("Félix Faure", reader.nextString(';'), "Champ textuel");
+            assertEquals(2.5, reader.nextDouble(','), "Premier nombre");
+            assertEquals(-48.0, reader.nextDouble(';'), "Second nombre");
+            assertEquals(4, reader.nextInt(':'), "Minutes");
+            assertEquals(14, reader.nextInt(';'), "Secondes");
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.nextString(';'),
+                    "Plus de champ");
+            assertTrue(reader.nextLine(), "Ligne vide");
+            assertEquals("", reader.nextString(';'), "Champ vide");
+            assertTrue(reader.nextLine(), "Dernière ligne sans retour");
+            assertEquals(3, reader.lineNumber(), "Numéro de ligne");
+            assertThrows(NumberFormatException.class, () -> reader.nextInt(';'), "Pas un entier");
+            assertFalse(reader.nextLine(), "Fin du fichier");
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void longLines() throws Exception {
+        StringBuilder content = new StringBuilder();
+        String name = "S".repeat(100_000);
+        for (int i = 0; i < 5; i++)
+            content.append(name).append(';').append(i).append('\n');
+        try (CsvReader reader = new CsvReader(write(content.toString()))) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(reader.nextLine(), "Ligne " + i);
+                assertEquals(name, reader.nextString(';'), "Nom de la ligne " + i);
+                assertEquals(i, reader.nextInt(';'), "Entier de la ligne " + i);
+            }
+            assertFalse(reader.nextLine(), "Fin du fichier");
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void intBounds() throws Exception {
+        try (CsvReader reader = new CsvReader(write("2147483647;-2147483648;2147483648;+7"))) {
+            reader.nextLine();
+            assertEquals(Integer.MAX_VALUE, reader.nextInt(';'), "Entier maximal");
+            assertEquals(Integer.MIN_VALUE, reader.nextInt(';'), "Entier minimal");
+            assertThrows(NumberFormatException.class, () -> reader.nextInt(';'), "Dépassement");
+            assertEquals(7, reader.nextInt(';'), "Signe +");
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sameDoubleAsParseDouble() throws Exception {
+        Random random = new Random(1);
+        List<String> values = new ArrayList<>(List.of("0", "-0.0", ".5", "1.", "1e3", "-2.5E-3",
+                "NaN", "123456789012345678901234567890", "0.000000000000000000000001"));
+        for (int i = 0; i < 10_000; i++) {
+            String digits = Long.toString(random.nextLong() & Long.MAX_VALUE);
+            digits = digits.substring(0, 1 + random.nextInt(digits.length()));
+            int point = random.nextInt(digits.length() + 1);
+            values.add(digits.substring(0, point) + "." + digits.substring(point));
+            values.add(Double.toString(random.nextDouble() * 100));
+        }
+        try (CsvReader reader = new CsvReader(write(String.join("\n", values)))) {
+            for (String value : values) {
+                reader.nextLine();
+                assertEquals(Double.doubleToRawLongBits(Double.parseDouble(value)),
+                        Double.doubleToRawLongBits(reader.nextDouble(';')), value);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void notADouble() throws Exception {
+        try (CsvReader reader = new CsvReader(write("A;.;;1.2.3"))) {
+            reader.nextLine();
+            for (int i = 0; i < 4; i++)
+                assertThrows(NumberFormatException.class, () -> reader.nextDouble(';'),
+                        "Champ " + i);
+        }
+    }
+}
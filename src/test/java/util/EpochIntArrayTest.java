@@ -0,0 +1,58 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class EpochIntArrayTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void negativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new EpochIntArray(-1, 0),
+                "Capacité négative");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void defaultValue() {
+        EpochIntArray array = new EpochIntArray(3, -1);
+        assertEquals(-1, array.get(0), "Case non écrite");
+        assertFalse(array.isSet(0), "Case non écrite");
+        array.set(0, 5);
+        assertEquals(5, array.get(0), "Case écrite");
+        assertTrue(array.isSet(0), "Case écrite");
+        assertEquals(-1, array.get(1), "Autre case");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void resetForgetsValues() {
+        EpochIntArray array = new EpochIntArray(2, Integer.MAX_VALUE);
+        array.set(0, 1);
+        array.set(1, 2);
+        array.reset(2);
+        assertEquals(Integer.MAX_VALUE, array.get(0), "Valeur oubliée");
+        assertFalse(array.isSet(1), "Valeur oubliée");
+        array.set(1, 3);
+        assertEquals(3, array.get(1), "Nouvelle valeur");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void resetGrows() {
+        EpochIntArray array = new EpochIntArray(1, 0);
+        array.set(0, 7);
+        array.reset(4);
+        assertEquals(4, array.capacity(), "Tableau agrandi");
+        for (int i = 0; i < 4; i++)
+            assertFalse(array.isSet(i), "Case " + i);
+        array.set(3, 1);
+        assertEquals(1, array.get(3), "Nouvelle case");
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class IndexedHeapTest {
+
+    private static final int DEFAULT_TIMEOUT = 2000;
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void negativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IndexedHeap(-1),
+                "Capacité négative");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void pollEmpty() {
+        IndexedHeap heap = new IndexedHeap(3);
+        assertThrows(NoSuchElementException.class, heap::poll, "Tas vide");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void decreaseKey() {
+        IndexedHeap heap = new IndexedHeap(3);
+        heap.push(0, 10);
+        heap.push(1, 20);
+        heap.push(2, 30);
+        heap.push(2, 5);
+        heap.push(0, 40);
+        assertEquals(3, heap.size(), "Pas de doublon");
+        assertEquals(2, heap.poll(), "Clé diminuée");
+        assertEquals(0, heap.poll(), "Clé non augmentée");
+        assertEquals(1, heap.poll(), "Dernier élément");
+        assertTrue(heap.isEmpty(), "Tas vidé");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void clear() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.push(3, 1);
+        heap.push(1, 2);
+        heap.clear();
+        assertTrue(heap.isEmpty(), "Tas vidé");
+        assertFalse(heap.contains(3), "Identifiant retiré");
+        heap.push(3, 7);
+        assertEquals(7, heap.peekKey(), "Réinsertion après clear");
+    }
+
+    @Test
+    @Timeout(DEFAULT_TIMEOUT)
+    void sortedPolls() {
+        int n = 1000;
+        Random random = new Random(n);
+        IndexedHeap heap = new IndexedHeap(n);
+        for (int i = 0; i < n; i++)
+            heap.push(i, random.nextInt(n));
+        for (int i = 0; i < n; i++)
+            heap.push(random.nextInt(n), random.nextInt(n));
+        int last = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            int key = heap.peekKey();
+            assertTrue(last <= key, "Ordre croissant des clés");
+            last = key;
+            heap.poll();
+        }
+    }
+}